@@ -0,0 +1,87 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compares the per-request cost of the unpaged {@code GET /api/events} body before and after {@link EventListSnapshotCache}.
+ *
+ * <ul>
+ * <li>{@code serializePerRequest}: the previous path, Jackson over the cached event list on every request.</li>
+ * <li>{@code serializeAndGzipPerRequest}: the same plus the gzip a compressing server or proxy would then apply.</li>
+ * <li>{@code snapshot}: the current path, a stamp comparison and a reference read returning pre-serialized bytes.</li>
+ * </ul>
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventListSerializationBenchmark {
+
+    @Param({"15", "500", "5000"})
+    private int eventCount;
+
+    private JsonMapper jsonMapper;
+    private List<Event> events;
+    private EventStamp stamp;
+    private EventListSnapshotCache snapshotCache;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            Event event = new Event();
+            event.setId((long) i);
+            event.setName("Event " + i);
+            event.setDescription("Talks, workshops and networking for engineers, round " + i);
+            event.setLocation("Conference Center, Hall " + (i % 12));
+            event.setDate(LocalDate.of(2030, 1, 1).plusDays(i % 365));
+            event.setTime(LocalTime.of(9 + i % 9, 30));
+            event.setVersion(1L);
+            event.setLastModified(Instant.parse("2030-01-01T00:00:00Z"));
+            events.add(event);
+        }
+        List<Event> loaded = List.copyOf(events);
+        stamp = new EventStamp((long) eventCount, Instant.parse("2030-01-01T00:00:00Z"));
+        snapshotCache = new EventListSnapshotCache(jsonMapper);
+        snapshotCache.get(stamp, () -> loaded);
+    }
+
+    @Benchmark
+    public byte[] serializePerRequest() {
+        return jsonMapper.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzipPerRequest() throws IOException {
+        byte[] json = jsonMapper.writeValueAsBytes(events);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] snapshot() {
+        return snapshotCache.get(stamp, () -> events).gzipped();
+    }
+}
@@ -5,10 +5,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import com.digitalsanctuary.spring.demo.session.UserSessionRegistry;
+import com.digitalsanctuary.spring.demo.user.profile.session.SessionProfileDiagnostics;
+import com.digitalsanctuary.spring.demo.user.profile.session.SessionProfileDiagnostics.SessionFootprint;
 import com.digitalsanctuary.spring.user.persistence.model.User;
 import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
 import com.digitalsanctuary.spring.user.util.JSONResponse;
@@ -19,7 +23,8 @@ import lombok.extern.slf4j.Slf4j;
  * JSON endpoints behind the admin actions page (templates/admin/actions.html and
  * static/js/admin/admin-action.js). All endpoints require ADMIN_PRIVILEGE, the same authority as the page.
  *
- * Every outcome returns a {@link JSONResponse} body so the page's fetch() can always read messages[0].
+ * Every outcome of the account actions returns a {@link JSONResponse} body so the page's fetch() can always read
+ * messages[0]. The diagnostics endpoints return their report as plain JSON.
  */
 @Slf4j
 @RestController
@@ -28,6 +33,8 @@ import lombok.extern.slf4j.Slf4j;
 public class AdminAPIController {
 
     private final UserRepository userRepository;
+    private final SessionProfileDiagnostics sessionProfileDiagnostics;
+    private final UserSessionRegistry userSessionRegistry;
 
     /**
      * Request body for the lock and unlock endpoints.
@@ -38,8 +45,8 @@ public class AdminAPIController {
     }
 
     /**
-     * Locks a user account. A locked user fails authentication until the lockout duration elapses or an admin
-     * unlocks the account.
+     * Locks a user account and ends the user's active sessions. A locked user fails authentication until the lockout
+     * duration elapses or an admin unlocks the account.
      *
      * @param request the account to lock
      * @return 200 on success, 400 when the email is missing, 404 when no user has that email
@@ -65,6 +72,17 @@ public class AdminAPIController {
         return setLocked(request, false);
     }
 
+    /**
+     * Reports the estimated heap retained by the session profile snapshots sampled on this instance, on average and at most.
+     *
+     * @return the session footprint
+     */
+    @GetMapping("/diagnostics/sessions")
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public ResponseEntity<SessionFootprint> sessionDiagnostics() {
+        return ResponseEntity.ok(sessionProfileDiagnostics.report());
+    }
+
     private ResponseEntity<JSONResponse> setLocked(AccountActionRequest request, boolean locked) {
         String email = request.email() != null ? request.email().trim() : "";
         if (email.isEmpty()) {
@@ -86,6 +104,9 @@ public class AdminAPIController {
         }
         userRepository.save(user);
         log.info("Admin set locked={} for user: {}", locked, email);
+        if (locked) {
+            log.info("Ended {} session(s) of locked user: {}", userSessionRegistry.invalidateSessions(user, null), email);
+        }
 
         return response(HttpStatus.OK, true, locked ? "Account locked." : "Account unlocked.");
     }
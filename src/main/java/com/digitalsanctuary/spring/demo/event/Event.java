@@ -1,23 +1,38 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Objects;
+import org.hibernate.annotations.ColumnDefault;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {@Index(name = "idx_events_date_time_id", columnList = "date, time, id"),
+        @Index(name = "idx_events_last_modified", columnList = "last_modified")})
 public class Event {
+    /**
+     * Drawn from the {@code events_seq} sequence in blocks of 50 (Hibernate's pooled optimizer). Unlike an identity column this
+     * lets Hibernate assign ids before the INSERT, so inserts can be sent as JDBC batches.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Event name is required")
@@ -35,6 +50,49 @@ public class Event {
     @NotNull(message = "Event time is required")
     private LocalTime time;
 
+    /** The maximum number of registrations, or {@code null} for no limit. */
+    @Min(value = 1, message = "Event capacity must be at least 1")
+    private Integer capacity;
+
+    /**
+     * The number of current registrations. Never written by JPA inserts and updates, which would overwrite concurrent changes
+     * with the value the entity was loaded with; only {@link EventRepository#claimSeat} and {@link EventRepository#releaseSeat}
+     * and their batch forms change it, in a single conditional {@code UPDATE}. {@link EventRegistrationCountReconciler} repairs
+     * it if it drifts from the rows in {@code event_registrations}.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ColumnDefault("0")
+    @Column(name = "registered_count", nullable = false, insertable = false, updatable = false)
+    private int registeredCount;
+
+    /**
+     * Incremented on every JPA insert and update, and by the seat updates in {@link EventRepository}; used as the event's ETag.
+     * Not an {@code @Version} column, so rows written before the column existed (null) stay updatable. Bulk JPQL updates that
+     * change an event must bump it themselves.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * Set on every JPA insert and update; used for {@code Last-Modified} and the catalog-wide version stamp. Seat updates leave
+     * it alone, so registrations do not move the catalog stamp.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "last_modified")
+    private Instant lastModified;
+
+    @PrePersist
+    void onCreate() {
+        version = 1L;
+        lastModified = Instant.now();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        version = version == null ? 1L : version + 1;
+        lastModified = Instant.now();
+    }
+
     /**
      * Override the equals method to compare the id of the Event object
      *
@@ -1,11 +1,22 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,11 +24,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
-import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
+import com.digitalsanctuary.spring.demo.user.profile.AdmissionTicket;
 import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService;
+import com.digitalsanctuary.spring.demo.user.profile.ProfileUpdate;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationAdmissionQueue;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationChange;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationChangeResult;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationResult;
 import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,19 +48,313 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/events")
 public class EventAPIController {
 
+    /** Response header carrying the cursor for the next page of {@code GET /api/events}. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** {@code Retry-After} sent with a {@code 429} when a hot event's admission queue is full. */
+    private static final String ADMISSION_RETRY_AFTER_SECONDS = "2";
+
     private final DemoSessionProfile demoSessionProfile;
 
     private final EventService eventService;
 
     private final DemoUserProfileService demoUserProfileService;
 
+    private final EventExportService eventExportService;
+
+    private final EventImportService eventImportService;
+
+    private final RegistrationAdmissionQueue registrationAdmissionQueue;
+
+    private final EventRosterService eventRosterService;
+
+    /**
+     * Lists events. Without query parameters this returns the full catalog, as it always has, with an ETag and
+     * {@code Last-Modified} derived from {@link EventService#getCatalogStamp()}; a matching {@code If-None-Match} or
+     * {@code If-Modified-Since} gets a {@code 304} before any event is loaded. Otherwise the body is the pre-serialized
+     * {@link EventListSnapshot}, gzip-compressed when the client accepts it, so no events are loaded or serialized unless the
+     * catalog has changed since the snapshot was built. That body leaves out each event's {@code registeredCount}, which
+     * {@link #getRegisteredCounts()} serves. When {@code cursor}, {@code limit}, {@code from} or {@code to} is
+     * supplied, it returns a single keyset page in {@code (date, time, id)} order instead, restricted to events dated between
+     * {@code from} and {@code to} (both inclusive, either may be omitted). The cursor for the following page is sent in the
+     * {@value #NEXT_CURSOR_HEADER} response header (absent on the last page).
+     *
+     * @param from the first date to include, ISO-8601 ({@code 2026-01-31})
+     * @param to the last date to include, ISO-8601
+     * @param cursor the {@code X-Next-Cursor} value from the previous page, omitted for the first page
+     * @param limit the page size, capped at {@link EventService#MAX_PAGE_SIZE}
+     * @param request the current request, for conditional {@code GET} handling
+     * @return the events, or {@code null} when a {@code 304} has been sent
+     */
     @GetMapping
-    public List<Event> getAllEvents() {
-        return eventService.getAllEvents();
+    public ResponseEntity<?> getAllEvents(@RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit, WebRequest request) {
+        if (from == null && to == null && cursor == null && limit == null) {
+            EventStamp stamp = eventService.getCatalogStamp();
+            if (stamp != null && request.checkNotModified(stamp.eTag("events"), stamp.lastModifiedMillis())) {
+                return null;
+            }
+            EventListSnapshot snapshot = eventService.getAllEventsSnapshot(stamp);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).varyBy(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzipped());
+            }
+            return response.body(snapshot.json());
+        }
+
+        EventPage page;
+        try {
+            page = eventService.getEventPageBetween(from, to, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            log.info("Rejected event page request (from={}, to={}, cursor={}): {}", from, to, cursor, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.events());
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header allows gzip: {@code gzip} is listed without {@code q=0}, or it is not listed and
+     * {@code *} is.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                refused |= parts[i].replace(" ", "").matches("(?i)q=0(\\.0*)?");
+            }
+            if (name.equalsIgnoreCase("gzip")) {
+                return !refused;
+            }
+            if (name.equals("*")) {
+                wildcard = !refused;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Full-text search over event name, location and description. Every word in {@code q} must match a word in the event, exactly
+     * or as a prefix; results are ranked with name matches above location and description matches.
+     *
+     * @param q the search text
+     * @param limit the maximum number of results, capped at {@link EventService#MAX_PAGE_SIZE}
+     * @return matching events, best match first
+     */
+    @GetMapping("/search")
+    public List<Event> searchEvents(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return eventService.searchEvents(q, limit);
+    }
+
+    /**
+     * Returns the live registration count of every event that has registrations, keyed by event id. The unpaged
+     * {@code GET /api/events} body leaves the counts out, so that registrations do not invalidate it; read them here.
+     *
+     * @return registration counts by event id
+     */
+    @GetMapping("/registered-counts")
+    public Map<Long, Integer> getRegisteredCounts() {
+        return eventService.getRegisteredCounts();
+    }
+
+    /**
+     * Lists the upcoming events with the most registrations, from an incrementally maintained in-memory ranking, so the cost
+     * does not depend on the size of the catalog.
+     *
+     * @param limit the maximum number of events, capped at {@link EventService#MAX_PAGE_SIZE}
+     * @return the most popular upcoming events, most registrations first
+     */
+    @GetMapping("/trending")
+    public List<Event> getTrendingEvents(@RequestParam(required = false) Integer limit) {
+        return eventService.getTrendingEvents(limit);
+    }
+
+    /**
+     * Lists the events the current user is registered for as {@link EventSummary} projections, one keyset page at a time in
+     * {@code (date, time, id)} order. The cursor for the following page is sent in the {@value #NEXT_CURSOR_HEADER} response
+     * header (absent on the last page).
+     *
+     * @param cursor the {@code X-Next-Cursor} value from the previous page, omitted for the first page
+     * @param limit the page size, capped at {@link EventService#MAX_PAGE_SIZE}
+     * @return the registered events, or 400 if there is no profile in the session or the cursor is invalid
+     */
+    @GetMapping("/registered")
+    public ResponseEntity<List<EventSummary>> getRegisteredEvents(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
+            log.info("User profile not found in session");
+            return ResponseEntity.badRequest().build();
+        }
+        EventSummaryPage page;
+        try {
+            page = demoUserProfileService.getRegisteredEvents(profileId, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.events());
+    }
+
+    /**
+     * Streams the whole catalog as NDJSON (one JSON object per line, the default) or CSV. Rows are written as they are read from
+     * the database, so memory use does not depend on the number of events.
+     *
+     * @param format {@code ndjson} or {@code csv}
+     * @return the streaming response
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public ResponseEntity<StreamingResponseBody> exportEvents(@RequestParam(defaultValue = "ndjson") String format) {
+        EventExportService.Format parsed;
+        try {
+            parsed = EventExportService.Format.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        EventExportService.Format exportFormat = parsed;
+        StreamingResponseBody body = out -> eventExportService.export(exportFormat, out);
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events." + exportFormat.getExtension() + "\"").body(body);
+    }
+
+    /**
+     * Lists an event's attendees as {@link RosterEntry} projections, one keyset page at a time in registration order. The
+     * cursor for the following page is sent in the {@value #NEXT_CURSOR_HEADER} response header (absent on the last page).
+     *
+     * @param eventId the event id
+     * @param cursor the {@code X-Next-Cursor} value from the previous page, omitted for the first page
+     * @param limit the page size, capped at {@link EventService#MAX_PAGE_SIZE}
+     * @return the attendees, 404 if the event does not exist, or 400 if the cursor is invalid
+     */
+    @GetMapping("/{eventId}/registrations")
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public ResponseEntity<List<RosterEntry>> getRoster(@PathVariable Long eventId, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (eventService.getEventById(eventId).isEmpty()) {
+            log.info("Event not found with id: {}", eventId);
+            return ResponseEntity.notFound().build();
+        }
+        RosterPage page;
+        try {
+            page = eventRosterService.getRoster(eventId, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.entries());
+    }
+
+    /**
+     * Streams an event's whole roster as CSV. Rows are written as they are read from the database, so memory use does not
+     * depend on the number of attendees.
+     *
+     * @param eventId the event id
+     * @return the streaming response, or 404 if the event does not exist
+     */
+    @GetMapping("/{eventId}/registrations/export")
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public ResponseEntity<StreamingResponseBody> exportRoster(@PathVariable Long eventId) {
+        if (eventService.getEventById(eventId).isEmpty()) {
+            log.info("Event not found with id: {}", eventId);
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> eventRosterService.exportCsv(eventId, out);
+        return ResponseEntity.ok().contentType(EventExportService.Format.CSV.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-" + eventId + "-roster.csv\"").body(body);
     }
 
+    /**
+     * Bulk-imports events from a JSON array. Each element is validated like a {@code POST /api/events} body; rejected rows are
+     * listed in the result and do not stop the rest of the upload. The array is read from the request body one element at a
+     * time rather than bound as a whole.
+     *
+     * @param body the JSON array of events to create
+     * @return how many rows were imported and which were rejected
+     */
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public EventImportResult importEvents(InputStream body) {
+        try {
+            return eventImportService.importJson(body);
+        } catch (IllegalArgumentException e) {
+            log.info("Rejected JSON event import: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk-imports events from a CSV request body. The header row must name the {@code name}, {@code description},
+     * {@code location}, {@code date} and {@code time} columns; the output of {@code GET /api/events/export?format=csv} is accepted
+     * as is.
+     *
+     * @param body the CSV content, UTF-8
+     * @return how many rows were imported and which were rejected
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(path = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public EventImportResult importEventsCsv(InputStream body) throws IOException {
+        return importCsv(body);
+    }
+
+    /**
+     * Bulk-imports events from an uploaded CSV file, as {@link #importEventsCsv(InputStream)} does for a raw CSV body.
+     *
+     * @param file the uploaded CSV file, UTF-8
+     * @return how many rows were imported and which were rejected
+     * @throws IOException if the upload cannot be read
+     */
+    @PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN_PRIVILEGE')")
+    public EventImportResult importEventsUpload(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return importCsv(in);
+        }
+    }
+
+    private EventImportResult importCsv(InputStream in) throws IOException {
+        try {
+            return eventImportService.importCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            log.info("Rejected CSV event import: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns one event, with an ETag and {@code Last-Modified} taken from its version. A matching {@code If-None-Match} or
+     * {@code If-Modified-Since} gets a {@code 304} after a single scalar lookup, without loading or serializing the event. The
+     * version also moves when a seat is taken or given back, but {@code Last-Modified} does not, so only the ETag tracks
+     * {@code registeredCount}.
+     *
+     * @param id the event id
+     * @param request the current request, for conditional {@code GET} handling
+     * @return the event, or {@code null} when a {@code 304} has been sent
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Event> getEventById(@PathVariable Long id) {
+    public ResponseEntity<Event> getEventById(@PathVariable Long id, WebRequest request) {
+        Optional<EventStamp> stamp = eventService.getEventStamp(id);
+        if (stamp.isPresent() && request.checkNotModified(stamp.get().eTag("event-" + id), stamp.get().lastModifiedMillis())) {
+            return null;
+        }
         Event event = eventService.getEventById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found"));
         return ResponseEntity.ok(event);
     }
@@ -67,13 +381,19 @@ public class EventAPIController {
 
     /**
      * This endpoint allows Users with the 'REGISTER_FOR_EVENT_PRIVILEGE' authority to register for an Event. This uses the DemoUserProfileService to
-     * associate the User with the Event.
+     * associate the User with the Event. Responds {@code 202 Accepted} when the event has no seats left and the User has been put
+     * on its waitlist instead.
+     *
+     * <p>
+     * For a hot event handled by {@link RegistrationAdmissionQueue} the registration is only queued: the response is
+     * {@code 202 Accepted} with an {@link AdmissionTicket} body and a {@code Location} to poll, or {@code 429 Too Many Requests}
+     * if the queue is full.
+     * </p>
      *
      */
     @PostMapping("/{eventId}/register")
     @PreAuthorize("hasAuthority('REGISTER_FOR_EVENT_PRIVILEGE')")
-    @Transactional
-    public ResponseEntity<Event> registerForEvent(@PathVariable Long eventId) {
+    public ResponseEntity<?> registerForEvent(@PathVariable Long eventId) {
         // Validate event exists first
         Optional<Event> event = eventService.getEventById(eventId);
         if (event.isEmpty()) {
@@ -82,18 +402,32 @@ public class EventAPIController {
         }
         
         // Get user profile from session
-        DemoUserProfile userProfile = demoSessionProfile.getUserProfile();
-        if (userProfile == null || userProfile.getId() == null) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
             log.info("User profile not found in session");
             return ResponseEntity.badRequest().build();
         }
+
+        // Hot events are written in batches by a single writer; hand back a ticket instead of waiting for it
+        if (registrationAdmissionQueue.isAdmissionControlled(eventId)) {
+            Optional<AdmissionTicket> ticket = registrationAdmissionQueue.submit(profileId, eventId);
+            if (ticket.isEmpty()) {
+                log.info("Admission queue for event {} is full; user {} turned away", eventId, profileId);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, ADMISSION_RETRY_AFTER_SECONDS).build();
+            }
+            return ResponseEntity.accepted().location(URI.create("/api/events/" + eventId + "/admission/" + ticket.get().getId())).body(ticket.get());
+        }
         
-        // Register using IDs to ensure managed entities
-        demoUserProfileService.registerForEvent(userProfile.getId(), eventId);
-        log.info("User {} registered for event: {}", userProfile.getId(), eventId);
+        // Single insert-if-absent plus a conditional seat update; registering twice is not an error
+        ProfileUpdate<RegistrationResult> update = demoUserProfileService.registerForEventAndStamp(profileId, eventId);
+        if (update.result() == RegistrationResult.WAITLISTED) {
+            log.info("Event {} is full; user {} is on the waitlist", eventId, profileId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(event.get());
+        }
+        log.info("User {} registered for event: {}", profileId, eventId);
         
-        // Refresh the session profile to include the new registration
-        demoSessionProfile.refreshProfile();
+        // Keep the session's registered event ids in step without reloading the profile
+        demoSessionProfile.markRegistered(eventId, update.changeStamp());
         
         return ResponseEntity.ok(event.get());
     }
@@ -115,20 +449,100 @@ public class EventAPIController {
         }
         
         // Get user profile from session
-        DemoUserProfile userProfile = demoSessionProfile.getUserProfile();
-        if (userProfile == null || userProfile.getId() == null) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
             log.info("User profile not found in session");
             return ResponseEntity.badRequest().build();
         }
 
-        // Unregister using IDs to ensure managed entities
-        demoUserProfileService.unregisterFromEvent(userProfile.getId(), eventId);
-        log.info("User {} unregistered from event: {}", userProfile.getId(), eventId);
+        // Single keyed delete, which also leaves the waitlist; unregistering when not registered is not an error
+        ProfileUpdate<Boolean> update = demoUserProfileService.unregisterFromEventAndStamp(profileId, eventId);
+        log.info("User {} unregistered from event: {}", profileId, eventId);
         
-        // Refresh the session profile to reflect the unregistration
-        demoSessionProfile.refreshProfile();
+        // Keep the session's registered event ids in step without reloading the profile
+        demoSessionProfile.markUnregistered(eventId, update.changeStamp());
         
         return ResponseEntity.ok(event.get());
     }
 
+    /**
+     * Applies a batch of register and unregister operations for the current User in one transaction, for example to save a
+     * conference agenda in one call instead of one per session. The body is a JSON array such as
+     * {@code [{"eventId": 1, "action": "REGISTER"}, {"eventId": 2, "action": "UNREGISTER"}]}, with each Event at most once;
+     * the response lists the outcome for each operation in the same order. The session's registrations are updated once for
+     * the whole batch. Responds {@code 400} for an empty, oversized or malformed batch, and {@code 429 Too Many Requests}
+     * without applying anything if it registers for a hot event handled by {@link RegistrationAdmissionQueue}; those go
+     * through {@link #registerForEvent(Long)} one at a time.
+     *
+     */
+    @PostMapping("/registrations:batch")
+    @PreAuthorize("hasAuthority('REGISTER_FOR_EVENT_PRIVILEGE')")
+    public ResponseEntity<List<RegistrationChangeResult>> applyRegistrationChanges(@RequestBody List<RegistrationChange> changes) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
+            log.info("User profile not found in session");
+            return ResponseEntity.badRequest().build();
+        }
+        // A batch would take the hot event's row lock directly, bypassing its admission queue
+        if (changes != null && changes.stream().anyMatch(change -> change != null && change.action() == RegistrationChange.Action.REGISTER
+                && registrationAdmissionQueue.isAdmissionControlled(change.eventId()))) {
+            log.info("Batch from user {} registers for an admission-controlled event; turned away", profileId);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        ProfileUpdate<List<RegistrationChangeResult>> update;
+        try {
+            update = demoUserProfileService.applyRegistrationChangesAndStamp(profileId, changes);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        demoSessionProfile.markRegistrationChanges(update.result(), update.changeStamp());
+        return ResponseEntity.ok(update.result());
+    }
+
+    /**
+     * Returns the current User's 1-based place in an Event's waitlist, as {@code {"position": n}}, or {@code 404} if the User
+     * is not waiting for it. The position comes from an in-memory order-statistics index, so the cost does not depend on the
+     * length of the queue.
+     *
+     */
+    @GetMapping("/{eventId}/waitlist/position")
+    @PreAuthorize("hasAuthority('REGISTER_FOR_EVENT_PRIVILEGE')")
+    public ResponseEntity<Map<String, Integer>> getWaitlistPosition(@PathVariable Long eventId) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
+            log.info("User profile not found in session");
+            return ResponseEntity.badRequest().build();
+        }
+        OptionalInt position = demoUserProfileService.getWaitlistPosition(profileId, eventId);
+        if (position.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("position", position.getAsInt()));
+    }
+
+    /**
+     * Returns an {@link AdmissionTicket} issued by {@link #registerForEvent(Long)} for a hot event. Its {@code status} stays
+     * {@code QUEUED} until the registration has been written, then becomes the {@link RegistrationResult}, or {@code FAILED}.
+     * Responds {@code 404} for an unknown or expired ticket, or one that belongs to another User.
+     *
+     */
+    @GetMapping("/{eventId}/admission/{ticketId}")
+    @PreAuthorize("hasAuthority('REGISTER_FOR_EVENT_PRIVILEGE')")
+    public ResponseEntity<AdmissionTicket> getAdmissionTicket(@PathVariable Long eventId, @PathVariable String ticketId) {
+        Long profileId = demoSessionProfile.getProfileId();
+        if (profileId == null) {
+            log.info("User profile not found in session");
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<AdmissionTicket> ticket = registrationAdmissionQueue.getTicket(ticketId)
+                .filter(t -> eventId.equals(t.getEventId()) && profileId.equals(t.getProfileId()));
+        if (ticket.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (ticket.get().getResult() == RegistrationResult.REGISTERED || ticket.get().getResult() == RegistrationResult.ALREADY_REGISTERED) {
+            // Keep the session's registered event ids in step without reloading the profile
+            demoSessionProfile.markRegistered(eventId);
+        }
+        return ResponseEntity.ok(ticket.get());
+    }
 }
@@ -0,0 +1,112 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, read-through cache in front of {@link EventRepository}.
+ *
+ * <p>
+ * Events are read far more often than they change, so {@link EventService} serves single events and the full event list from here
+ * and evicts the affected entries whenever it writes. Entries also expire after a fixed TTL, which bounds how stale another
+ * instance's copy can get in a multi-node deployment. Hit, miss and eviction counts are published to Micrometer as
+ * {@code cache.gets}, {@code cache.evictions} etc. with the tag {@code cache=events.byId} or {@code cache=events.all}, so they show
+ * up under {@code /actuator/metrics}.
+ * </p>
+ *
+ * <p>
+ * A load that races with a write must not put the pre-write value back after the write has evicted it. Every eviction therefore
+ * bumps a generation counter, and a loaded value is only stored if the generation is unchanged since the load started.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventCache {
+
+    private static final String ALL_EVENTS_KEY = "all";
+
+    private final Cache<Long, Event> eventsById;
+    private final Cache<String, List<Event>> allEvents;
+    private final AtomicLong generation = new AtomicLong();
+
+    public EventCache(@Value("${app.events.cache.ttl:PT5M}") Duration ttl, @Value("${app.events.cache.maximumSize:10000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.eventsById = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).recordStats().build();
+        this.allEvents = CacheBuilder.newBuilder().expireAfterWrite(ttl).maximumSize(1).recordStats().build();
+        GuavaCacheMetrics.monitor(meterRegistry, eventsById, "events.byId");
+        GuavaCacheMetrics.monitor(meterRegistry, allEvents, "events.all");
+        log.info("Event cache configured with ttl={} and maximumSize={}", ttl, maximumSize);
+    }
+
+    /**
+     * Returns the cached event, loading and caching it on a miss. Missing events are not cached, so a newly created id is never
+     * shadowed by an earlier lookup.
+     *
+     * @param id the event id
+     * @param loader loads the event from the database on a miss
+     * @return the event, or empty if it does not exist
+     */
+    public Optional<Event> getEvent(Long id, Supplier<Optional<Event>> loader) {
+        Event cached = eventsById.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long startGeneration = generation.get();
+        Optional<Event> loaded = loader.get();
+        if (loaded.isPresent() && generation.get() == startGeneration) {
+            eventsById.put(id, loaded.get());
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the cached list of all events, loading and caching it on a miss.
+     *
+     * @param loader loads all events from the database on a miss
+     * @return an unmodifiable list of all events
+     */
+    public List<Event> getAllEvents(Supplier<List<Event>> loader) {
+        List<Event> cached = allEvents.getIfPresent(ALL_EVENTS_KEY);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        List<Event> loaded = List.copyOf(loader.get());
+        if (generation.get() == startGeneration) {
+            allEvents.put(ALL_EVENTS_KEY, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Evicts one event and the full list that contains it. Called after every create, update and delete.
+     *
+     * @param id the id of the event that changed
+     */
+    public void evict(Long id) {
+        generation.incrementAndGet();
+        if (id != null) {
+            eventsById.invalidate(id);
+        }
+        allEvents.invalidateAll();
+    }
+
+    /**
+     * Evicts everything.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        eventsById.invalidateAll();
+        allEvents.invalidateAll();
+    }
+}
@@ -0,0 +1,11 @@
+package com.digitalsanctuary.spring.demo.event;
+
+/**
+ * Published by {@link EventService#updateEvent(Long, Event)} when an event's capacity is raised or removed, inside the
+ * transaction that changes it. Listeners run synchronously in that transaction, so the seats the event gained can go to its
+ * waitlist before a new registration can claim them.
+ *
+ * @param eventId the id of the event whose capacity grew
+ */
+public record EventCapacityIncreasedEvent(Long eventId) {
+}
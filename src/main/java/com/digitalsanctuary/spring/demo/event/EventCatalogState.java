@@ -0,0 +1,28 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.Instant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * The single row of catalog-wide state that no {@link Event} row can carry: when an event was last deleted. A deleted row
+ * takes its {@code lastModified} with it, so without this the catalog's latest modification time would not move on a delete
+ * and {@code If-Modified-Since} would keep answering {@code 304} for a list that still shows the deleted event.
+ */
+@Data
+@Entity
+@Table(name = "event_catalog_state")
+public class EventCatalogState {
+
+    /** The id of the only row. */
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_deleted")
+    private Instant lastDeleted;
+}
@@ -0,0 +1,107 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Opaque keyset cursor for paging through events in {@code (date, time, id)} order.
+ *
+ * <p>
+ * The cursor holds the sort key of the last event on a page. The next page is everything strictly after that key, so the
+ * database can seek straight to it instead of skipping {@code OFFSET} rows. Clients treat the encoded form as an opaque
+ * token and hand it back unchanged.
+ * </p>
+ *
+ * @param date the date of the last event returned
+ * @param time the time of the last event returned
+ * @param id the id of the last event returned
+ */
+public record EventCursor(LocalDate date, LocalTime time, Long id) implements Comparable<EventCursor> {
+
+    private static final String SEPARATOR = "|";
+
+    private static final Comparator<EventCursor> ORDER =
+            Comparator.comparing(EventCursor::date).thenComparing(EventCursor::time).thenComparing(EventCursor::id);
+
+    /**
+     * Builds the cursor that sorts before every event at or after the given date and time, so paging from it starts with the
+     * first event in that slot.
+     *
+     * @param date the earliest date to include
+     * @param time the earliest time on that date to include
+     * @return a cursor positioned just before {@code (date, time)}
+     */
+    public static EventCursor before(LocalDate date, LocalTime time) {
+        return new EventCursor(date, time, Long.MIN_VALUE);
+    }
+
+    /**
+     * Builds the cursor that points just past the given event.
+     *
+     * @param event the last event on a page
+     * @return the cursor for the following page
+     */
+    public static EventCursor after(Event event) {
+        return new EventCursor(event.getDate(), event.getTime(), event.getId());
+    }
+
+    /**
+     * Builds the cursor that points just past the given event summary.
+     *
+     * @param event the last event on a page
+     * @return the cursor for the following page
+     */
+    public static EventCursor after(EventSummary event) {
+        return new EventCursor(event.date(), event.time(), event.id());
+    }
+
+    /**
+     * Returns whichever of this cursor and {@code other} sorts later.
+     *
+     * @param other the cursor to compare with
+     * @return the later cursor
+     */
+    public EventCursor max(EventCursor other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    @Override
+    public int compareTo(EventCursor other) {
+        return ORDER.compare(this, other);
+    }
+
+    /**
+     * Encodes this cursor as a URL-safe token.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = date + SEPARATOR + time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the encoded cursor
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static EventCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed event cursor");
+            }
+            return new EventCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException, as are Base64 decoding errors
+            throw new IllegalArgumentException("Invalid event cursor: " + token, e);
+        }
+    }
+}
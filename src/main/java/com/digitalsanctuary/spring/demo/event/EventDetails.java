@@ -0,0 +1,10 @@
+package com.digitalsanctuary.spring.demo.event;
+
+/**
+ * An event together with whether a given user profile is registered for it, as shown on the event details page.
+ *
+ * @param event the event
+ * @param registered whether the profile the details were read for is registered for the event
+ */
+public record EventDetails(Event event, boolean registered) {
+}
@@ -0,0 +1,144 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Streams the whole event catalog to an {@link OutputStream} as NDJSON or CSV.
+ *
+ * <p>
+ * Rows come from {@link EventRepository#streamAll()}, a forward-only cursor with a fixed JDBC fetch size, and each event is
+ * detached from the persistence context as soon as it has been written. Heap use is therefore bounded by the fetch size and the
+ * output buffer, not by the size of the table.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventExportService {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final byte[] NEWLINE = {'\n'};
+    private static final String CSV_HEADER = "id,name,description,location,date,time,capacity\n";
+
+    private final EventRepository eventRepository;
+    private final JsonMapper jsonMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"), CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Parses a {@code format} request parameter.
+         *
+         * @param value the parameter value, case-insensitive
+         * @return the format
+         * @throws IllegalArgumentException if the value is not a supported format
+         */
+        public static Format fromParameter(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Writes every event to {@code out} in id order. The stream is flushed but not closed.
+     *
+     * @param format the output format
+     * @param out the stream to write to
+     * @return the number of events written
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong count = new AtomicLong();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        if (format == Format.CSV) {
+            buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        try (Stream<Event> events = eventRepository.streamAll()) {
+            events.forEach(event -> {
+                try {
+                    writeRow(format, event, buffered);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(event);
+                count.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffered.flush();
+        log.info("Exported {} events as {} in {} ms", count.get(), format, System.currentTimeMillis() - start);
+        return count.get();
+    }
+
+    private void writeRow(Format format, Event event, OutputStream out) throws IOException {
+        if (format == Format.NDJSON) {
+            out.write(jsonMapper.writeValueAsBytes(event));
+            out.write(NEWLINE);
+            return;
+        }
+        StringBuilder row = new StringBuilder(128);
+        row.append(event.getId()).append(',');
+        appendCsv(row, event.getName()).append(',');
+        appendCsv(row, event.getDescription()).append(',');
+        appendCsv(row, event.getLocation()).append(',');
+        row.append(event.getDate()).append(',');
+        row.append(event.getTime()).append(',');
+        if (event.getCapacity() != null) {
+            row.append(event.getCapacity());
+        }
+        row.append('\n');
+        out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends a CSV field, quoting it per RFC 4180 when it contains a delimiter, quote or line break.
+     */
+    static StringBuilder appendCsv(StringBuilder row, String value) {
+        if (value == null) {
+            return row;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return row.append(value);
+        }
+        return row.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,23 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk event import.
+ *
+ * @param received the number of rows in the upload
+ * @param imported the number of events inserted
+ * @param errors the rows that were rejected, in row order
+ * @param elapsedMillis how long the import took
+ */
+public record EventImportResult(int received, int imported, List<RowError> errors, long elapsedMillis) {
+
+    /**
+     * A rejected row.
+     *
+     * @param row the 1-based row number; for CSV, the line the record starts on
+     * @param message why the row was rejected
+     */
+    public record RowError(int row, String message) {
+    }
+}
@@ -0,0 +1,345 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Bulk-inserts events from a JSON array or a CSV upload.
+ *
+ * <p>
+ * Rows are read from the upload as they are needed, {@code app.events.import.batchSize} at a time: CSV through
+ * {@link EventCsvReader}, JSON through a streaming parser that binds one array element at a time. Each row is validated; rows
+ * that fail validation or parsing are reported and skipped. The valid rows of a batch are inserted in one transaction and sent
+ * to the database as a single JDBC batch, which {@link Event}'s sequence-generated id makes possible, and the persistence
+ * context is cleared after every batch. Memory therefore holds one batch of events plus the list of rejected rows, whatever
+ * the size of the upload. If the database rejects a batch, that batch alone is retried one row at a time so the failing rows can
+ * be reported while the rest are still imported.
+ * </p>
+ */
+@Slf4j
+@Service
+public class EventImportService {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "description", "location", "date", "time");
+
+    private final EventCache eventCache;
+    private final EventSearchIndex eventSearchIndex;
+    private final EventListSnapshotCache eventListSnapshotCache;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EventImportService(EventCache eventCache, EventSearchIndex eventSearchIndex, EventListSnapshotCache eventListSnapshotCache,
+            Validator validator, PlatformTransactionManager transactionManager, JsonMapper jsonMapper,
+            @Value("${app.events.import.batchSize:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("app.events.import.batchSize must be at least 1");
+        }
+        this.eventCache = eventCache;
+        this.eventSearchIndex = eventSearchIndex;
+        this.eventListSnapshotCache = eventListSnapshotCache;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jsonMapper = jsonMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports events. Any ids in the input are ignored; every row becomes a new event.
+     *
+     * @param events the events to import; row numbers in the result are 1-based positions in this list
+     * @return the import outcome
+     */
+    public EventImportResult importEvents(List<Event> events) {
+        Iterator<Event> source = events.iterator();
+        return importRows(new Iterator<>() {
+            private int number;
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public ImportRow next() {
+                Event event = source.next();
+                number++;
+                return event == null ? ImportRow.rejected(number, "Row is empty") : ImportRow.of(number, event);
+            }
+        });
+    }
+
+    /**
+     * Imports events from a JSON array, binding one element at a time so the upload is never held in memory as a whole. Any ids
+     * in the input are ignored.
+     *
+     * @param in the JSON content
+     * @return the import outcome; row numbers are 1-based positions in the array, and elements that are not objects or whose
+     *         values cannot be bound to an event (such as an impossible date) are rejected like invalid rows
+     * @throws IllegalArgumentException if the content is not a JSON array or is not well-formed JSON
+     */
+    public EventImportResult importJson(InputStream in) {
+        ObjectReader reader = jsonMapper.readerFor(Event.class);
+        try (JsonParser parser = jsonMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON upload must be an array of events");
+            }
+            return importRows(new Iterator<>() {
+                private int number;
+                private JsonToken token = parser.nextToken();
+
+                @Override
+                public boolean hasNext() {
+                    return token != null && token != JsonToken.END_ARRAY;
+                }
+
+                @Override
+                public ImportRow next() {
+                    number++;
+                    ImportRow row;
+                    if (token == JsonToken.VALUE_NULL) {
+                        row = ImportRow.rejected(number, "Row is empty");
+                    } else if (token == JsonToken.START_OBJECT) {
+                        // Read the element whole first, so a value that fails to bind rejects this row and the parser is
+                        // already past it
+                        JsonNode element = parser.readValueAsTree();
+                        try {
+                            row = ImportRow.of(number, reader.readValue(element));
+                        } catch (DatabindException e) {
+                            row = ImportRow.rejected(number, "Invalid row: " + e.getOriginalMessage());
+                        }
+                    } else {
+                        parser.skipChildren();
+                        row = ImportRow.rejected(number, "Row is not a JSON object");
+                    }
+                    token = parser.nextToken();
+                    return row;
+                }
+            });
+        } catch (JacksonException e) {
+            // Batches before the malformed JSON stay imported, as with a malformed CSV record
+            throw new IllegalArgumentException("Malformed JSON upload: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Imports events from CSV. The first record must be a header naming at least the {@code name}, {@code description},
+     * {@code location}, {@code date} and {@code time} columns, in any order, and may add a {@code capacity} column, left blank
+     * for no limit; other columns (such as the {@code id} column of an export) are ignored. Dates are ISO-8601
+     * ({@code 2026-01-31}), times {@code HH:mm} or {@code HH:mm:ss}.
+     *
+     * @param reader the CSV content
+     * @return the import outcome
+     * @throws IOException if the content cannot be read
+     * @throws IllegalArgumentException if the header is missing or lacks a required column, or the CSV is malformed
+     */
+    public EventImportResult importCsv(Reader reader) throws IOException {
+        EventCsvReader csv = new EventCsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV upload is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing column(s): " + String.join(", ", missing));
+        }
+
+        try {
+            return importRows(new Iterator<>() {
+                private List<String> record = csv.next();
+
+                @Override
+                public boolean hasNext() {
+                    return record != null;
+                }
+
+                @Override
+                public ImportRow next() {
+                    ImportRow row = toRow(csv.recordLine(), record, columns);
+                    try {
+                        record = csv.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return row;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Validates and inserts rows as they are pulled from {@code rows}, so at most one batch of events is held at a time.
+     */
+    private EventImportResult importRows(Iterator<ImportRow> rows) {
+        long start = System.currentTimeMillis();
+        List<EventImportResult.RowError> errors = new ArrayList<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        int received = 0;
+        int imported = 0;
+        try {
+            while (rows.hasNext()) {
+                ImportRow row = rows.next();
+                received++;
+                String problem = row.error() != null ? row.error() : validate(row.event());
+                if (problem != null) {
+                    errors.add(new EventImportResult.RowError(row.number(), problem));
+                    continue;
+                }
+                row.event().setId(null);
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    imported += insertBatch(batch, errors);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += insertBatch(batch, errors);
+            }
+        } finally {
+            // Also when a malformed upload aborts the import: the batches committed before it are in the database
+            if (imported > 0) {
+                eventCache.clear();
+                eventListSnapshotCache.invalidate();
+            }
+        }
+        errors.sort(Comparator.comparingInt(EventImportResult.RowError::row));
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Imported {} of {} events in {} ms ({} rows/s, batch size {}), {} rejected", imported, received, elapsed,
+                elapsed == 0 ? imported : imported * 1000L / elapsed, batchSize, errors.size());
+        return new EventImportResult(received, imported, List.copyOf(errors), elapsed);
+    }
+
+    /**
+     * Inserts one batch in its own transaction. If the batch fails, retries its rows one at a time and records the ones the
+     * database rejects.
+     *
+     * @return the number of events inserted
+     */
+    private int insertBatch(List<ImportRow> batch, List<EventImportResult.RowError> errors) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+            batch.forEach(row -> eventSearchIndex.index(row.event()));
+            return batch.size();
+        } catch (RuntimeException e) {
+            log.warn("Import batch of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+        int imported = 0;
+        for (ImportRow row : batch) {
+            // The failed attempt already drew an id from the sequence; persist would treat the event as detached
+            row.event().setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(List.of(row)));
+                eventSearchIndex.index(row.event());
+                imported++;
+            } catch (RuntimeException e) {
+                errors.add(new EventImportResult.RowError(row.number(), NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+        return imported;
+    }
+
+    private void persist(List<ImportRow> rows) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        for (ImportRow row : rows) {
+            entityManager.persist(row.event());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private String validate(Event event) {
+        Set<ConstraintViolation<Event>> violations = validator.validate(event);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private static ImportRow toRow(int line, List<String> record, Map<String, Integer> columns) {
+        Event event = new Event();
+        event.setName(field(record, columns, "name"));
+        event.setDescription(field(record, columns, "description"));
+        event.setLocation(field(record, columns, "location"));
+        String date = field(record, columns, "date");
+        String time = field(record, columns, "time");
+        try {
+            event.setDate(date == null || date.isBlank() ? null : LocalDate.parse(date.trim()));
+        } catch (DateTimeParseException e) {
+            return ImportRow.rejected(line, "Invalid date: " + date);
+        }
+        try {
+            event.setTime(time == null || time.isBlank() ? null : LocalTime.parse(time.trim()));
+        } catch (DateTimeParseException e) {
+            return ImportRow.rejected(line, "Invalid time: " + time);
+        }
+        String capacity = columns.containsKey("capacity") ? field(record, columns, "capacity") : null;
+        try {
+            event.setCapacity(capacity == null || capacity.isBlank() ? null : Integer.valueOf(capacity.trim()));
+        } catch (NumberFormatException e) {
+            return ImportRow.rejected(line, "Invalid capacity: " + capacity);
+        }
+        return ImportRow.of(line, event);
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        return index < record.size() ? record.get(index) : null;
+    }
+
+    /**
+     * One input row: either a parsed event or the reason it could not be parsed.
+     */
+    private record ImportRow(int number, Event event, String error) {
+
+        static ImportRow of(int number, Event event) {
+            return new ImportRow(number, event, null);
+        }
+
+        static ImportRow rejected(int number, String error) {
+            return new ImportRow(number, null, error);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.digitalsanctuary.spring.demo.event;
+
+/**
+ * The full event list, already serialized to JSON and gzip-compressed, ready to be written to a response as is.
+ *
+ * <p>
+ * The arrays are shared by every request that serves this snapshot and must not be modified. Equality is by reference, as for
+ * any record with array components.
+ * </p>
+ *
+ * @param stamp the catalog stamp the list was read under; a request carrying a different stamp needs a new snapshot
+ * @param json the list as a UTF-8 JSON array
+ * @param gzipped {@code json}, gzip-compressed, for clients that send {@code Accept-Encoding: gzip}
+ */
+public record EventListSnapshot(EventStamp stamp, byte[] json, byte[] gzipped) {
+}
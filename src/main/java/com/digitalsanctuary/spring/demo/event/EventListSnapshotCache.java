@@ -0,0 +1,106 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Holds the current {@link EventListSnapshot}, so {@code GET /api/events} can write pre-serialized bytes instead of running
+ * Jackson over the event list on every request.
+ *
+ * <p>
+ * The snapshot is replaced as a whole through an {@link AtomicReference}, so readers never see a half-built one and need no
+ * lock. Each snapshot is labelled with the catalog {@link EventStamp} it was built under. A caller whose stamp differs (because
+ * another instance changed an event, or a write happened here) triggers one rebuild while concurrent callers wait for it.
+ * {@link EventService} also calls {@link #invalidate()} after every local write so the next read rebuilds without waiting for the
+ * stamp to move.
+ * </p>
+ *
+ * <p>
+ * The snapshot leaves out {@link Event#getRegisteredCount()}. Seat changes do not move the catalog stamp, so a snapshot holding
+ * the counts would go stale between edits; clients read live counts from {@code GET /api/events/registered-counts} instead.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventListSnapshotCache {
+
+    private final JsonMapper jsonMapper;
+
+    private final AtomicReference<EventListSnapshot> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+
+    public EventListSnapshotCache(JsonMapper jsonMapper) {
+        this.jsonMapper = catalogMapper(jsonMapper);
+    }
+
+    /**
+     * Returns the snapshot for {@code stamp}, building it from {@code loader} if the current one is missing or was built under a
+     * different stamp.
+     *
+     * @param stamp the catalog stamp, read <em>before</em> calling this method so a concurrent write cannot be labelled with the
+     *        stamp it produced
+     * @param loader loads all events
+     * @return the snapshot
+     */
+    public EventListSnapshot get(EventStamp stamp, Supplier<List<Event>> loader) {
+        EventListSnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.stamp().equals(stamp)) {
+            return snapshot;
+        }
+        synchronized (rebuildLock) {
+            snapshot = current.get();
+            if (snapshot != null && snapshot.stamp().equals(stamp)) {
+                return snapshot;
+            }
+            long start = System.nanoTime();
+            snapshot = write(jsonMapper, stamp, loader.get());
+            current.set(snapshot);
+            log.debug("Rebuilt event list snapshot for {}: {} bytes JSON, {} bytes gzipped in {} µs", stamp, snapshot.json().length,
+                    snapshot.gzipped().length, (System.nanoTime() - start) / 1000);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Drops the current snapshot; the next {@link #get} rebuilds it.
+     */
+    public void invalidate() {
+        current.set(null);
+    }
+
+    /**
+     * Serializes and compresses an event list, without the registration counts.
+     */
+    static EventListSnapshot serialize(JsonMapper jsonMapper, EventStamp stamp, List<Event> events) {
+        return write(catalogMapper(jsonMapper), stamp, events);
+    }
+
+    private static EventListSnapshot write(JsonMapper jsonMapper, EventStamp stamp, List<Event> events) {
+        byte[] json = jsonMapper.writeValueAsBytes(events);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            // In-memory streams do not fail
+            throw new UncheckedIOException(e);
+        }
+        return new EventListSnapshot(stamp, json, buffer.toByteArray());
+    }
+
+    private static JsonMapper catalogMapper(JsonMapper jsonMapper) {
+        return jsonMapper.rebuild().addMixIn(Event.class, CatalogEvent.class).build();
+    }
+
+    @JsonIgnoreProperties("registeredCount")
+    private interface CatalogEvent {
+    }
+}
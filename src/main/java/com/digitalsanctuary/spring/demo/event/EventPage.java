@@ -0,0 +1,19 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.util.List;
+
+/**
+ * One page of events in {@code (date, time, id)} order.
+ *
+ * @param events the events on this page
+ * @param nextCursor the encoded {@link EventCursor} for the following page, or {@code null} if this is the last page
+ */
+public record EventPage(List<Event> events, String nextCursor) {
+
+    /**
+     * @return true if there is another page after this one
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
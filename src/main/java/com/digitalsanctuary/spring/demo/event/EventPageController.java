@@ -1,15 +1,15 @@
 package com.digitalsanctuary.spring.demo.event;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
-import com.digitalsanctuary.spring.demo.user.profile.EventRegistration;
+import org.springframework.web.bind.annotation.RequestParam;
+import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService;
 import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,18 +21,40 @@ public class EventPageController {
 
     private final EventService eventService;
     private final DemoSessionProfile demoSessionProfile;
+    private final DemoUserProfileService demoUserProfileService;
 
     /**
-     * Event Listing page
+     * Event Listing page. Renders one keyset page of upcoming events at a time; events that have already started are not
+     * listed. The "Next" link carries the cursor for the following page. Events the user is registered for are marked, after
+     * {@link DemoSessionProfile#refreshProfile()} has picked up registrations made elsewhere. With
+     * {@code sort=popular} the page shows the most registered upcoming events instead, from {@link EventService#getTrendingEvents},
+     * on a single page.
      *
+     * @param cursor the cursor of the page to show, omitted for the first page
+     * @param sort {@code popular} to rank by registrations, omitted for date order
      * @return the path to the event listing page
      */
     @GetMapping({"/event/", "/event/list.html"})
-    public String eventList(Model model) {
+    public String eventList(@RequestParam(required = false) String cursor, @RequestParam(required = false) String sort, Model model) {
         log.info("PageController.eventList: called.");
         try {
-            log.debug("events: {}", eventService.getAllEvents());
-            model.addAttribute("events", eventService.getAllEvents());
+            boolean popular = "popular".equalsIgnoreCase(sort);
+            EventPage page = popular ? new EventPage(eventService.getTrendingEvents(EventService.DEFAULT_PAGE_SIZE), null)
+                    : eventService.getUpcomingEventPage(cursor, EventService.DEFAULT_PAGE_SIZE);
+            log.debug("events on page: {}", page.events().size());
+            model.addAttribute("popular", popular);
+            model.addAttribute("events", page.events());
+            // One stamp read; the registered ids are only re-read when the profile changed elsewhere
+            demoSessionProfile.refreshProfile();
+            // O(1) per card against the session's registered event ids; empty for anonymous visitors
+            Set<Long> registeredEventIds = page.events().stream().map(Event::getId).filter(demoSessionProfile::isRegisteredForEvent)
+                    .collect(Collectors.toSet());
+            model.addAttribute("registeredEventIds", registeredEventIds);
+            model.addAttribute("nextCursor", page.nextCursor());
+            model.addAttribute("firstPage", cursor == null || cursor.isBlank());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid event list cursor: {}", cursor);
+            return "redirect:/event/list.html";
         } catch (Exception e) {
             log.error("Error getting events", e);
         }
@@ -40,7 +62,8 @@ public class EventPageController {
     }
 
     /**
-     * Event Details Page
+     * Event Details Page. For a signed-in user the event and their registration status are read in a single query; the
+     * session profile is only used for its id and is not reloaded.
      *
      * @return the path to the event details page
      */
@@ -48,24 +71,19 @@ public class EventPageController {
     public String eventDetails(@PathVariable("eventId") String eventId, Model model) {
         try {
             long id = Long.parseLong(eventId);
-            Optional<Event> eventOpt = eventService.getEventById(id);
+            Long profileId = demoSessionProfile.getProfileId();
+            Optional<EventDetails> detailsOpt = eventService.getEventDetails(id, profileId);
 
-            if (eventOpt.isEmpty()) {
+            if (detailsOpt.isEmpty()) {
                 log.warn("Event not found for eventId: {}", id);
                 return "redirect:/event/list.html";
             }
 
-            Event event = eventOpt.get();
-            model.addAttribute("event", event);
+            EventDetails details = detailsOpt.get();
+            model.addAttribute("event", details.event());
             // Add registration flag for authenticated users
-            DemoUserProfile profile = demoSessionProfile.getUserProfile();
-            if (profile != null) {
-                // Refresh profile to get latest registration status
-                profile = demoSessionProfile.refreshProfile();
-                if (profile != null) {
-                    boolean isRegistered = profile.isRegisteredForEvent(event);
-                    model.addAttribute("isRegistered", isRegistered);
-                }
+            if (profileId != null) {
+                model.addAttribute("isRegistered", details.registered());
             }
             return "/event/details";
 
@@ -89,22 +107,27 @@ public class EventPageController {
     }
 
     /**
-     * My Events Page
+     * My Events Page. Lists one keyset page of the events the user is registered for, read as {@link EventSummary}
+     * projections; the profile and its registrations are not loaded. The "Next" link carries the cursor for the following page.
      *
+     * @param cursor the cursor of the page to show, omitted for the first page
      * @return the path to the my events page
      */
     @GetMapping("/event/my-events.html")
-    public String myEvents(Model model) {
-        DemoUserProfile profile = demoSessionProfile.getUserProfile();
-        List<Event> myEvents = new ArrayList<>();
-        if (profile != null) {
-            // Refresh the profile to ensure we have latest event registrations
-            profile = demoSessionProfile.refreshProfile();
-            if (profile != null) {
-                myEvents = profile.getEventRegistrations().stream().map(EventRegistration::getEvent).collect(Collectors.toList());
+    public String myEvents(@RequestParam(required = false) String cursor, Model model) {
+        Long profileId = demoSessionProfile.getProfileId();
+        EventSummaryPage page = new EventSummaryPage(List.of(), null);
+        if (profileId != null) {
+            try {
+                page = demoUserProfileService.getRegisteredEvents(profileId, cursor, EventService.DEFAULT_PAGE_SIZE);
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid my events cursor: {}", cursor);
+                return "redirect:/event/my-events.html";
             }
         }
-        model.addAttribute("myEvents", myEvents);
+        model.addAttribute("myEvents", page.events());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
         return "/event/my-events";
     }
 }
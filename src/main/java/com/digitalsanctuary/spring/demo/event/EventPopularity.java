@@ -0,0 +1,33 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * An event's registration count and start, as held by {@link EventPopularityRanking}. Read straight from the {@code events}
+ * table with a JPQL constructor expression, so no entity is hydrated.
+ *
+ * @param eventId the event id
+ * @param registeredCount the number of registrations
+ * @param date the event date
+ * @param time the event start time
+ */
+public record EventPopularity(Long eventId, int registeredCount, LocalDate date, LocalTime time) {
+
+    /**
+     * @param count the new registration count
+     * @return a copy with the given count
+     */
+    EventPopularity withRegisteredCount(int count) {
+        return new EventPopularity(eventId, count, date, time);
+    }
+
+    /**
+     * @param today the current date
+     * @param now the current time of day
+     * @return whether the event starts at or after the given moment
+     */
+    boolean isUpcoming(LocalDate today, LocalTime now) {
+        return date != null && (date.isAfter(today) || (date.isEqual(today) && (time == null || !time.isBefore(now))));
+    }
+}
@@ -0,0 +1,205 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory ranking of upcoming events by registration count, used for the trending list.
+ *
+ * <p>
+ * Events with at least one registration are kept in a sorted set ordered by count, highest first, then by id, next to a map from
+ * event id to entry. A registration or unregistration moves one entry, in O(log n), and the top K is read by walking the head of
+ * the set, so no request sorts the catalog or counts registrations. Entries carry the event's start, and the walk skips events
+ * that have already started.
+ * </p>
+ *
+ * <p>
+ * The ranking is rebuilt from {@code events.registered_count} when the application starts and after every run of
+ * {@link EventRegistrationCountReconciler}, which also drops events that are over. In between, {@link EventService} keeps it
+ * current through {@link #adjust(Long, int)}. With several instances each one only sees its own registrations until the next
+ * rebuild.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventPopularityRanking {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private static final Comparator<EventPopularity> MOST_POPULAR_FIRST = Comparator.comparingInt(EventPopularity::registeredCount).reversed()
+            .thenComparing(EventPopularity::eventId);
+
+    private final EventRepository eventRepository;
+
+    private NavigableSet<EventPopularity> ranking = new TreeSet<>(MOST_POPULAR_FIRST);
+    private Map<Long, EventPopularity> byEvent = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Rebuilds the ranking from the upcoming events that have registrations, reading them in keyset pages of ids. The new
+     * ranking replaces the old one in a single step.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        NavigableSet<EventPopularity> rebuilt = new TreeSet<>(MOST_POPULAR_FIRST);
+        Map<Long, EventPopularity> rebuiltByEvent = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        long afterId = 0;
+        List<EventPopularity> page;
+        do {
+            page = eventRepository.findPopularityAfter(afterId, today, Limit.of(REBUILD_PAGE_SIZE));
+            for (EventPopularity entry : page) {
+                rebuilt.add(entry);
+                rebuiltByEvent.put(entry.eventId(), entry);
+                afterId = entry.eventId();
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            ranking = rebuilt;
+            byEvent = rebuiltByEvent;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Event popularity ranking rebuilt: {} events in {} ms", rebuiltByEvent.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Moves a ranked event by a change in its registration count. An event that drops to zero registrations leaves the ranking.
+     *
+     * @param eventId the event id
+     * @param delta the change in registrations
+     * @return {@code false} if the event is not ranked, in which case nothing changes and the caller should {@link #put} it
+     */
+    public boolean adjust(Long eventId, int delta) {
+        lock.writeLock().lock();
+        try {
+            EventPopularity current = byEvent.get(eventId);
+            if (current == null) {
+                return false;
+            }
+            putUnlocked(current.withRegisteredCount(current.registeredCount() + delta));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces an event with its current registration count and start.
+     *
+     * @param event the event
+     */
+    public void put(Event event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            putUnlocked(new EventPopularity(event.getId(), event.getRegisteredCount(), event.getDate(), event.getTime()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the start of a ranked event, for when it is rescheduled. Does nothing if the event is not ranked.
+     *
+     * @param event the updated event
+     */
+    public void reschedule(Event event) {
+        lock.writeLock().lock();
+        try {
+            EventPopularity current = byEvent.get(event.getId());
+            if (current != null) {
+                putUnlocked(new EventPopularity(event.getId(), current.registeredCount(), event.getDate(), event.getTime()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an event from the ranking.
+     *
+     * @param eventId the event id
+     */
+    public void remove(Long eventId) {
+        lock.writeLock().lock();
+        try {
+            EventPopularity current = byEvent.remove(eventId);
+            if (current != null) {
+                ranking.remove(current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the most registered events that have not started yet.
+     *
+     * @param limit the maximum number of events to return
+     * @return the ranked entries, most registrations first
+     */
+    public List<EventPopularity> top(int limit) {
+        LocalDate today = LocalDate.now();
+        LocalTime now = LocalTime.now();
+        List<EventPopularity> top = new ArrayList<>(Math.max(0, limit));
+        lock.readLock().lock();
+        try {
+            for (EventPopularity entry : ranking) {
+                if (top.size() >= limit) {
+                    break;
+                }
+                if (entry.isUpcoming(today, now)) {
+                    top.add(entry);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top;
+    }
+
+    /**
+     * @return the number of ranked events
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byEvent.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void putUnlocked(EventPopularity entry) {
+        EventPopularity previous = byEvent.remove(entry.eventId());
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        if (entry.registeredCount() > 0) {
+            ranking.add(entry);
+            byEvent.put(entry.eventId(), entry);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.digitalsanctuary.spring.demo.event;
+
+/**
+ * An event's registration count, read straight from the {@code events} table with a JPQL constructor expression, so no entity
+ * is hydrated.
+ *
+ * @param eventId the event id
+ * @param registeredCount the number of registrations
+ */
+public record EventRegisteredCount(Long eventId, int registeredCount) {
+}
@@ -0,0 +1,85 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.util.List;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodically repairs {@link Event#getRegisteredCount()} where it no longer matches the event's rows in
+ * {@code event_registrations}.
+ *
+ * <p>
+ * The registration paths keep the counter exact in the same transaction as the registration, but rows written or removed
+ * outside them, by hand or by an older release, leave it wrong until something fixes it. Every
+ * {@code app.events.counts.reconcileInterval} (default {@code PT15M}) this finds the drifted events with one query, then fixes
+ * each in its own short transaction: the event row is locked, its registrations counted and the counter overwritten, so a
+ * registration running at the same time cannot be lost. Each fix evicts the event from {@link EventCache}, and the run ends by
+ * rebuilding {@link EventPopularityRanking}. Repaired events are counted in the {@code events.registrations.reconciled}
+ * metric.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventRegistrationCountReconciler {
+
+    private final EventRepository eventRepository;
+    private final EventRegistrationRepository eventRegistrationRepository;
+    private final EventService eventService;
+    private final EventPopularityRanking eventPopularityRanking;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter reconciled;
+
+    public EventRegistrationCountReconciler(EventRepository eventRepository, EventRegistrationRepository eventRegistrationRepository,
+            EventService eventService, EventPopularityRanking eventPopularityRanking, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.eventRegistrationRepository = eventRegistrationRepository;
+        this.eventService = eventService;
+        this.eventPopularityRanking = eventPopularityRanking;
+        this.transactionTemplate = transactionTemplate;
+        this.reconciled = Counter.builder("events.registrations.reconciled").register(meterRegistry);
+    }
+
+    /**
+     * Repairs every drifted registration count, then rebuilds the popularity ranking.
+     *
+     * @return the number of events whose count was changed
+     */
+    @Scheduled(initialDelayString = "${app.events.counts.reconcileInterval:PT15M}", fixedDelayString = "${app.events.counts.reconcileInterval:PT15M}")
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        List<Long> drifted = eventRepository.findIdsWithDriftedRegisteredCount();
+        int repaired = 0;
+        for (Long eventId : drifted) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> repair(eventId)))) {
+                eventService.evictCachedEvent(eventId);
+                repaired++;
+            }
+        }
+        reconciled.increment(repaired);
+        eventPopularityRanking.rebuild();
+        if (repaired > 0) {
+            log.warn("Repaired the registration count of {} events in {} ms", repaired, System.currentTimeMillis() - start);
+        } else {
+            log.debug("Registration counts checked in {} ms; none had drifted", System.currentTimeMillis() - start);
+        }
+        return repaired;
+    }
+
+    private boolean repair(Long eventId) {
+        if (eventRepository.findAndLockById(eventId).isEmpty()) {
+            return false;
+        }
+        int count = Math.toIntExact(eventRegistrationRepository.countByEventId(eventId));
+        boolean changed = eventRepository.setRegisteredCount(eventId, count) > 0;
+        if (changed) {
+            log.info("Registration count of event {} set to {}", eventId, count);
+        }
+        return changed;
+    }
+}
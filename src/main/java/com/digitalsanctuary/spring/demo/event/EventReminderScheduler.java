@@ -0,0 +1,227 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import com.digitalsanctuary.spring.user.mail.MailService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Emails registrants a reminder {@code app.events.reminders.leadTime} (default {@code PT24H}) before their event starts.
+ *
+ * <p>
+ * Every {@code app.events.reminders.interval} (default {@code PT1M}) the job seeks on the events' {@code (date, time, id)}
+ * index to the events starting between now and now plus the lead time, so it never reads past or distant events. For each of
+ * them it reads the pending registrations from the {@code (event_id, reminder_sent_at, id)} index, {@code batchSize} (default
+ * {@code 500}) at a time, so the cost of a run depends on the reminders due, not on the number of registrations. A run sends at
+ * most {@code maxPerRun} (default {@code 10000}) reminders and leaves the rest to the next one.
+ * </p>
+ *
+ * <p>
+ * Each batch is claimed before anything is sent: one conditional {@code UPDATE} stamps {@code reminder_sent_at} and this run's
+ * id on the rows that are still pending, and commits. Only the rows carrying this run's id are then mailed. A run that crashes
+ * after claiming, or another instance claiming the same rows, therefore never sends a reminder twice; the trade-off is that
+ * reminders claimed by a run that dies before handing them to {@link MailService} are not sent at all.
+ * </p>
+ *
+ * <p>
+ * Mails are handed to a fixed pool of {@code workerThreads} (default {@code 4}) behind a queue of {@code queueCapacity}
+ * (default {@code 1000}). When the queue is full the scheduler thread sends the mail itself, which slows claiming down to the
+ * speed of the mail server instead of piling up work in memory. Sent and failed reminders are counted in the
+ * {@code events.reminders.sent} and {@code events.reminders.failed} metrics.
+ * </p>
+ *
+ * <p>
+ * Once the application starts shutting down the job claims nothing more. Reminders it had already claimed but that the pool
+ * no longer takes, or that are still queued when the pool stops, cannot be sent; they are counted as failed and logged with
+ * their registration id.
+ * </p>
+ */
+@Slf4j
+@Component
+public class EventReminderScheduler {
+
+    static final String TEMPLATE = "mail/event-reminder.html";
+
+    private static final int EVENT_PAGE_SIZE = 100;
+
+    private final EventRepository eventRepository;
+    private final EventRegistrationRepository eventRegistrationRepository;
+    private final MailService mailService;
+    private final boolean enabled;
+    private final Duration leadTime;
+    private final int batchSize;
+    private final int maxPerRun;
+    private final String appUrl;
+    private final ThreadPoolExecutor workers;
+    private final Counter sent;
+    private final Counter failed;
+
+    public EventReminderScheduler(EventRepository eventRepository, EventRegistrationRepository eventRegistrationRepository, MailService mailService,
+            MeterRegistry meterRegistry, @Value("${app.events.reminders.enabled:true}") boolean enabled,
+            @Value("${app.events.reminders.leadTime:PT24H}") Duration leadTime, @Value("${app.events.reminders.batchSize:500}") int batchSize,
+            @Value("${app.events.reminders.maxPerRun:10000}") int maxPerRun, @Value("${app.events.reminders.workerThreads:4}") int workerThreads,
+            @Value("${app.events.reminders.queueCapacity:1000}") int queueCapacity, @Value("${user.security.appUrl:http://localhost:8080}") String appUrl) {
+        this.eventRepository = eventRepository;
+        this.eventRegistrationRepository = eventRegistrationRepository;
+        this.mailService = mailService;
+        this.enabled = enabled;
+        this.leadTime = leadTime;
+        this.batchSize = batchSize;
+        this.maxPerRun = maxPerRun;
+        this.appUrl = appUrl;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "event-reminder-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, callerRunsUntilShutdown());
+        this.sent = Counter.builder("events.reminders.sent").register(meterRegistry);
+        this.failed = Counter.builder("events.reminders.failed").register(meterRegistry);
+    }
+
+    /**
+     * Claims and sends the reminders that are due, up to {@code maxPerRun}.
+     *
+     * @return the number of reminders claimed by this run
+     */
+    @Scheduled(fixedDelayString = "${app.events.reminders.interval:PT1M}")
+    public int sendDueReminders() {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        String claim = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime dueUntil = now.plus(leadTime);
+        int claimed = 0;
+
+        EventCursor after = EventCursor.before(now.toLocalDate(), now.toLocalTime());
+        List<Event> events;
+        do {
+            if (workers.isShutdown()) {
+                break;
+            }
+            events = eventRepository.findPageAfterUpTo(after.date(), after.time(), after.id(), dueUntil.toLocalDate(), Limit.of(EVENT_PAGE_SIZE));
+            for (Event event : events) {
+                if (claimed >= maxPerRun || LocalDateTime.of(event.getDate(), event.getTime()).isAfter(dueUntil)) {
+                    events = List.of();
+                    break;
+                }
+                if (event.getRegisteredCount() > 0) {
+                    claimed += remind(event, claim, maxPerRun - claimed);
+                }
+                after = EventCursor.after(event);
+            }
+        } while (events.size() == EVENT_PAGE_SIZE);
+
+        if (claimed > 0) {
+            log.info("Claimed {} event reminders in {} ms", claimed, System.currentTimeMillis() - start);
+        }
+        return claimed;
+    }
+
+    /** Claims and queues the pending reminders of one event, a batch at a time, up to {@code budget}. */
+    private int remind(Event event, String claim, int budget) {
+        int claimed = 0;
+        while (claimed < budget && !workers.isShutdown()) {
+            List<Long> pending = eventRegistrationRepository.findIdsWithoutReminder(event.getId(), Limit.of(Math.min(batchSize, budget - claimed)));
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (eventRegistrationRepository.claimReminders(pending, claim, Instant.now()) > 0) {
+                List<RosterEntry> recipients = eventRegistrationRepository.findClaimedReminders(pending, claim);
+                recipients.forEach(recipient -> workers.execute(new Reminder(event, recipient)));
+                claimed += recipients.size();
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Sends the reminder in the calling thread while the pool is full, like {@link ThreadPoolExecutor.CallerRunsPolicy}, but counts
+     * and logs it instead of silently dropping it once the pool has shut down.
+     */
+    private RejectedExecutionHandler callerRunsUntilShutdown() {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                drop(task);
+            } else {
+                task.run();
+            }
+        };
+    }
+
+    private void drop(Runnable task) {
+        failed.increment();
+        if (task instanceof Reminder reminder) {
+            log.warn("Reminder for registration {} of event {} was claimed but not sent: the reminder workers have shut down",
+                    reminder.recipient.registrationId(), reminder.event.getId());
+        }
+    }
+
+    private void send(Event event, RosterEntry recipient) {
+        try {
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("firstName", recipient.firstName());
+            variables.put("event", event);
+            variables.put("eventUrl", appUrl + "/event/" + event.getId() + "/details.html");
+            mailService.sendTemplateMessage(recipient.email(), "Reminder: " + event.getName(), variables, TEMPLATE);
+            sent.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.warn("Reminder for registration {} of event {} could not be sent", recipient.registrationId(), event.getId(), e);
+        }
+    }
+
+    /**
+     * Stops claiming and stops the worker pool, letting queued reminders finish for a few seconds. Reminders still queued after
+     * that are counted as failed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow().forEach(this::drop);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow().forEach(this::drop);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** A claimed reminder waiting for a worker. */
+    private final class Reminder implements Runnable {
+
+        private final Event event;
+        private final RosterEntry recipient;
+
+        private Reminder(Event event, RosterEntry recipient) {
+            this.event = event;
+            this.recipient = recipient;
+        }
+
+        @Override
+        public void run() {
+            send(event, recipient);
+        }
+    }
+}
@@ -1,8 +1,328 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long> {
+
+    /**
+     * Returns the first page of events in {@code (date, time, id)} order.
+     *
+     * @param limit the maximum number of events to return
+     * @return the first events in keyset order
+     */
+    List<Event> findAllByOrderByDateAscTimeAscIdAsc(Limit limit);
+
+    /**
+     * Returns the first events dated on or before {@code to}, in {@code (date, time, id)} order.
+     *
+     * @param to the last date to include
+     * @param limit the maximum number of events to return
+     * @return the first events up to and including {@code to}
+     */
+    List<Event> findByDateLessThanEqualOrderByDateAscTimeAscIdAsc(LocalDate to, Limit limit);
+
+    /**
+     * Returns the events that sort strictly after the given {@code (date, time, id)} key. This is a keyset (seek) query,
+     * so its cost does not grow with how deep into the catalog the caller has paged.
+     *
+     * @param date the date of the last event already seen
+     * @param time the time of the last event already seen
+     * @param id the id of the last event already seen
+     * @param limit the maximum number of events to return
+     * @return the next events in keyset order
+     */
+    @Query("""
+            SELECT e FROM Event e
+            WHERE e.date > :date
+               OR (e.date = :date AND e.time > :time)
+               OR (e.date = :date AND e.time = :time AND e.id > :id)
+            ORDER BY e.date, e.time, e.id
+            """)
+    List<Event> findPageAfter(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, Limit limit);
+
+    /**
+     * Returns the events that sort strictly after the given {@code (date, time, id)} key and fall on or before {@code to}. Like
+     * {@link #findPageAfter}, this seeks on the {@code (date, time, id)} index and stops at the upper bound.
+     *
+     * @param date the date of the last event already seen
+     * @param time the time of the last event already seen
+     * @param id the id of the last event already seen
+     * @param to the last date to include
+     * @param limit the maximum number of events to return
+     * @return the next events in keyset order, up to and including {@code to}
+     */
+    @Query("""
+            SELECT e FROM Event e
+            WHERE e.date <= :to
+              AND (e.date > :date
+                   OR (e.date = :date AND e.time > :time)
+                   OR (e.date = :date AND e.time = :time AND e.id > :id))
+            ORDER BY e.date, e.time, e.id
+            """)
+    List<Event> findPageAfterUpTo(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, @Param("to") LocalDate to,
+            Limit limit);
+
+    /**
+     * Reads an event's version and modification time without hydrating the entity.
+     *
+     * @param id the event id
+     * @return the event's stamp, or empty if it does not exist
+     */
+    @Query("SELECT new com.digitalsanctuary.spring.demo.event.EventStamp(e.version, e.lastModified) FROM Event e WHERE e.id = :id")
+    Optional<EventStamp> findStampById(@Param("id") Long id);
+
+    /**
+     * Reads an event and whether the given profile is registered for it in one statement. The registration check is an
+     * {@code EXISTS} probe on {@code event_registrations}, so its cost does not depend on how many events the profile is
+     * registered for, and the profile itself is not loaded.
+     *
+     * @param id the event id
+     * @param profileId the id of the user profile to check the registration of
+     * @return the event and registration flag, or empty if the event does not exist
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventDetails(e,
+                CASE WHEN EXISTS (SELECT 1 FROM EventRegistration r WHERE r.event = e AND r.userProfile.id = :profileId)
+                     THEN true ELSE false END)
+            FROM Event e WHERE e.id = :id
+            """)
+    Optional<EventDetails> findDetailsById(@Param("id") Long id, @Param("profileId") Long profileId);
+
+    /**
+     * Takes one seat if the event has one left, in a single conditional {@code UPDATE}. The database holds the row lock only
+     * until the surrounding transaction commits, and concurrent callers can never push the count past the capacity. Bumps
+     * {@code version}, since the event's JSON changes, but leaves {@code lastModified} alone: the catalog stamp is built from
+     * {@code lastModified}, and moving it on every seat would rebuild the catalog snapshot on every registration.
+     *
+     * @param id the event id
+     * @return {@code 1} if a seat was taken, {@code 0} if the event is full or does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = e.registeredCount + 1, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.id = :id AND (e.capacity IS NULL OR e.registeredCount < e.capacity)
+            """)
+    int claimSeat(@Param("id") Long id);
+
+    /**
+     * Reads an event and locks its row until the surrounding transaction ends. Used only when {@link #claimSeat} finds the
+     * event full, so a registration that is about to join the waitlist is ordered against an unregistration that is promoting
+     * from it.
+     *
+     * @param id the event id
+     * @return the locked event, or empty if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id = :id")
+    Optional<Event> findAndLockById(@Param("id") Long id);
+
+    /**
+     * Reads several events and locks their rows until the surrounding transaction ends. Rows are locked in id order, so two
+     * transactions locking overlapping sets cannot deadlock on each other.
+     *
+     * @param ids the event ids
+     * @return the events that exist, in id order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Event e WHERE e.id IN :ids ORDER BY e.id")
+    List<Event> findAndLockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Takes one seat at each of several events in a single {@code UPDATE}, with the same capacity check as
+     * {@link #claimSeat}.
+     *
+     * @param ids the event ids
+     * @return the number of events a seat was taken at
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = e.registeredCount + 1, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.id IN :ids AND (e.capacity IS NULL OR e.registeredCount < e.capacity)
+            """)
+    int claimSeats(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Gives back one seat at each of several events in a single {@code UPDATE}, as {@link #releaseSeat} does for one.
+     *
+     * @param ids the event ids
+     * @return the number of events a seat was released at
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = e.registeredCount - 1, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.id IN :ids AND e.registeredCount > 0
+            """)
+    int releaseSeats(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Gives back a seat taken by {@link #claimSeat}, in a single {@code UPDATE} that never takes the count below zero.
+     *
+     * @param id the event id
+     * @return {@code 1} if a seat was released, {@code 0} otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = e.registeredCount - 1, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.id = :id AND e.registeredCount > 0
+            """)
+    int releaseSeat(@Param("id") Long id);
+
+    /**
+     * Gives back the seats held by every registration of a profile, in a single {@code UPDATE}, for when the profile is deleted
+     * and its registrations go with it. Must run before the registrations are deleted.
+     *
+     * @param profileId the id of the profile being deleted
+     * @return the number of events a seat was released at
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = e.registeredCount - 1, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.registeredCount > 0
+              AND e.id IN (SELECT r.event.id FROM EventRegistration r WHERE r.userProfile.id = :profileId)
+            """)
+    int releaseSeatsHeldBy(@Param("profileId") Long profileId);
+
+    /**
+     * Finds the events whose {@code registeredCount} no longer matches their rows in {@code event_registrations}. The count
+     * per event is a correlated subquery answered from the {@code (event_id, id)} index, so registrations are not grouped
+     * across the whole table.
+     *
+     * @return the ids of the events that have drifted
+     */
+    @Query("""
+            SELECT e.id FROM Event e
+            WHERE e.registeredCount <> (SELECT COUNT(r) FROM EventRegistration r WHERE r.event = e)
+            ORDER BY e.id
+            """)
+    List<Long> findIdsWithDriftedRegisteredCount();
+
+    /**
+     * Overwrites an event's registration count, for repairing drift. Bumps {@code version} only when the count actually
+     * changes, and leaves {@code lastModified} alone as {@link #claimSeat} does.
+     *
+     * @param id the event id
+     * @param count the correct count
+     * @return {@code 1} if the count was changed, {@code 0} otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Event e
+            SET e.registeredCount = :count, e.version = COALESCE(e.version, 0) + 1
+            WHERE e.id = :id AND e.registeredCount <> :count
+            """)
+    int setRegisteredCount(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Reads the registration count of every event that has registrations. The counts are left out of the cached catalog list
+     * ({@link EventListSnapshotCache}), so it does not have to be rebuilt on every registration; clients read them here.
+     *
+     * @return the counts, in id order
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventRegisteredCount(e.id, e.registeredCount)
+            FROM Event e
+            WHERE e.registeredCount > 0
+            ORDER BY e.id
+            """)
+    List<EventRegisteredCount> findRegisteredCounts();
+
+    /**
+     * Reads the registration count and start of the events that have registrations and are not over, in id order after
+     * {@code afterId}, for rebuilding {@link EventPopularityRanking} a page at a time.
+     *
+     * @param afterId the id of the last event already read, {@code 0} for the first page
+     * @param today events dated before this are skipped
+     * @param limit the maximum number of rows to return
+     * @return the next page of popularity entries
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventPopularity(e.id, e.registeredCount, e.date, e.time)
+            FROM Event e
+            WHERE e.id > :afterId AND e.registeredCount > 0 AND e.date >= :today
+            ORDER BY e.id
+            """)
+    List<EventPopularity> findPopularityAfter(@Param("afterId") Long afterId, @Param("today") LocalDate today, Limit limit);
+
+    /**
+     * Reads the catalog-wide stamp: the number of events and the latest modification time, which is the later of the newest
+     * event's {@code lastModified} and the last delete recorded by {@link #markCatalogDeleted}. Both aggregates can be answered
+     * from indexes, and the delete time is a single-row primary-key read.
+     *
+     * @return the catalog stamp
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventStamp(COUNT(e), MAX(e.lastModified),
+                (SELECT MAX(s.lastDeleted) FROM EventCatalogState s))
+            FROM Event e
+            """)
+    EventStamp findCatalogStamp();
+
+    /**
+     * Records that an event was deleted, so the catalog stamp moves even though the deleted row's {@code lastModified} is gone.
+     * Call {@link #insertCatalogStateIfAbsent} first when this updates no row.
+     *
+     * @param now the time of the delete
+     * @return the number of rows updated, {@code 0} if the state row does not exist yet
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EventCatalogState s SET s.lastDeleted = :now WHERE s.id = " + EventCatalogState.ID)
+    int markCatalogDeleted(@Param("now") Instant now);
+
+    /**
+     * Creates the catalog state row if it does not exist. The values come from a one-row derived table rather than
+     * {@code DUAL}, which PostgreSQL does not have.
+     *
+     * @param now the time of the delete
+     * @return {@code 1} if the row was created, {@code 0} if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO event_catalog_state (id, last_deleted)
+            SELECT seed.id, :now FROM (SELECT 1 AS id) seed
+            WHERE NOT EXISTS (SELECT 1 FROM event_catalog_state s WHERE s.id = seed.id)
+            """, nativeQuery = true)
+    int insertCatalogStateIfAbsent(@Param("now") Instant now);
+
+    /**
+     * Streams every event in id order over a forward-only JDBC cursor with a fixed fetch size, so rows are pulled from the
+     * database as they are consumed instead of being materialized up front. Must be called inside a transaction and the stream
+     * closed afterwards; callers that read the whole table should detach each entity once done with it.
+     *
+     * @return a stream of all events
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT e FROM Event e ORDER BY e.id")
+    Stream<Event> streamAll();
 }
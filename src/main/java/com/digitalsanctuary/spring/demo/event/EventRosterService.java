@@ -0,0 +1,109 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the attendee roster of an event, a page at a time or streamed as CSV.
+ *
+ * <p>
+ * Both read {@link RosterEntry} projections in registration order through the {@code (event_id, id)} index on
+ * {@code event_registrations}. Pages use the last registration id as a keyset cursor, so a deep page costs the same as the
+ * first. The CSV export pulls rows from a forward-only cursor and writes each as it arrives, so heap use is bounded by the
+ * fetch size and the output buffer, not by the size of the roster.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventRosterService {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final String CSV_HEADER = "registration_id,user_id,email,first_name,last_name\n";
+
+    private final EventRegistrationRepository eventRegistrationRepository;
+
+    /**
+     * Returns one page of an event's attendees in registration order.
+     *
+     * @param eventId the event id
+     * @param cursor the cursor from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size; clamped to {@code [1, EventService.MAX_PAGE_SIZE]}, {@code null} means
+     *        {@link EventService#DEFAULT_PAGE_SIZE}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor is not a registration id
+     */
+    @Transactional(readOnly = true)
+    public RosterPage getRoster(Long eventId, String cursor, Integer limit) {
+        int pageSize = limit == null ? EventService.DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, EventService.MAX_PAGE_SIZE));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<RosterEntry> rows = cursor == null || cursor.isBlank() ? eventRegistrationRepository.findRoster(eventId, fetchLimit)
+                : eventRegistrationRepository.findRosterAfter(eventId, decodeCursor(cursor), fetchLimit);
+        if (rows.size() <= pageSize) {
+            return new RosterPage(rows, null);
+        }
+        List<RosterEntry> page = rows.subList(0, pageSize);
+        return new RosterPage(page, String.valueOf(page.get(pageSize - 1).registrationId()));
+    }
+
+    /**
+     * Writes an event's whole roster to {@code out} as CSV, in registration order. The stream is flushed but not closed.
+     *
+     * @param eventId the event id
+     * @param out the stream to write to
+     * @return the number of attendees written
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(Long eventId, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        AtomicLong count = new AtomicLong();
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        try (Stream<RosterEntry> roster = eventRegistrationRepository.streamRoster(eventId)) {
+            roster.forEach(entry -> {
+                try {
+                    buffered.write(toCsvRow(entry).getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        buffered.flush();
+        log.info("Exported roster of event {}: {} attendees in {} ms", eventId, count.get(), System.currentTimeMillis() - start);
+        return count.get();
+    }
+
+    private static String toCsvRow(RosterEntry entry) {
+        StringBuilder row = new StringBuilder(96);
+        row.append(entry.registrationId()).append(',');
+        row.append(entry.userId()).append(',');
+        EventExportService.appendCsv(row, entry.email()).append(',');
+        EventExportService.appendCsv(row, entry.firstName()).append(',');
+        EventExportService.appendCsv(row, entry.lastName()).append('\n');
+        return row.toString();
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(cursor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid roster cursor", e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory inverted index over event name, location and description, used for ranked, prefix-aware event search.
+ *
+ * <p>
+ * Terms are kept in a sorted map from token to postings ({@code eventId -> field weight}), so a prefix query is a
+ * sub-map range scan rather than a pass over every event. A match in the name counts more than one in the location, which counts
+ * more than one in the description; results are scored with a tf-idf style weight and every query term must match (exactly, or as
+ * a prefix of an indexed term) for an event to be returned.
+ * </p>
+ *
+ * <p>
+ * The index is rebuilt from the database, one keyset page at a time, when the application starts. After that,
+ * {@link EventService} keeps it current by calling {@link #index(Event)} and {@link #remove(Long)} on each write, which touch only
+ * the postings of the affected event.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int LOCATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** Query terms shorter than this only match exactly, so a one-letter query does not expand to half the dictionary. */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /** Score multiplier for a prefix match relative to an exact match of the same term. */
+    private static final double PREFIX_MATCH_FACTOR = 0.5;
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final EventRepository eventRepository;
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByEvent = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Rebuilds the index from the database once the application has started. Events are read in keyset pages so the whole catalog
+     * is never held in memory at once.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        clear();
+        int indexed = 0;
+        List<Event> page = eventRepository.findAllByOrderByDateAscTimeAscIdAsc(Limit.of(REBUILD_PAGE_SIZE));
+        while (!page.isEmpty()) {
+            page.forEach(this::index);
+            indexed += page.size();
+            if (page.size() < REBUILD_PAGE_SIZE) {
+                break;
+            }
+            Event last = page.get(page.size() - 1);
+            page = eventRepository.findPageAfter(last.getDate(), last.getTime(), last.getId(), Limit.of(REBUILD_PAGE_SIZE));
+        }
+        log.info("Event search index rebuilt: {} events, {} terms in {} ms", indexed, termCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces an event in the index.
+     *
+     * @param event the event to index; ignored if it has no id
+     */
+    public void index(Event event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        addTokens(weights, event.getName(), NAME_WEIGHT);
+        addTokens(weights, event.getLocation(), LOCATION_WEIGHT);
+        addTokens(weights, event.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(event.getId());
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(event.getId(), weight));
+            termsByEvent.put(event.getId(), weights.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an event from the index.
+     *
+     * @param eventId the id of the event to remove
+     */
+    public void remove(Long eventId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(eventId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query free text; every term must match an indexed term exactly or as a prefix
+     * @param limit the maximum number of ids to return
+     * @return matching event ids, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            int documentCount = termsByEvent.size();
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = scoreTerm(queryTerm, documentCount);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.<Long, Double>comparingByKey()))
+                .limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * @return the number of distinct terms in the index
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByEvent.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scores every event matching one query term. Callers must hold the read lock.
+     */
+    private Map<Long, Double> scoreTerm(String queryTerm, int documentCount) {
+        Map<Long, Double> termScores = new HashMap<>();
+        Map<String, Map<Long, Integer>> matches;
+        if (queryTerm.length() < MIN_PREFIX_LENGTH) {
+            Map<Long, Integer> exact = postings.get(queryTerm);
+            matches = exact == null ? Map.of() : Map.of(queryTerm, exact);
+        } else {
+            matches = postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true);
+        }
+        matches.forEach((term, termPostings) -> {
+            double idf = Math.log(1.0 + (double) documentCount / termPostings.size());
+            double factor = term.equals(queryTerm) ? 1.0 : PREFIX_MATCH_FACTOR;
+            termPostings.forEach((eventId, weight) -> termScores.merge(eventId, factor * weight * idf, Math::max));
+        });
+        return termScores;
+    }
+
+    /**
+     * Removes every posting for an event. Callers must hold the write lock.
+     */
+    private void removeUnlocked(Long eventId) {
+        Set<String> terms = termsByEvent.remove(eventId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(eventId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTokens(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Splits text into lower-case letter/digit tokens, in order and without duplicates.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
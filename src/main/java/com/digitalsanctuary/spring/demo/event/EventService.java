@@ -1,42 +1,338 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EventService {
 
+    /** Page size used when the caller does not ask for one. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /** Upper bound on a single page, so a client cannot ask for the whole table through the paged path. */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final EventRepository eventRepository;
 
+    private final EventCache eventCache;
+
+    private final EventSearchIndex eventSearchIndex;
+
+    private final EventListSnapshotCache eventListSnapshotCache;
+
+    private final EventPopularityRanking eventPopularityRanking;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns all events, served from {@link EventCache} when possible.
+     *
+     * @return an unmodifiable list of all events
+     */
     public List<Event> getAllEvents() {
-        return eventRepository.findAll();
+        return eventCache.getAllEvents(eventRepository::findAll);
+    }
+
+    /**
+     * Returns all events as a pre-serialized {@link EventListSnapshot}, rebuilt only when the catalog has changed. Registration
+     * counts are not part of it; see {@link #getRegisteredCounts()}.
+     *
+     * @param stamp the current {@link #getCatalogStamp() catalog stamp}, or {@code null} to read it here
+     * @return the snapshot matching {@code stamp}
+     */
+    public EventListSnapshot getAllEventsSnapshot(EventStamp stamp) {
+        EventStamp current = stamp != null ? stamp : getCatalogStamp();
+        return eventListSnapshotCache.get(current, eventRepository::findAll);
+    }
+
+    /**
+     * Returns the live registration count of every event that has registrations, read in one query without loading any events.
+     *
+     * @return registration counts by event id, in id order
+     */
+    public Map<Long, Integer> getRegisteredCounts() {
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        eventRepository.findRegisteredCounts().forEach(count -> counts.put(count.eventId(), count.registeredCount()));
+        return counts;
+    }
+
+    /**
+     * Returns one page of events in {@code (date, time, id)} order using keyset pagination.
+     *
+     * <p>
+     * One extra row is fetched to find out whether a following page exists, so no {@code COUNT} query is needed.
+     * </p>
+     *
+     * @param cursor the encoded {@link EventCursor} from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size; clamped to {@code [1, MAX_PAGE_SIZE]}, {@code null} means {@link #DEFAULT_PAGE_SIZE}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor cannot be decoded
+     */
+    public EventPage getEventPage(String cursor, Integer limit) {
+        return getEventPageBetween(null, null, cursor, limit);
+    }
+
+    /**
+     * Returns one page of events that have not started yet, in {@code (date, time, id)} order. The first page seeks straight
+     * to the current date and time on the {@code (date, time, id)} index, so past events are never read.
+     *
+     * @param cursor the encoded {@link EventCursor} from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size, as for {@link #getEventPage(String, Integer)}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor cannot be decoded
+     */
+    public EventPage getUpcomingEventPage(String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        EventCursor after = startingAt(cursor, EventCursor.before(LocalDate.now(), LocalTime.now()));
+        return toPage(eventRepository.findPageAfter(after.date(), after.time(), after.id(), Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /**
+     * Returns one page of events dated between {@code from} and {@code to}, both inclusive, in {@code (date, time, id)} order.
+     *
+     * @param from the first date to include, or {@code null} for no lower bound
+     * @param to the last date to include, or {@code null} for no upper bound
+     * @param cursor the encoded {@link EventCursor} from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size, as for {@link #getEventPage(String, Integer)}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor cannot be decoded or {@code from} is after {@code to}
+     */
+    public EventPage getEventPageBetween(LocalDate from, LocalDate to, String cursor, Integer limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        int pageSize = pageSize(limit);
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        EventCursor after = startingAt(cursor, from == null ? null : EventCursor.before(from, LocalTime.MIN));
+
+        List<Event> rows;
+        if (after == null) {
+            rows = to == null ? eventRepository.findAllByOrderByDateAscTimeAscIdAsc(fetchLimit)
+                    : eventRepository.findByDateLessThanEqualOrderByDateAscTimeAscIdAsc(to, fetchLimit);
+        } else {
+            rows = to == null ? eventRepository.findPageAfter(after.date(), after.time(), after.id(), fetchLimit)
+                    : eventRepository.findPageAfterUpTo(after.date(), after.time(), after.id(), to, fetchLimit);
+        }
+        return toPage(rows, pageSize);
+    }
+
+    /**
+     * Returns one page of the events in the given month, in {@code (date, time, id)} order.
+     *
+     * @param month the month to list
+     * @param cursor the encoded {@link EventCursor} from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size, as for {@link #getEventPage(String, Integer)}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor cannot be decoded
+     */
+    public EventPage getEventPageInMonth(YearMonth month, String cursor, Integer limit) {
+        return getEventPageBetween(month.atDay(1), month.atEndOfMonth(), cursor, limit);
     }
 
+    /**
+     * Full-text search over event name, location and description using the in-memory {@link EventSearchIndex}. Only the
+     * matching events are loaded from the database.
+     *
+     * @param query free text; every term must match a word in the event, exactly or as a prefix
+     * @param limit the maximum number of results, as for {@link #getEventPage(String, Integer)}
+     * @return matching events, best match first
+     */
+    public List<Event> searchEvents(String query, Integer limit) {
+        List<Long> ids = eventSearchIndex.search(query, pageSize(limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Event> eventsById = eventRepository.findAllById(ids).stream().collect(Collectors.toMap(Event::getId, Function.identity()));
+        return ids.stream().map(eventsById::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Returns the upcoming events with the most registrations, read from the in-memory {@link EventPopularityRanking} and
+     * loaded through {@link EventCache}, so no request sorts or counts registrations.
+     *
+     * @param limit the maximum number of events, as for {@link #getEventPage(String, Integer)}
+     * @return the most popular upcoming events, most registrations first
+     */
+    public List<Event> getTrendingEvents(Integer limit) {
+        return eventPopularityRanking.top(pageSize(limit)).stream().map(entry -> getEventById(entry.eventId()).orElse(null)).filter(Objects::nonNull)
+                .toList();
+    }
+
+    private int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Resolves where a bounded listing resumes: the decoded cursor, but never before {@code lowerBound}, so a stale or
+     * hand-made cursor cannot reach outside the requested range. Returns {@code null} when there is neither a cursor nor a
+     * lower bound.
+     */
+    private EventCursor startingAt(String cursor, EventCursor lowerBound) {
+        if (cursor == null || cursor.isBlank()) {
+            return lowerBound;
+        }
+        EventCursor decoded = EventCursor.decode(cursor);
+        return lowerBound == null ? decoded : decoded.max(lowerBound);
+    }
+
+    private EventPage toPage(List<Event> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new EventPage(rows, null);
+        }
+        List<Event> page = rows.subList(0, pageSize);
+        return new EventPage(page, EventCursor.after(page.get(pageSize - 1)).encode());
+    }
+
+    /**
+     * Returns the version stamp of a single event without loading it.
+     *
+     * @param id the event id
+     * @return the stamp, or empty if the event does not exist
+     */
+    public Optional<EventStamp> getEventStamp(Long id) {
+        return eventRepository.findStampById(id);
+    }
+
+    /**
+     * Returns a stamp that changes whenever any event is created, updated or deleted, without loading any events. Registrations
+     * do not move it.
+     *
+     * @return the catalog stamp
+     */
+    public EventStamp getCatalogStamp() {
+        return eventRepository.findCatalogStamp();
+    }
+
+    /**
+     * Returns a single event, served from {@link EventCache} when possible.
+     *
+     * @param id the event id
+     * @return the event, or empty if it does not exist
+     */
     public Optional<Event> getEventById(Long id) {
-        return eventRepository.findById(id);
+        return eventCache.getEvent(id, () -> eventRepository.findById(id));
+    }
+
+    /**
+     * Returns a single event and whether a user profile is registered for it. Anonymous visitors are served from
+     * {@link EventCache}; for a signed-in user both are read in one query, without loading the profile or its registrations.
+     *
+     * @param id the event id
+     * @param profileId the id of the current user profile, or {@code null} if there is none
+     * @return the event details, or empty if the event does not exist
+     */
+    public Optional<EventDetails> getEventDetails(Long id, Long profileId) {
+        if (profileId == null) {
+            return getEventById(id).map(event -> new EventDetails(event, false));
+        }
+        return eventRepository.findDetailsById(id, profileId);
+    }
+
+    /**
+     * Drops a cached event whose registration count has changed, so the next read shows the current count. Call after the
+     * transaction that changed it has committed.
+     *
+     * @param id the event id
+     */
+    public void evictCachedEvent(Long id) {
+        eventCache.evict(id);
+    }
+
+    /**
+     * Records a committed change in an event's registrations: drops the cached event, as {@link #evictCachedEvent(Long)} does,
+     * and moves it in {@link EventPopularityRanking}. An event that is not ranked yet is loaded once to add it with its current
+     * count.
+     *
+     * @param id the event id
+     * @param delta the net change in registrations, which may be zero
+     */
+    public void recordRegistrationChange(Long id, int delta) {
+        eventCache.evict(id);
+        if (delta != 0 && !eventPopularityRanking.adjust(id, delta) && delta > 0) {
+            getEventById(id).ifPresent(eventPopularityRanking::put);
+        }
     }
 
     public Event createEvent(Event event) {
-        return eventRepository.save(event);
+        Event saved = eventRepository.save(event);
+        eventCache.evict(saved.getId());
+        eventListSnapshotCache.invalidate();
+        eventSearchIndex.index(saved);
+        return saved;
     }
 
+    /**
+     * Updates an event. When the capacity is raised or removed, publishes {@link EventCapacityIncreasedEvent} in the same
+     * transaction, so the added seats go to the event's waitlist before a new registration can claim them, and returns the
+     * event with its registration count as of after those promotions.
+     *
+     * @param id the event id
+     * @param eventDetails the new field values
+     * @return the updated event
+     * @throws ResponseStatusException with {@code 404} if the event does not exist
+     */
+    @Transactional
     public Event updateEvent(Long id, Event eventDetails) {
         Event event = eventRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found"));
+        Integer previousCapacity = event.getCapacity();
         event.setName(eventDetails.getName());
         event.setDescription(eventDetails.getDescription());
         event.setLocation(eventDetails.getLocation());
         event.setDate(eventDetails.getDate());
         event.setTime(eventDetails.getTime());
-        return eventRepository.save(event);
+        event.setCapacity(eventDetails.getCapacity());
+        Event saved = eventRepository.save(event);
+        if (previousCapacity != null && (saved.getCapacity() == null || saved.getCapacity() > previousCapacity)) {
+            eventRepository.flush();
+            eventPublisher.publishEvent(new EventCapacityIncreasedEvent(id));
+            // Promotions take seats with bulk updates, which the managed entity does not see
+            entityManager.refresh(saved);
+        }
+        eventCache.evict(id);
+        eventListSnapshotCache.invalidate();
+        eventSearchIndex.index(saved);
+        eventPopularityRanking.reschedule(saved);
+        return saved;
     }
 
+    /**
+     * Deletes an event and records the delete in {@link EventCatalogState}, so the catalog's {@code Last-Modified} moves.
+     *
+     * @param id the event id
+     */
+    @Transactional
     public void deleteEvent(Long id) {
         eventRepository.deleteById(id);
+        Instant now = Instant.now();
+        if (eventRepository.markCatalogDeleted(now) == 0) {
+            eventRepository.insertCatalogStateIfAbsent(now);
+        }
+        eventCache.evict(id);
+        eventListSnapshotCache.invalidate();
+        eventSearchIndex.remove(id);
+        eventPopularityRanking.remove(id);
     }
 }
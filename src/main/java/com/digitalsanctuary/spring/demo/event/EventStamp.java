@@ -0,0 +1,49 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.Instant;
+
+/**
+ * The version of an event, or of the whole catalog, read without loading any {@link Event} entities. Used to answer
+ * conditional {@code GET}s with {@code 304 Not Modified} before anything is hydrated or serialized.
+ *
+ * <p>
+ * For a single event, {@code version} is {@link Event#getVersion()}. For the catalog, it is the number of events, and
+ * {@code lastModified} is the later of the newest event's modification time and the last delete ({@link EventCatalogState}), so
+ * the timestamp moves on every create, update and delete and {@code If-Modified-Since} alone is enough to see any change.
+ * </p>
+ *
+ * @param version the event version, or the catalog row count
+ * @param lastModified the event's last modification time, or the latest one across the catalog; {@code null} if unknown
+ */
+public record EventStamp(Long version, Instant lastModified) {
+
+    /**
+     * Builds the catalog stamp from the newest event's modification time and the last delete, keeping the later of the two.
+     *
+     * @param count the number of events
+     * @param lastModified the latest {@code lastModified} across the events, or {@code null} without events
+     * @param lastDeleted the time of the last delete, or {@code null} if nothing was ever deleted
+     */
+    public EventStamp(Long count, Instant lastModified, Instant lastDeleted) {
+        this(count, lastDeleted == null || (lastModified != null && lastModified.isAfter(lastDeleted)) ? lastModified : lastDeleted);
+    }
+
+    /**
+     * Builds a strong ETag from this stamp.
+     *
+     * @param prefix distinguishes the resource, e.g. {@code "event-42"} or {@code "events"}
+     * @return the quoted ETag value
+     */
+    public String eTag(String prefix) {
+        long micros = lastModified == null ? 0 : lastModified.getEpochSecond() * 1_000_000 + lastModified.getNano() / 1_000;
+        return "\"" + prefix + "-" + (version == null ? 0 : version) + "-" + micros + "\"";
+    }
+
+    /**
+     * @return the last modification time in epoch milliseconds, or {@code -1} if unknown (which disables
+     *         {@code If-Modified-Since} handling)
+     */
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.toEpochMilli();
+    }
+}
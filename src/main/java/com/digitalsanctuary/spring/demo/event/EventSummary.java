@@ -0,0 +1,16 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * The fields of an event needed to list it, read as a projection so no {@link Event} entity is hydrated.
+ *
+ * @param id the event id
+ * @param name the event name
+ * @param date the event date
+ * @param time the event start time
+ * @param location the event location
+ */
+public record EventSummary(Long id, String name, LocalDate date, LocalTime time, String location) {
+}
@@ -0,0 +1,13 @@
+package com.digitalsanctuary.spring.demo.event;
+
+/**
+ * One attendee on an event's roster, read as a projection without loading the registration, profile or user entities.
+ *
+ * @param registrationId the registration id, which orders the roster and serves as its keyset cursor
+ * @param userId the attendee's user id
+ * @param email the attendee's email address
+ * @param firstName the attendee's first name
+ * @param lastName the attendee's last name
+ */
+public record RosterEntry(Long registrationId, Long userId, String email, String firstName, String lastName) {
+}
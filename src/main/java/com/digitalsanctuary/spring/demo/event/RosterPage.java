@@ -0,0 +1,19 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import java.util.List;
+
+/**
+ * One page of an event's roster, in registration order.
+ *
+ * @param entries the attendees on this page
+ * @param nextCursor the cursor for the following page, or {@code null} if this is the last page
+ */
+public record RosterPage(List<RosterEntry> entries, String nextCursor) {
+
+    /**
+     * @return whether a following page exists
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.digitalsanctuary.spring.demo.jdbc;
+
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the JDBC statements and database time of every HTTP request and flags the ones that go over budget.
+ *
+ * <p>
+ * Per request it records {@code http.server.requests.sql.statements} (a distribution summary) and
+ * {@code http.server.requests.sql.time} (a timer), tagged with the request method and matched URI pattern like Spring's own
+ * {@code http.server.requests}. A request that runs more than {@code app.sql.budget.statements} statements or spends more than
+ * {@code app.sql.budget.time} in the database is logged at WARN and counted in {@code http.server.requests.sql.over.budget}. A
+ * statement count that grows with the size of the data on the page is the usual sign of an N+1 query.
+ * </p>
+ *
+ * <p>
+ * Only statements executed on the request thread are counted; work handed to an async executor or a streaming response body is
+ * not.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.sql.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final Duration timeBudget;
+
+    /**
+     * The registry is optional so the filter also loads in web test slices that have no metrics support.
+     */
+    public SqlStatementBudgetFilter(ObjectProvider<MeterRegistry> meterRegistry, @Value("${app.sql.budget.statements:25}") int statementBudget,
+            @Value("${app.sql.budget.time:250ms}") Duration timeBudget) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.statementBudget = statementBudget;
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatistics.Scope scope = SqlStatistics.open()) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                record(request, scope);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        Tags tags = Tags.of("method", request.getMethod(), "uri", uri);
+
+        DistributionSummary.builder("http.server.requests.sql.statements").description("JDBC statements executed per HTTP request")
+                .tags(tags).register(meterRegistry).record(scope.statementCount());
+        Timer.builder("http.server.requests.sql.time").description("Time spent executing JDBC statements per HTTP request").tags(tags)
+                .register(meterRegistry).record(scope.time());
+
+        if (scope.statementCount() > statementBudget || scope.time().compareTo(timeBudget) > 0) {
+            meterRegistry.counter("http.server.requests.sql.over.budget", tags).increment();
+            log.warn("SQL budget exceeded: {} {} ({}) ran {} statements in {} ms (budget: {} statements, {} ms)", request.getMethod(),
+                    request.getRequestURI(), uri, scope.statementCount(), scope.time().toMillis(), statementBudget, timeBudget.toMillis());
+        }
+    }
+}
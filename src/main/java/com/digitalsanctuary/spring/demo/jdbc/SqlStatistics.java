@@ -0,0 +1,136 @@
+package com.digitalsanctuary.spring.demo.jdbc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thread-bound counters for the JDBC statements executed through {@link StatementCountingDataSource}.
+ *
+ * <p>
+ * Code that wants to measure a unit of work opens a {@link Scope}, runs the work on the same thread and reads the totals from the
+ * scope. Scopes nest: a statement counts towards every scope open on the thread, so a test can measure an HTTP request that
+ * {@link SqlStatementBudgetFilter} is measuring at the same time. Statements run on other threads (async tasks, streaming
+ * response bodies) are not attributed to the scope.
+ * </p>
+ */
+public final class SqlStatistics {
+
+    /** The most statements a capturing scope keeps the text of, so a runaway loop cannot exhaust memory. */
+    private static final int MAX_CAPTURED_STATEMENTS = 200;
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatistics() {
+    }
+
+    /**
+     * Starts counting statements on the current thread.
+     *
+     * @return the scope, to be closed when the measured work is done
+     */
+    public static Scope open() {
+        return open(false);
+    }
+
+    /**
+     * Starts counting statements on the current thread and also records their SQL, for diagnosing where the statements came
+     * from.
+     *
+     * @return the scope, to be closed when the measured work is done
+     */
+    public static Scope openCapturing() {
+        return open(true);
+    }
+
+    private static Scope open(boolean captureSql) {
+        Scope scope = new Scope(CURRENT.get(), captureSql);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return whether any scope is open on the current thread
+     */
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Records one executed statement against every scope open on the current thread.
+     */
+    static void record(String sql, long nanos) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.add(sql, nanos);
+        }
+    }
+
+    /**
+     * Statement totals for one unit of work. Not thread-safe; a scope belongs to the thread that opened it.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final List<String> statements;
+        private int count;
+        private long nanos;
+        private boolean closed;
+
+        private Scope(Scope parent, boolean captureSql) {
+            this.parent = parent;
+            this.statements = captureSql ? new ArrayList<>() : null;
+        }
+
+        private void add(String sql, long elapsedNanos) {
+            count++;
+            nanos += elapsedNanos;
+            if (statements != null && statements.size() < MAX_CAPTURED_STATEMENTS) {
+                statements.add(sql);
+            }
+        }
+
+        /**
+         * @return the number of statements executed while this scope was open; a JDBC batch counts once
+         */
+        public int statementCount() {
+            return count;
+        }
+
+        /**
+         * @return the total time spent executing those statements
+         */
+        public Duration time() {
+            return Duration.ofNanos(nanos);
+        }
+
+        /**
+         * @return the SQL of the executed statements, in order, if this scope was opened with {@link #openCapturing()}; otherwise
+         *         empty
+         */
+        public List<String> statements() {
+            return statements == null ? List.of() : Collections.unmodifiableList(statements);
+        }
+
+        /**
+         * Stops counting. Closing an outer scope before an inner one also ends the inner one.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+                if (scope == this) {
+                    if (parent == null) {
+                        CURRENT.remove();
+                    } else {
+                        CURRENT.set(parent);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.digitalsanctuary.spring.demo.service;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.stereotype.Service;
+
+import com.digitalsanctuary.spring.demo.session.UserSessionRegistry;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.service.SessionInvalidationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Custom extension of SessionInvalidationService that ends a user's sessions through {@link UserSessionRegistry}.
+ * The framework calls this wherever it ends sessions itself, such as after a password change or reset, so those paths
+ * use the registry's per-user index, or the principal name index under the jdbc-session profile. The registry only
+ * knows sessions that logged in interactively, so the framework's session registry is then asked too: it also holds
+ * sessions logged in some other way, such as the automatic login after registration. The registry goes first, so a
+ * session it ends has normally left the framework's registry by the time that is asked and is not counted twice.
+ */
+@Slf4j
+@Service
+@Primary
+public class CustomSessionInvalidationService extends SessionInvalidationService {
+
+    private final UserSessionRegistry userSessionRegistry;
+
+    public CustomSessionInvalidationService(SessionRegistry sessionRegistry, UserSessionRegistry userSessionRegistry) {
+        super(sessionRegistry);
+        this.userSessionRegistry = userSessionRegistry;
+    }
+
+    @Override
+    public int invalidateUserSessions(final User user) {
+        int ended = userSessionRegistry.invalidateSessions(user, null);
+        ended += super.invalidateUserSessions(user);
+        log.info("Ended {} session(s) of user {}", ended, user != null ? user.getId() : null);
+        return ended;
+    }
+}
@@ -0,0 +1,334 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import com.digitalsanctuary.spring.demo.user.profile.session.SessionProfileSnapshot;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.service.DSUserDetails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Binary format for HTTP session attributes stored by {@link JdbcSessionConfiguration}.
+ *
+ * <p>
+ * Every value starts with a one-byte tag. Strings, numbers and booleans are written as-is. The session-scoped
+ * {@link DemoSessionProfile} is written as its {@link SessionProfileSnapshot}: profile id, change stamp, favorite color,
+ * newsletter flag and the sorted registered event ids as variable-length deltas, usually one or two bytes per id. Reading it
+ * back builds a new bean through {@code profileFactory}, which wires its dependencies, so the bean survives a hop to another
+ * node. Anything else falls back to plain Java serialization.
+ * </p>
+ *
+ * <p>
+ * The security context of a form or programmatic login, an authenticated {@link UsernamePasswordAuthenticationToken} with
+ * erased credentials and plain string authorities, is written as the principal plus its authority strings. A
+ * {@link DSUserDetails} principal is stored as its user id and rebuilt around the user reloaded through {@code userLoader}, one
+ * primary key lookup on the request that reads the context; a user deleted since then reads back as an empty context. A
+ * Spring Security {@code User} principal is stored as its username and account flags. The token's request details are not
+ * kept. OAuth2 and OIDC tokens carry provider attributes and ID token claims, and WebAuthn and remember-me tokens carry their
+ * own state, none of which a principal name and authorities can rebuild, so those are still Java-serialized and deflated. Each
+ * encoding is counted as {@code sessions.security.encodings}, tagged {@code form=compact} or {@code form=java}, so the share
+ * of sessions on the fallback can be watched.
+ * </p>
+ */
+public class CompactSessionSerializer implements Serializer<Object>, Deserializer<Object> {
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_LONG = 2;
+    static final byte TAG_INTEGER = 3;
+    static final byte TAG_BOOLEAN = 4;
+    static final byte TAG_SESSION_PROFILE = 5;
+    static final byte TAG_SECURITY_CONTEXT = 6;
+    static final byte TAG_JAVA = 7;
+
+    /** Security context forms, written after {@link #TAG_SECURITY_CONTEXT}. */
+    static final byte AUTH_NONE = 0;
+    static final byte AUTH_USER_DETAILS = 1;
+    static final byte AUTH_USERNAME = 2;
+    static final byte AUTH_JAVA = 3;
+
+    private final Function<SessionProfileSnapshot, DemoSessionProfile> profileFactory;
+    private final Function<Long, User> userLoader;
+    private final Counter compactSecurityContexts;
+    private final Counter javaSecurityContexts;
+
+    /**
+     * @param profileFactory builds a wired {@link DemoSessionProfile} holding a stored snapshot
+     * @param userLoader finds a user by id, or returns {@code null} if there is none
+     * @param meterRegistry where the security context encodings are counted
+     */
+    public CompactSessionSerializer(Function<SessionProfileSnapshot, DemoSessionProfile> profileFactory, Function<Long, User> userLoader,
+            MeterRegistry meterRegistry) {
+        this.profileFactory = profileFactory;
+        this.userLoader = userLoader;
+        this.compactSecurityContexts = Counter.builder("sessions.security.encodings").tag("form", "compact").register(meterRegistry);
+        this.javaSecurityContexts = Counter.builder("sessions.security.encodings").tag("form", "java").register(meterRegistry);
+    }
+
+    /**
+     * @param value the attribute value
+     * @return the encoded value
+     */
+    public byte[] toBytes(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            serialize(value, bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Session attribute could not be serialized: " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object value, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(TAG_STRING);
+            out.writeUTF(string);
+        } else if (value instanceof Long number) {
+            out.writeByte(TAG_LONG);
+            out.writeLong(number);
+        } else if (value instanceof Integer number) {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(flag);
+        } else if (value instanceof DemoSessionProfile profile) {
+            out.writeByte(TAG_SESSION_PROFILE);
+            writeSnapshot(out, profile.getSnapshot());
+        } else if (value instanceof SecurityContextImpl context) {
+            out.writeByte(TAG_SECURITY_CONTEXT);
+            writeAuthentication(out, outputStream, context.getAuthentication());
+        } else {
+            out.writeByte(TAG_JAVA);
+            out.flush();
+            writeJava(outputStream, value);
+        }
+        out.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        byte tag = in.readByte();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_STRING -> in.readUTF();
+            case TAG_LONG -> in.readLong();
+            case TAG_INTEGER -> in.readInt();
+            case TAG_BOOLEAN -> in.readBoolean();
+            case TAG_SESSION_PROFILE -> profileFactory.apply(readSnapshot(in));
+            case TAG_SECURITY_CONTEXT -> readSecurityContext(in, inputStream);
+            case TAG_JAVA -> readJava(inputStream);
+            default -> throw new IOException("Unknown session attribute tag " + tag);
+        };
+    }
+
+    /**
+     * @param bytes an encoded value
+     * @return the decoded value
+     */
+    public Object fromBytes(byte[] bytes) {
+        try {
+            return deserialize(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Session attribute could not be deserialized", e);
+        }
+    }
+
+    private static void writeSnapshot(DataOutputStream out, SessionProfileSnapshot snapshot) throws IOException {
+        out.writeBoolean(snapshot != null);
+        if (snapshot == null) {
+            return;
+        }
+        writeVarLong(out, snapshot.profileId() != null ? snapshot.profileId() + 1 : 0);
+        writeVarLong(out, snapshot.changeStamp());
+        out.writeBoolean(snapshot.favoriteColor() != null);
+        if (snapshot.favoriteColor() != null) {
+            out.writeUTF(snapshot.favoriteColor());
+        }
+        out.writeBoolean(snapshot.receiveNewsletter());
+        long[] ids = snapshot.registeredEventIds();
+        // 0 means not loaded yet, otherwise the count plus one, then each id as the gap from the previous one
+        writeVarLong(out, ids == null ? 0 : ids.length + 1L);
+        if (ids != null) {
+            long previous = 0;
+            for (long id : ids) {
+                writeVarLong(out, id - previous);
+                previous = id;
+            }
+        }
+    }
+
+    private static SessionProfileSnapshot readSnapshot(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long encodedId = readVarLong(in);
+        long changeStamp = readVarLong(in);
+        String favoriteColor = in.readBoolean() ? in.readUTF() : null;
+        boolean receiveNewsletter = in.readBoolean();
+        long encodedCount = readVarLong(in);
+        long[] ids = null;
+        if (encodedCount > 0) {
+            ids = new long[Math.toIntExact(encodedCount - 1)];
+            long previous = 0;
+            for (int i = 0; i < ids.length; i++) {
+                previous += readVarLong(in);
+                ids[i] = previous;
+            }
+        }
+        return new SessionProfileSnapshot(encodedId == 0 ? null : encodedId - 1, changeStamp, favoriteColor, receiveNewsletter, ids);
+    }
+
+    private void writeAuthentication(DataOutputStream out, OutputStream outputStream, Authentication authentication) throws IOException {
+        if (authentication == null) {
+            out.writeByte(AUTH_NONE);
+            return;
+        }
+        if (isCompact(authentication)) {
+            if (authentication.getPrincipal() instanceof DSUserDetails userDetails) {
+                out.writeByte(AUTH_USER_DETAILS);
+                writeVarLong(out, userDetails.getUser().getId());
+            } else {
+                org.springframework.security.core.userdetails.User user = (org.springframework.security.core.userdetails.User) authentication
+                        .getPrincipal();
+                out.writeByte(AUTH_USERNAME);
+                out.writeUTF(user.getUsername());
+                out.writeByte((user.isEnabled() ? 1 : 0) | (user.isAccountNonExpired() ? 2 : 0) | (user.isCredentialsNonExpired() ? 4 : 0)
+                        | (user.isAccountNonLocked() ? 8 : 0));
+            }
+            writeVarLong(out, authentication.getAuthorities().size());
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                out.writeUTF(authority.getAuthority());
+            }
+            compactSecurityContexts.increment();
+            return;
+        }
+        out.writeByte(AUTH_JAVA);
+        out.flush();
+        DeflaterOutputStream deflated = new DeflaterOutputStream(outputStream);
+        writeJava(deflated, authentication);
+        deflated.finish();
+        javaSecurityContexts.increment();
+    }
+
+    /** Whether the principal name and authority strings are all there is to rebuild. */
+    private static boolean isCompact(Authentication authentication) {
+        if (authentication.getClass() != UsernamePasswordAuthenticationToken.class || !authentication.isAuthenticated()
+                || authentication.getCredentials() != null) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getClass() != SimpleGrantedAuthority.class) {
+                return false;
+            }
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal != null && principal.getClass() == DSUserDetails.class) {
+            User user = ((DSUserDetails) principal).getUser();
+            return user != null && user.getId() != null;
+        }
+        return principal != null && principal.getClass() == org.springframework.security.core.userdetails.User.class;
+    }
+
+    private SecurityContextImpl readSecurityContext(DataInputStream in, InputStream inputStream) throws IOException {
+        byte form = in.readByte();
+        return switch (form) {
+            case AUTH_NONE -> new SecurityContextImpl();
+            case AUTH_USER_DETAILS -> readUserDetailsContext(in);
+            case AUTH_USERNAME -> readUsernameContext(in);
+            case AUTH_JAVA -> new SecurityContextImpl((Authentication) readJava(new InflaterInputStream(inputStream)));
+            default -> throw new IOException("Unknown security context form " + form);
+        };
+    }
+
+    private SecurityContextImpl readUserDetailsContext(DataInputStream in) throws IOException {
+        long userId = readVarLong(in);
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        User user = userLoader.apply(userId);
+        if (user == null) {
+            return new SecurityContextImpl();
+        }
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(new DSUserDetails(user, authorities), null, authorities));
+    }
+
+    private static SecurityContextImpl readUsernameContext(DataInputStream in) throws IOException {
+        String username = in.readUTF();
+        int flags = in.readUnsignedByte();
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        org.springframework.security.core.userdetails.User user = new org.springframework.security.core.userdetails.User(username, "",
+                (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0, authorities);
+        user.eraseCredentials();
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, authorities));
+    }
+
+    private static List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        int count = Math.toIntExact(readVarLong(in));
+        List<GrantedAuthority> authorities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+        }
+        return List.copyOf(authorities);
+    }
+
+    /** Unsigned LEB128: seven bits per byte, high bit set on every byte but the last. */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    private static void writeJava(OutputStream outputStream, Object value) throws IOException {
+        ObjectOutputStream out = new ObjectOutputStream(outputStream);
+        out.writeObject(value);
+        out.flush();
+    }
+
+    private static Object readJava(InputStream inputStream) throws IOException {
+        try {
+            // Resolve against the application class loader, which under DevTools is the restart loader
+            return new ConfigurableObjectInputStream(inputStream, CompactSessionSerializer.class.getClassLoader()).readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Session attribute class is not available", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import com.digitalsanctuary.spring.demo.user.profile.session.SessionProfileSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Wraps the JDBC session repository so that setting the session profile back unchanged writes nothing.
+ *
+ * <p>
+ * Spring's session scope sets every session-scoped bean that a request touched back on the session when the request ends,
+ * whether or not it changed, so without this check the {@link DemoSessionProfile} would be rewritten on every page view. The
+ * first read of a profile records the {@link SessionProfileSnapshot} it holds; a later set of the profile is passed on only if
+ * its snapshot no longer equals that one, compared by value, so nothing is encoded to decide. Other attributes are set by
+ * application code only when they change and are passed straight through. Passed-on and skipped profile sets are counted in
+ * the {@code sessions.attribute.writes} metric, tagged {@code result=written} or {@code result=skipped}.
+ * </p>
+ */
+public class DirtyCheckingSessionRepository implements FindByIndexNameSessionRepository<DirtyCheckingSessionRepository.TrackedSession> {
+
+    private final FindByIndexNameSessionRepository<Session> delegate;
+    private final Counter written;
+    private final Counter skipped;
+
+    @SuppressWarnings("unchecked")
+    public DirtyCheckingSessionRepository(FindByIndexNameSessionRepository<? extends Session> delegate, MeterRegistry meterRegistry) {
+        this.delegate = (FindByIndexNameSessionRepository<Session>) delegate;
+        this.written = Counter.builder("sessions.attribute.writes").tag("result", "written").register(meterRegistry);
+        this.skipped = Counter.builder("sessions.attribute.writes").tag("result", "skipped").register(meterRegistry);
+    }
+
+    @Override
+    public TrackedSession createSession() {
+        return new TrackedSession(delegate.createSession());
+    }
+
+    @Override
+    public void save(TrackedSession session) {
+        delegate.save(session.delegate);
+    }
+
+    @Override
+    public TrackedSession findById(String id) {
+        Session session = delegate.findById(id);
+        return session != null ? new TrackedSession(session) : null;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+    }
+
+    @Override
+    public Map<String, TrackedSession> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, TrackedSession> sessions = new LinkedHashMap<>();
+        delegate.findByIndexNameAndIndexValue(indexName, indexValue).forEach((id, session) -> sessions.put(id, new TrackedSession(session)));
+        return sessions;
+    }
+
+    /**
+     * A session that remembers the snapshot of each session profile as first read and drops sets that would not change it.
+     */
+    public final class TrackedSession implements Session {
+
+        private final Session delegate;
+        private final Map<String, SessionProfileSnapshot> readSnapshots = new HashMap<>();
+
+        private TrackedSession(Session delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            T value = delegate.getAttribute(attributeName);
+            if (value instanceof DemoSessionProfile profile && !readSnapshots.containsKey(attributeName)) {
+                readSnapshots.put(attributeName, profile.getSnapshot());
+            }
+            return value;
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            if (!(attributeValue instanceof DemoSessionProfile profile)) {
+                readSnapshots.remove(attributeName);
+                delegate.setAttribute(attributeName, attributeValue);
+                return;
+            }
+            SessionProfileSnapshot current = profile.getSnapshot();
+            if (readSnapshots.containsKey(attributeName) && Objects.equals(readSnapshots.get(attributeName), current)) {
+                skipped.increment();
+                return;
+            }
+            readSnapshots.put(attributeName, current);
+            written.increment();
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            readSnapshots.remove(attributeName);
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
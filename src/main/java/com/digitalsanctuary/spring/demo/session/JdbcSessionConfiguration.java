@@ -0,0 +1,119 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import java.time.Duration;
+import java.util.Locale;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.datasource.init.DataSourceInitializer;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.session.FlushMode;
+import org.springframework.session.SaveMode;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.session.jdbc.config.annotation.web.http.EnableJdbcHttpSession;
+import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores HTTP sessions in the application's datasource instead of the servlet container, so any instance behind the load
+ * balancer can serve any request and losing a node logs nobody out. Active under the {@code jdbc-session} profile.
+ *
+ * <p>
+ * Session attributes, including the session-scoped {@link DemoSessionProfile} and the security context, are encoded with
+ * {@link CompactSessionSerializer}. Writes are limited to attributes that actually changed: Spring Session only writes the
+ * attributes that were set ({@code SaveMode.ON_SET_ATTRIBUTE}), and {@link DirtyCheckingSessionRepository} drops sets of the
+ * session profile that leave its snapshot unchanged. A request that changes nothing then costs one row read plus the last-access update.
+ * </p>
+ *
+ * <p>
+ * Properties under {@code app.sessions.jdbc}: {@code flushMode} ({@code on-save}, the default, writes once when the request
+ * completes; {@code immediate} writes on every change), {@code maxInactiveInterval} (default {@code PT30M}), and
+ * {@code initializeSchema}/{@code platform}, which run Spring Session's {@code schema-<platform>.sql} at startup. The expired
+ * session cleanup runs on {@code app.sessions.jdbc.cleanupCron} (default every minute).
+ * </p>
+ */
+@Slf4j
+@Configuration
+@Profile("jdbc-session")
+@EnableJdbcHttpSession(cleanupCron = "${app.sessions.jdbc.cleanupCron:0 * * * * *}")
+public class JdbcSessionConfiguration {
+
+    /**
+     * Rebuilds session profiles as beans wired by the application context, so a profile read on another node has its
+     * repositories, and login principals around the user's current record.
+     */
+    @Bean
+    public CompactSessionSerializer compactSessionSerializer(AutowireCapableBeanFactory beanFactory, UserRepository userRepository,
+            MeterRegistry meterRegistry) {
+        return new CompactSessionSerializer(snapshot -> {
+            DemoSessionProfile profile = new DemoSessionProfile();
+            beanFactory.autowireBean(profile);
+            profile.setSnapshot(snapshot);
+            return profile;
+        }, userId -> userRepository.findById(userId).orElse(null), meterRegistry);
+    }
+
+    /**
+     * Picked up by name by Spring Session to convert attribute values to and from the {@code ATTRIBUTE_BYTES} column.
+     */
+    @Bean
+    public ConversionService springSessionConversionService(CompactSessionSerializer compactSessionSerializer) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter(compactSessionSerializer));
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter(compactSessionSerializer));
+        return conversionService;
+    }
+
+    @Bean
+    public SessionRepositoryCustomizer<JdbcIndexedSessionRepository> jdbcSessionRepositoryCustomizer(
+            @Value("${app.sessions.jdbc.flushMode:on-save}") String flushMode,
+            @Value("${app.sessions.jdbc.maxInactiveInterval:PT30M}") Duration maxInactiveInterval) {
+        FlushMode mode = FlushMode.valueOf(flushMode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        log.info("JDBC sessions: flush mode {}, max inactive interval {}", mode, maxInactiveInterval);
+        return repository -> {
+            repository.setFlushMode(mode);
+            repository.setSaveMode(SaveMode.ON_SET_ATTRIBUTE);
+            repository.setDefaultMaxInactiveInterval(maxInactiveInterval);
+        };
+    }
+
+    /**
+     * The repository the session filter uses: the JDBC repository behind a dirty check.
+     */
+    @Bean
+    @Primary
+    public DirtyCheckingSessionRepository dirtyCheckingSessionRepository(JdbcIndexedSessionRepository sessionRepository,
+            MeterRegistry meterRegistry) {
+        return new DirtyCheckingSessionRepository(sessionRepository, meterRegistry);
+    }
+
+    /**
+     * Creates the session tables. Spring Session's scripts have no {@code IF NOT EXISTS}, so errors from tables that are already
+     * there are ignored.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.sessions.jdbc.initializeSchema", havingValue = "true")
+    public DataSourceInitializer jdbcSessionSchemaInitializer(DataSource dataSource,
+            @Value("${app.sessions.jdbc.platform:mariadb}") String platform) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("org/springframework/session/jdbc/schema-" + platform + ".sql"));
+        populator.setContinueOnError(true);
+        DataSourceInitializer initializer = new DataSourceInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.setDatabasePopulator(populator);
+        return initializer;
+    }
+}
@@ -0,0 +1,249 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.InteractiveAuthenticationSuccessEvent;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.digitalsanctuary.spring.user.event.UserPreDeleteEvent;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import com.digitalsanctuary.spring.user.service.DSUserDetails;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionIdListener;
+import jakarta.servlet.http.HttpSessionListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Finds and ends the HTTP sessions of one user without walking every session on the instance.
+ *
+ * <p>
+ * Each login records the session under the user's id in a concurrent map of user id to session ids, next to a map of session
+ * id to session. Session fixation protection renaming a session moves its entry, and a session ending by logout, timeout or
+ * invalidation removes it, so the maps hold exactly the live sessions of logged-in users. Ending a user's sessions then costs
+ * one map lookup plus one invalidation per session that user has, however many other sessions are live.
+ * </p>
+ *
+ * <p>
+ * Sessions are ended when an admin locks the account ({@code AdminAPIController}), when the account is deleted, and
+ * wherever the framework ends them itself, such as after a password change or reset, through
+ * {@code CustomSessionInvalidationService}. The session making the request is kept for deletions; the framework already
+ * handles it. Under the {@code jdbc-session} profile no container session events fire,
+ * so nothing is recorded here and sessions are found through Spring Session's principal name index instead, which is an
+ * indexed column of the session table. The number of tracked sessions is published as {@code sessions.registry.tracked}.
+ * </p>
+ *
+ * <p>
+ * The user behind a login is the {@link DSUserDetails} principal's user, or, for an OAuth2 or OIDC principal of another type,
+ * the user with the principal's {@code email} attribute. Spring Session would otherwise index a session under
+ * {@code Authentication#getName()}, which for OAuth2 and OIDC is the provider's subject rather than the email, so each login
+ * sets the index value to {@code user-id:<id>} instead. Sessions logged in without an interactive login event, such as the
+ * automatic login after registration, keep the default index, so the user's email is looked up as well.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UserSessionRegistry implements HttpSessionListener, HttpSessionIdListener {
+
+    private final ObjectProvider<FindByIndexNameSessionRepository<?>> indexedSessionRepository;
+    private final UserRepository userRepository;
+    private final Map<Long, Set<String>> sessionIdsByUser = new ConcurrentHashMap<>();
+    private final Map<String, TrackedSession> sessions = new ConcurrentHashMap<>();
+
+    /** A live session and the user logged in on it. */
+    private record TrackedSession(Long userId, HttpSession session) {
+    }
+
+    public UserSessionRegistry(ObjectProvider<FindByIndexNameSessionRepository<?>> indexedSessionRepository, UserRepository userRepository,
+            MeterRegistry meterRegistry) {
+        this.indexedSessionRepository = indexedSessionRepository;
+        this.userRepository = userRepository;
+        Gauge.builder("sessions.registry.tracked", sessions, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Records the current request's session under the user who just logged in, or indexes it by the user's id when sessions are
+     * stored by Spring Session.
+     */
+    @EventListener
+    public void onInteractiveAuthenticationSuccess(InteractiveAuthenticationSuccessEvent event) {
+        Long userId = resolveUserId(event.getAuthentication().getPrincipal());
+        if (userId == null || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpSession session = attributes.getRequest().getSession();
+        if (indexedSessionRepository.getIfAvailable() != null) {
+            session.setAttribute(FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME, principalIndexName(userId));
+        } else {
+            register(userId, session);
+        }
+    }
+
+    /**
+     * Ends the user's other sessions before the account is deleted, so none outlives it.
+     */
+    @EventListener
+    public void onUserPreDelete(UserPreDeleteEvent event) {
+        userRepository.findById(event.getUserId()).ifPresent(user -> {
+            int ended = invalidateSessions(user, currentSessionId());
+            log.info("Ended {} other session(s) of deleted user {}", ended, user.getId());
+        });
+    }
+
+    /**
+     * Records a session as belonging to a user.
+     *
+     * @param userId the user's id
+     * @param session the session the user is logged in on
+     */
+    public void register(Long userId, HttpSession session) {
+        if (userId == null || session == null) {
+            return;
+        }
+        TrackedSession previous = sessions.put(session.getId(), new TrackedSession(userId, session));
+        if (previous != null && !previous.userId().equals(userId)) {
+            removeSessionId(previous.userId(), session.getId());
+        }
+        // Adds inside compute, so a concurrent removal of the user's last session cannot drop the set this id goes into
+        sessionIdsByUser.compute(userId, (id, sessionIds) -> {
+            Set<String> ids = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+            ids.add(session.getId());
+            return ids;
+        });
+    }
+
+    /**
+     * Ends every session of the user except {@code keepSessionId}.
+     *
+     * @param user the user
+     * @param keepSessionId a session to leave alone, usually the one making the request, or {@code null}
+     * @return the number of sessions ended
+     */
+    public int invalidateSessions(User user, String keepSessionId) {
+        if (user == null || user.getId() == null) {
+            return 0;
+        }
+        FindByIndexNameSessionRepository<?> repository = indexedSessionRepository.getIfAvailable();
+        if (repository != null) {
+            return deleteIndexedSessions(repository, user, keepSessionId);
+        }
+        Set<String> sessionIds = sessionIdsByUser.get(user.getId());
+        if (sessionIds == null) {
+            return 0;
+        }
+        int ended = 0;
+        for (String sessionId : List.copyOf(sessionIds)) {
+            if (sessionId.equals(keepSessionId)) {
+                continue;
+            }
+            TrackedSession tracked = sessions.get(sessionId);
+            if (tracked != null) {
+                try {
+                    tracked.session().invalidate();
+                    ended++;
+                } catch (IllegalStateException e) {
+                    // Already invalidated; its destroy callback may not have run yet
+                }
+            }
+            forget(sessionId);
+        }
+        return ended;
+    }
+
+    /**
+     * @param userId the user's id
+     * @return the ids of the user's live sessions on this instance
+     */
+    public Set<String> getSessionIds(Long userId) {
+        Set<String> sessionIds = sessionIdsByUser.get(userId);
+        return sessionIds == null ? Set.of() : Set.copyOf(sessionIds);
+    }
+
+    /**
+     * @return the number of sessions tracked on this instance
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent event) {
+        forget(event.getSession().getId());
+    }
+
+    @Override
+    public void sessionIdChanged(HttpSessionEvent event, String oldSessionId) {
+        TrackedSession tracked = sessions.get(oldSessionId);
+        if (tracked != null) {
+            forget(oldSessionId);
+            register(tracked.userId(), event.getSession());
+        }
+    }
+
+    private void forget(String sessionId) {
+        TrackedSession tracked = sessions.remove(sessionId);
+        if (tracked != null) {
+            removeSessionId(tracked.userId(), sessionId);
+        }
+    }
+
+    private void removeSessionId(Long userId, String sessionId) {
+        sessionIdsByUser.computeIfPresent(userId, (id, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    private static int deleteIndexedSessions(FindByIndexNameSessionRepository<?> repository, User user, String keepSessionId) {
+        Set<String> sessionIds = new LinkedHashSet<>(repository.findByPrincipalName(principalIndexName(user.getId())).keySet());
+        if (user.getEmail() != null) {
+            sessionIds.addAll(repository.findByPrincipalName(user.getEmail()).keySet());
+        }
+        int ended = 0;
+        for (String sessionId : sessionIds) {
+            if (!sessionId.equals(keepSessionId)) {
+                repository.deleteById(sessionId);
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * @param userId the user's id
+     * @return the principal name index value of the user's sessions
+     */
+    static String principalIndexName(Long userId) {
+        return "user-id:" + userId;
+    }
+
+    private Long resolveUserId(Object principal) {
+        if (principal instanceof DSUserDetails userDetails) {
+            return userDetails.getUser() != null ? userDetails.getUser().getId() : null;
+        }
+        if (principal instanceof OAuth2AuthenticatedPrincipal oauth2Principal && oauth2Principal.getAttribute("email") instanceof String email) {
+            User user = userRepository.findByEmail(email);
+            return user != null ? user.getId() : null;
+        }
+        return null;
+    }
+
+    private static String currentSessionId() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpSession session = attributes.getRequest().getSession(false);
+            return session != null ? session.getId() : null;
+        }
+        return null;
+    }
+}
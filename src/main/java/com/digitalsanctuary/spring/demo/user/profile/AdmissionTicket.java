@@ -0,0 +1,60 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+/**
+ * A registration accepted into {@link RegistrationAdmissionQueue} and not necessarily written yet. The client polls it until
+ * its status is no longer {@link #QUEUED}.
+ */
+@Getter
+public class AdmissionTicket {
+
+    /** Status of a ticket whose registration has not been written yet. */
+    public static final String QUEUED = "QUEUED";
+
+    /** Status of a ticket whose registration could not be written; the client may try again. */
+    public static final String FAILED = "FAILED";
+
+    private final String id;
+    private final Long eventId;
+    @JsonIgnore
+    private final Long profileId;
+    @JsonIgnore
+    private volatile RegistrationResult result;
+    @JsonIgnore
+    private volatile boolean failed;
+
+    public AdmissionTicket(String id, Long eventId, Long profileId) {
+        this.id = id;
+        this.eventId = eventId;
+        this.profileId = profileId;
+    }
+
+    /**
+     * @return {@link #QUEUED}, {@link #FAILED} or the name of the {@link RegistrationResult}
+     */
+    public String getStatus() {
+        if (failed) {
+            return FAILED;
+        }
+        RegistrationResult current = result;
+        return current == null ? QUEUED : current.name();
+    }
+
+    /**
+     * @return whether the registration has been written or has failed
+     */
+    @JsonIgnore
+    public boolean isDone() {
+        return failed || result != null;
+    }
+
+    void complete(RegistrationResult result) {
+        this.result = result;
+    }
+
+    void fail() {
+        this.failed = true;
+    }
+}
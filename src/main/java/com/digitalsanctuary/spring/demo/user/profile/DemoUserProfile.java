@@ -3,14 +3,17 @@ package com.digitalsanctuary.spring.demo.user.profile;
 import java.util.ArrayList;
 import java.util.List;
 import com.digitalsanctuary.spring.demo.event.Event;
+import org.hibernate.annotations.ColumnDefault;
 import com.digitalsanctuary.spring.user.profile.BaseUserProfile;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
@@ -19,12 +22,28 @@ import lombok.EqualsAndHashCode;
 public class DemoUserProfile extends BaseUserProfile {
 
 
-    @OneToMany(mappedBy = "userProfile", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    /**
+     * Loaded on first access only, so reading a profile does not also read every registration and its event. Outside a
+     * transaction, read registrations through {@link EventRegistrationRepository} instead.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "userProfile", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<EventRegistration> eventRegistrations = new ArrayList<>();
 
     private String favoriteColor;
     private boolean receiveNewsletter;
 
+    /**
+     * Bumped by {@link DemoUserProfileService} in the same transaction as every change to the profile or its registrations, so
+     * a session can tell with one primary-key read whether its copy is current. Never written by JPA inserts and updates; only
+     * {@link DemoUserProfileRepository#bumpChangeStamps} changes it.
+     */
+    @EqualsAndHashCode.Exclude
+    @ColumnDefault("0")
+    @Column(name = "change_stamp", nullable = false, insertable = false, updatable = false)
+    private long changeStamp;
+
     public void addEventRegistration(EventRegistration registration) {
         eventRegistrations.add(registration);
         registration.setUserProfile(this);
@@ -44,6 +63,13 @@ public class DemoUserProfile extends BaseUserProfile {
         return registration;
     }
 
+    /**
+     * Walks the registration list, loading it if needed.
+     *
+     * @deprecated Use {@code DemoSessionProfile#isRegisteredForEvent(Long)}, which checks a set of ids without loading any
+     *             registration.
+     */
+    @Deprecated
     public boolean isRegisteredForEvent(Event event) {
         return eventRegistrations.stream().anyMatch(reg -> reg.getEvent().equals(event));
     }
@@ -52,6 +78,13 @@ public class DemoUserProfile extends BaseUserProfile {
         eventRegistrations.removeIf(reg -> reg.getEvent().getId().equals(eventId));
     }
 
+    /**
+     * Walks the registration list, loading it if needed.
+     *
+     * @deprecated Use {@code DemoSessionProfile#isRegisteredForEvent(Long)}, which checks a set of ids without loading any
+     *             registration.
+     */
+    @Deprecated
     public boolean isRegisteredForEvent(Long eventId) {
         return eventRegistrations.stream().anyMatch(reg -> reg.getEvent().getId().equals(eventId));
     }
@@ -1,9 +1,53 @@
 package com.digitalsanctuary.spring.demo.user.profile;
 
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface DemoUserProfileRepository extends JpaRepository<DemoUserProfile, Long> {
     Optional<DemoUserProfile> findByUserId(Long userId);
 
+    /**
+     * Creates a user's profile if it does not exist yet, in one statement that neither reads the profile first nor loads the
+     * user, selecting from a one-row derived table so the statement also runs on PostgreSQL. The profile's id is the user's id.
+     * Two concurrent calls for a new user can both pass the {@code NOT EXISTS}; the primary key rejects the second one with a
+     * {@link org.springframework.dao.DataIntegrityViolationException}, as does a user id with no user.
+     *
+     * @param userId the user id
+     * @return {@code 1} if the profile was created, {@code 0} if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO demo_user_profile (user_id, receive_newsletter)
+            SELECT seed.user_id, FALSE FROM (SELECT :userId AS user_id) seed
+            WHERE NOT EXISTS (SELECT 1 FROM demo_user_profile p WHERE p.user_id = seed.user_id)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    /**
+     * Reads a profile's change stamp without hydrating the profile.
+     *
+     * @param id the profile id
+     * @return the stamp, or empty if the profile does not exist
+     */
+    @Query("SELECT p.changeStamp FROM DemoUserProfile p WHERE p.id = :id")
+    Optional<Long> findChangeStampById(@Param("id") Long id);
+
+    /**
+     * Bumps the change stamp of several profiles in a single {@code UPDATE}. Run it in the transaction that makes the change, so
+     * the new stamp is visible exactly when the change is.
+     *
+     * @param ids the profile ids
+     * @return the number of profiles bumped
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DemoUserProfile p SET p.changeStamp = p.changeStamp + 1 WHERE p.id IN :ids")
+    int bumpChangeStamps(@Param("ids") Collection<Long> ids);
+
 }
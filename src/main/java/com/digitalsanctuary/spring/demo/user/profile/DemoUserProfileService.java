@@ -1,11 +1,29 @@
 package com.digitalsanctuary.spring.demo.user.profile;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventCursor;
 import com.digitalsanctuary.spring.demo.event.EventRepository;
+import com.digitalsanctuary.spring.demo.event.EventService;
+import com.digitalsanctuary.spring.demo.event.EventSummary;
+import com.digitalsanctuary.spring.demo.event.EventSummaryPage;
 import com.digitalsanctuary.spring.user.persistence.model.User;
-import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
 import com.digitalsanctuary.spring.user.profile.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -81,8 +99,8 @@ import lombok.extern.slf4j.Slf4j;
  * </p>
  *
  * <ul>
- * <li>{@link #getOrCreateProfile(User)}: Ensures that every {@link User} has an associated profile, creating a new one if none exists. Demonstrates
- * how to fetch and persist entities using Spring Data repositories.</li>
+ * <li>{@link #getOrCreateProfile(User)}: Ensures that every {@link User} has an associated profile with one insert-if-absent statement, and
+ * returns an unloaded reference so the session can load the profile when it is first needed.</li>
  * <li>{@link #updateProfile(DemoUserProfile)}: Saves updated profile data to the database, with null checks for safety.</li>
  * <li>{@link #registerForEvent(DemoUserProfile, Event)}: A custom extension method that links an event to a user profile, showcasing how to add
  * application-specific functionality.</li>
@@ -113,37 +131,46 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class DemoUserProfileService implements UserProfileService<DemoUserProfile> {
 
+    /** Upper bound on the operations in one {@link #applyRegistrationChanges} call. */
+    public static final int MAX_REGISTRATION_CHANGES = 100;
+
     private final DemoUserProfileRepository profileRepository;
-    private final UserRepository userRepository;
+    private final EventRegistrationRepository eventRegistrationRepository;
+    private final EventWaitlistRepository eventWaitlistRepository;
+    private final WaitlistIndex waitlistIndex;
     private final EventRepository eventRepository;
+    private final EventService eventService;
+    private final TransactionTemplate transactionTemplate;
 
     /**
-     * Retrieves an existing profile for the given user or creates a new one if none exists.
+     * Makes sure the user has a profile and returns an unloaded reference to it. Called on every successful login.
+     *
+     * <p>
+     * The profile is created if needed with a single insert-if-absent statement, and nothing is read: the returned reference
+     * carries only the id, which is the user's id. {@code DemoSessionProfile} records just that id and reads the profile the
+     * first time a page needs one of its fields, so logging in costs one statement however large the profile is. A concurrent
+     * first login for the same user that loses the race on the primary key is harmless.
+     * </p>
      *
      * @param user the user to get or create a profile for
-     * @return the existing or newly created profile
-     * @throws IllegalArgumentException if the user is null or not found
+     * @return a reference to the user's profile; its fields are loaded on first access inside a transaction
+     * @throws IllegalArgumentException if the user is null
      */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public DemoUserProfile getOrCreateProfile(User user) {
-        if (user == null) {
+        if (user == null || user.getId() == null) {
             throw new IllegalArgumentException("User must not be null");
         }
-        return profileRepository.findByUserId(user.getId()).orElseGet(() -> createAndSaveProfile(user));
-    }
-
-    /**
-     * Creates and saves a new profile for the given user.
-     *
-     * @param user the user for whom the profile is being created
-     * @return the newly created and persisted profile
-     */
-    private DemoUserProfile createAndSaveProfile(User user) {
-        User managedUser = userRepository.findById(user.getId()).orElseThrow(() -> new IllegalArgumentException("User not found"));
-
-        DemoUserProfile profile = new DemoUserProfile();
-        profile.setUser(managedUser);
-        return profileRepository.save(profile);
+        try {
+            if (profileRepository.insertIfAbsent(user.getId()) > 0) {
+                log.debug("Created profile for user {}", user.getId());
+            }
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent login created it first, or the user is gone; either way there is nothing to create
+            log.debug("Profile for user {} was not created: {}", user.getId(), e.getMessage());
+        }
+        return profileRepository.getReferenceById(user.getId());
     }
 
     /**
@@ -158,41 +185,196 @@ public class DemoUserProfileService implements UserProfileService<DemoUserProfil
         if (profile == null) {
             throw new IllegalArgumentException("Profile must not be null");
         }
-        return profileRepository.save(profile);
+        DemoUserProfile saved = profileRepository.save(profile);
+        bumpChangeStamp(saved.getId());
+        return saved;
     }
 
     /**
-     * Registers a user profile for a specific event using IDs to ensure entities are managed.
-     * 
+     * Bumps a profile's change stamp, so sessions holding a copy of it reload on their next
+     * {@code DemoSessionProfile#refreshProfile()}. Runs inside the transaction making the change.
+     */
+    private void bumpChangeStamp(Long profileId) {
+        if (profileId != null) {
+            profileRepository.bumpChangeStamps(List.of(profileId));
+        }
+    }
+
+    /**
+     * Reads the change stamp of the profile making a change, at the end of the transaction making it, so its session can
+     * record the stamp its own change produced. One primary-key read of a single column.
+     */
+    private long readChangeStamp(Long profileId) {
+        return profileRepository.findChangeStampById(profileId).orElse(ProfileUpdate.UNCHANGED);
+    }
+
+    /**
+     * Registers a user profile for a specific event, or puts it on the event's waitlist if no seat is left.
+     *
      * <p>
-     * This method loads the profile and event as managed entities within the transaction,
-     * avoiding issues with detached entities and cascade operations.
-     * 
+     * The seat is taken first, with {@link EventRepository#claimSeat}, a conditional {@code UPDATE} on the event's counter. The
+     * capacity check and increment are one statement, so concurrent registrations cannot oversell, and the event row stays
+     * locked only until the commit that immediately follows. The registration is then written with a single
+     * insert-if-absent statement, so neither the profile with its registrations nor the event is loaded and the cost does not
+     * depend on how many events the profile is registered for. Calling this again, or concurrently, for the same pair is
+     * harmless: the unique constraint on {@code (user_profile_id, event_id)} keeps a second row out, the transaction is rolled
+     * back so the seat it claimed is given back, and the call reports that the profile was already registered.
+     * </p>
+     *
+     * <p>
+     * The order matters on InnoDB. The insert's foreign key check takes a shared lock on the event row, and two registrations
+     * that each held that shared lock and then wanted the exclusive lock of the {@code UPDATE} would deadlock. Claiming first
+     * takes the exclusive lock up front, so concurrent registrations for one event queue on it instead, the same order
+     * {@link #registerForEventInOrder} and {@link #applyRegistrationChanges} use. The profile's change stamp is bumped before
+     * the insert for the same reason: the insert's foreign key check also share-locks the profile row.
+     * </p>
+     *
+     * <p>
+     * If no seat is left, the event row is locked and the seat claim retried once, so this call is ordered against any
+     * {@link #unregisterFromEvent(Long, Long) unregistration} that is promoting from the waitlist. If the event is still full,
+     * the profile joins the end of the waitlist, once, unless it turns out to be registered already.
+     * </p>
+     *
+     * <p>
+     * Runs outside any caller transaction, in its own, because a rejected insert would otherwise mark the surrounding
+     * transaction rollback-only.
+     * </p>
+     *
      * @param profileId the ID of the profile to register for the event
      * @param eventId the ID of the event to register for
-     * @return the updated profile with the event registration
+     * @return whether the profile was registered, already registered, or waitlisted
      * @throws IllegalArgumentException if the profile or event is not found
      */
-    @Transactional
-    public DemoUserProfile registerForEvent(Long profileId, Long eventId) {
-        // Load managed entities within the transaction
-        DemoUserProfile profile = profileRepository.findById(profileId)
-            .orElseThrow(() -> new IllegalArgumentException("Profile not found with id: " + profileId));
-        Event event = eventRepository.findById(eventId)
-            .orElseThrow(() -> new IllegalArgumentException("Event not found with id: " + eventId));
-        
-        // Check if already registered
-        if (profile.isRegisteredForEvent(event)) {
-            log.info("Profile {} is already registered for event {}", profileId, eventId);
-            return profile;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RegistrationResult registerForEvent(Long profileId, Long eventId) {
+        return registerForEventAndStamp(profileId, eventId).result();
+    }
+
+    /**
+     * Registers a profile for an event as {@link #registerForEvent(Long, Long)} does, for the session of the user making the
+     * registration: a new registration also returns the profile's change stamp after it.
+     *
+     * @param profileId the ID of the profile to register for the event
+     * @param eventId the ID of the event to register for
+     * @return the outcome and the profile's new change stamp, which is {@link ProfileUpdate#UNCHANGED} unless registered
+     * @throws IllegalArgumentException if the profile or event is not found
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProfileUpdate<RegistrationResult> registerForEventAndStamp(Long profileId, Long eventId) {
+        long[] waitlistEntryId = new long[1];
+        long[] changeStamp = { ProfileUpdate.UNCHANGED };
+        RegistrationResult result;
+        try {
+            result = transactionTemplate.execute(status -> {
+                if (eventRepository.claimSeat(eventId) == 0) {
+                    // Full: wait for any unregistration that is promoting from the waitlist, then check again
+                    if (eventRepository.findAndLockById(eventId).isEmpty()) {
+                        throw new IllegalArgumentException("Event " + eventId + " not found");
+                    }
+                    if (eventRepository.claimSeat(eventId) == 0) {
+                        if (eventRegistrationRepository.existsByUserProfileIdAndEventId(profileId, eventId)) {
+                            return RegistrationResult.ALREADY_REGISTERED;
+                        }
+                        waitlistEntryId[0] = joinWaitlist(profileId, eventId).getId();
+                        return RegistrationResult.WAITLISTED;
+                    }
+                }
+                bumpChangeStamp(profileId);
+                if (eventRegistrationRepository.insertIfAbsent(profileId, eventId) == 0) {
+                    // Already registered: give back the seat and the stamp
+                    status.setRollbackOnly();
+                    return RegistrationResult.ALREADY_REGISTERED;
+                }
+                changeStamp[0] = readChangeStamp(profileId);
+                return RegistrationResult.REGISTERED;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Either a concurrent call won the race, or the profile or event does not exist
+            if (eventRegistrationRepository.existsByUserProfileIdAndEventId(profileId, eventId)) {
+                result = RegistrationResult.ALREADY_REGISTERED;
+            } else if (eventWaitlistRepository.findByUserProfileIdAndEventId(profileId, eventId).isPresent()) {
+                result = RegistrationResult.WAITLISTED;
+            } else {
+                throw new IllegalArgumentException("Profile " + profileId + " or event " + eventId + " not found", e);
+            }
         }
-        
-        EventRegistration registration = new EventRegistration();
-        registration.setEvent(event);
-        profile.addEventRegistration(registration);
-        
-        // No explicit save needed - transaction will persist changes to managed entities
-        return profile;
+        switch (result) {
+            case ALREADY_REGISTERED -> log.info("Profile {} is already registered for event {}", profileId, eventId);
+            case WAITLISTED -> {
+                log.info("Event {} is full; profile {} is on the waitlist", eventId, profileId);
+                if (waitlistEntryId[0] != 0) {
+                    waitlistIndex.add(eventId, waitlistEntryId[0]);
+                }
+            }
+            case REGISTERED -> eventService.recordRegistrationChange(eventId, 1);
+        }
+        return new ProfileUpdate<>(result, changeStamp[0]);
+    }
+
+    /**
+     * Registers several profiles for one event in a single transaction, in the given order, as
+     * {@link RegistrationAdmissionQueue}'s writer does for a hot event. Each profile gets the same outcome it would get from
+     * {@link #registerForEvent(Long, Long)}, but the event row is locked once for the whole batch and there is one commit
+     * instead of one per registration. Once a seat claim fails the remaining profiles go straight to the waitlist.
+     *
+     * <p>
+     * Any failure, such as a profile that does not exist, rolls back the whole batch.
+     * </p>
+     *
+     * @param eventId the ID of the event to register for
+     * @param profileIds the IDs of the profiles to register, first come first served
+     * @return the outcome for each profile, in the same order
+     * @throws IllegalArgumentException if the event is not found
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<RegistrationResult> registerForEventInOrder(Long eventId, List<Long> profileIds) {
+        List<Long> waitlistEntryIds = new ArrayList<>();
+        List<RegistrationResult> results = transactionTemplate.execute(status -> {
+            if (eventRepository.findAndLockById(eventId).isEmpty()) {
+                throw new IllegalArgumentException("Event " + eventId + " not found");
+            }
+            List<RegistrationResult> batch = new ArrayList<>(profileIds.size());
+            List<Long> registered = new ArrayList<>();
+            boolean full = false;
+            for (Long profileId : profileIds) {
+                if (eventRegistrationRepository.insertIfAbsent(profileId, eventId) == 0) {
+                    batch.add(RegistrationResult.ALREADY_REGISTERED);
+                } else if (!full && eventRepository.claimSeat(eventId) > 0) {
+                    batch.add(RegistrationResult.REGISTERED);
+                    registered.add(profileId);
+                } else {
+                    full = true;
+                    eventRegistrationRepository.deleteByProfileIdAndEventId(profileId, eventId);
+                    waitlistEntryIds.add(joinWaitlist(profileId, eventId).getId());
+                    batch.add(RegistrationResult.WAITLISTED);
+                }
+            }
+            if (!registered.isEmpty()) {
+                profileRepository.bumpChangeStamps(registered);
+            }
+            return batch;
+        });
+        log.info("Registered a batch of {} profiles for event {}", profileIds.size(), eventId);
+        waitlistEntryIds.forEach(entryId -> waitlistIndex.add(eventId, entryId));
+        int registered = (int) results.stream().filter(result -> result == RegistrationResult.REGISTERED).count();
+        if (registered > 0) {
+            eventService.recordRegistrationChange(eventId, registered);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the profile's existing waitlist entry for the event, or adds one at the end of the queue. Runs inside the
+     * registration transaction, with the event row locked.
+     */
+    private EventWaitlistEntry joinWaitlist(Long profileId, Long eventId) {
+        return eventWaitlistRepository.findByUserProfileIdAndEventId(profileId, eventId).orElseGet(() -> {
+            EventWaitlistEntry entry = new EventWaitlistEntry();
+            entry.setUserProfile(profileRepository.getReferenceById(profileId));
+            entry.setEvent(eventRepository.getReferenceById(eventId));
+            entry.setJoinedAt(Instant.now());
+            return eventWaitlistRepository.saveAndFlush(entry);
+        });
     }
 
     /**
@@ -209,7 +391,7 @@ public class DemoUserProfileService implements UserProfileService<DemoUserProfil
      * @throws IllegalArgumentException if the profile or event is null
      */
     @Deprecated
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // The ID-based method runs and handles its own transaction
     public DemoUserProfile registerForEvent(DemoUserProfile profile, Event event) {
         if (profile == null) {
             throw new IllegalArgumentException("Profile must not be null");
@@ -218,31 +400,408 @@ public class DemoUserProfileService implements UserProfileService<DemoUserProfil
             throw new IllegalArgumentException("Event must not be null");
         }
         
-        // Delegate to the ID-based method to ensure we work with managed entities
-        return registerForEvent(profile.getId(), event.getId());
+        // Delegate to the ID-based method, then reload the profile so the returned copy includes the registration
+        registerForEvent(profile.getId(), event.getId());
+        return profileRepository.findById(profile.getId()).orElse(profile);
     }
 
     /**
-     * Unregisters a user profile from a specific event using IDs to ensure entities are managed.
-     * 
+     * Unregisters a user profile from a specific event with a single keyed {@code DELETE}, without loading the profile or the
+     * event, and gives the seat back with {@link EventRepository#releaseSeat} in the same transaction.
+     *
+     * <p>
+     * The freed seat goes straight to the head of the event's waitlist, in the same transaction: the head entry is read with
+     * one seek on the {@code (event_id, id)} index, removed, and registered. The event row stays locked from
+     * {@code releaseSeat} to the commit, so a concurrent registration cannot take the seat from the waiting profile. A profile
+     * that is only on the waitlist is taken off it instead.
+     * </p>
+     *
      * @param profileId the ID of the profile to unregister from the event
      * @param eventId the ID of the event to unregister from
-     * @return the updated profile without the event registration
-     * @throws IllegalArgumentException if the profile or event is not found
+     * @return {@code true} if a registration or waitlist entry was removed, {@code false} if the profile had neither
      */
-    @Transactional
-    public DemoUserProfile unregisterFromEvent(Long profileId, Long eventId) {
-        // Load managed entities within the transaction
-        DemoUserProfile profile = profileRepository.findById(profileId)
-            .orElseThrow(() -> new IllegalArgumentException("Profile not found with id: " + profileId));
-        Event event = eventRepository.findById(eventId)
-            .orElseThrow(() -> new IllegalArgumentException("Event not found with id: " + eventId));
-        
-        profile.removeEventRegistration(event);
-        log.info("Unregistered profile {} from event {}", profileId, eventId);
-        
-        // No explicit save needed - transaction will persist changes to managed entities
-        return profile;
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean unregisterFromEvent(Long profileId, Long eventId) {
+        return unregisterFromEventAndStamp(profileId, eventId).result();
+    }
+
+    /**
+     * Unregisters a profile from an event as {@link #unregisterFromEvent(Long, Long)} does, for the session of the user making
+     * the change: a removed registration also returns the profile's change stamp after it.
+     *
+     * @param profileId the ID of the profile to unregister from the event
+     * @param eventId the ID of the event to unregister from
+     * @return whether anything was removed, and the profile's new change stamp, which is {@link ProfileUpdate#UNCHANGED} unless
+     *         a registration was removed
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProfileUpdate<Boolean> unregisterFromEventAndStamp(Long profileId, Long eventId) {
+        List<Long> leftWaitlist = new ArrayList<>();
+        int[] registrationDelta = new int[1];
+        long[] changeStamp = { ProfileUpdate.UNCHANGED };
+        boolean removed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (eventRegistrationRepository.deleteByProfileIdAndEventId(profileId, eventId) == 0) {
+                return eventWaitlistRepository.findByUserProfileIdAndEventId(profileId, eventId).map(entry -> {
+                    eventWaitlistRepository.delete(entry);
+                    leftWaitlist.add(entry.getId());
+                    return true;
+                }).orElse(false);
+            }
+            eventRepository.releaseSeat(eventId);
+            bumpChangeStamp(profileId);
+            registrationDelta[0] = promoteFromWaitlist(eventId, leftWaitlist) ? 0 : -1;
+            changeStamp[0] = readChangeStamp(profileId);
+            return true;
+        }));
+        log.info("Unregistered profile {} from event {}: {}", profileId, eventId, removed ? "removed" : "was not registered");
+        leftWaitlist.forEach(entryId -> waitlistIndex.remove(eventId, entryId));
+        if (removed) {
+            eventService.recordRegistrationChange(eventId, registrationDelta[0]);
+        }
+        return new ProfileUpdate<>(removed, changeStamp[0]);
+    }
+
+    /**
+     * Gives a freed seat to the first waiting profile that is not already registered, removing the entries it passes over.
+     * Runs inside the unregistration transaction, after {@link EventRepository#releaseSeat} has locked the event row, or inside
+     * a capacity change after {@link #promoteIntoAddedSeats(Long)} has. If the
+     * seat cannot be claimed after all, for instance because the capacity was lowered below the registrations, the
+     * registration is taken back and the profile keeps its place in the queue.
+     *
+     * @return whether a waiting profile took the seat
+     */
+    private boolean promoteFromWaitlist(Long eventId, List<Long> removedEntryIds) {
+        List<EventWaitlistEntry> head;
+        while (!(head = eventWaitlistRepository.findHead(eventId, Limit.of(1))).isEmpty()) {
+            EventWaitlistEntry entry = head.get(0);
+            Long waitingProfileId = entry.getUserProfile().getId();
+            boolean registered = eventRegistrationRepository.insertIfAbsent(waitingProfileId, eventId) > 0;
+            if (registered && eventRepository.claimSeat(eventId) == 0) {
+                eventRegistrationRepository.deleteByProfileIdAndEventId(waitingProfileId, eventId);
+                log.info("No seat left at event {} for profile {}; it stays on the waitlist", eventId, waitingProfileId);
+                return false;
+            }
+            eventWaitlistRepository.delete(entry);
+            eventWaitlistRepository.flush();
+            removedEntryIds.add(entry.getId());
+            if (registered) {
+                bumpChangeStamp(waitingProfileId);
+                log.info("Promoted profile {} from the waitlist of event {}", waitingProfileId, eventId);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes a profile that is about to be deleted off every waitlist and gives its seats to the waiting profiles. Must run in
+     * the deleting transaction, before the profile and, with it, its registrations are deleted.
+     *
+     * <p>
+     * The seats of all the profile's registrations are released with one {@code UPDATE}, which also locks those event rows,
+     * and each freed seat is then offered to the head of its event's waitlist as in {@link #unregisterFromEvent(Long, Long)}.
+     * {@link WaitlistIndex} and the cached events are updated once the transaction commits.
+     * </p>
+     *
+     * @param profileId the ID of the profile being deleted
+     */
+    public void releaseRegistrationsOf(Long profileId) {
+        List<WaitlistSlot> left = new ArrayList<>(eventWaitlistRepository.findSlotsByProfileId(profileId));
+        int waitlistEntries = eventWaitlistRepository.deleteByProfileId(profileId);
+        Map<Long, Integer> registrationDeltas = new HashMap<>();
+        left.forEach(slot -> registrationDeltas.put(slot.eventId(), 0));
+        List<Long> registeredEventIds = eventRegistrationRepository.findEventIdsByProfileId(profileId);
+        if (!registeredEventIds.isEmpty()) {
+            eventRepository.releaseSeatsHeldBy(profileId);
+            for (Long eventId : registeredEventIds) {
+                List<Long> removedEntryIds = new ArrayList<>();
+                registrationDeltas.put(eventId, promoteFromWaitlist(eventId, removedEntryIds) ? 0 : -1);
+                removedEntryIds.forEach(entryId -> left.add(new WaitlistSlot(entryId, eventId)));
+            }
+        }
+        log.info("Released {} registration(s) and {} waitlist entries of deleted profile {}", registeredEventIds.size(), waitlistEntries, profileId);
+        runAfterCommit(() -> {
+            left.forEach(slot -> waitlistIndex.remove(slot.eventId(), slot.entryId()));
+            registrationDeltas.forEach(eventService::recordRegistrationChange);
+        });
+    }
+
+    /**
+     * Gives the seats an event gained, because its capacity was raised or removed, to the head of its waitlist. Must run in the
+     * transaction that changed the capacity, so a registration that arrives in between cannot take a seat ahead of the waiting
+     * profiles: the event row is locked first, and waiting profiles are promoted as in {@link #unregisterFromEvent(Long, Long)}
+     * until the event is full again or the waitlist is empty. {@link WaitlistIndex} and the cached event are updated once the
+     * transaction commits.
+     *
+     * @param eventId the ID of the event whose capacity grew
+     * @return the number of waiting profiles that were registered
+     */
+    public int promoteIntoAddedSeats(Long eventId) {
+        if (eventRepository.findAndLockById(eventId).isEmpty()) {
+            return 0;
+        }
+        List<Long> removedEntryIds = new ArrayList<>();
+        int promoted = 0;
+        while (promoteFromWaitlist(eventId, removedEntryIds)) {
+            promoted++;
+        }
+        log.info("Promoted {} profile(s) from the waitlist of event {} into added seats", promoted, eventId);
+        int registrationDelta = promoted;
+        runAfterCommit(() -> {
+            removedEntryIds.forEach(entryId -> waitlistIndex.remove(eventId, entryId));
+            eventService.recordRegistrationChange(eventId, registrationDelta);
+        });
+        return promoted;
+    }
+
+    /** Runs {@code action} once the current transaction commits, or at once when there is none. */
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Applies a set of register and unregister operations for one profile in a single transaction, as when a user saves an
+     * agenda of many sessions at once.
+     *
+     * <p>
+     * The events involved are read and locked in one statement, in id order, and the profile's current registrations among
+     * them in another. New registrations are then written with one {@code INSERT ... SELECT} and one seat-claiming
+     * {@code UPDATE}, and removed ones with one {@code DELETE} and one seat-releasing {@code UPDATE}, so the number of
+     * statements does not grow with the size of the batch. Only full events, which put the profile on their waitlist, and freed
+     * seats, which are given to the head of the event's waitlist, are handled event by event.
+     * </p>
+     *
+     * <p>
+     * If a concurrent change to the same registrations gets in the way, the transaction is rolled back and the operations are
+     * applied one at a time through {@link #registerForEvent(Long, Long)} and {@link #unregisterFromEvent(Long, Long)}, which
+     * report leaving a waitlist as {@link RegistrationChangeResult.Outcome#UNREGISTERED}.
+     * </p>
+     *
+     * @param profileId the ID of the profile
+     * @param changes the operations, at most {@link #MAX_REGISTRATION_CHANGES}, each event at most once
+     * @return the outcome of each operation, in the same order
+     * @throws IllegalArgumentException if the batch is empty, too large, names an event twice or has an incomplete operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<RegistrationChangeResult> applyRegistrationChanges(Long profileId, List<RegistrationChange> changes) {
+        return applyRegistrationChangesAndStamp(profileId, changes).result();
+    }
+
+    /**
+     * Applies a batch of registration changes as {@link #applyRegistrationChanges(Long, List)} does, for the session of the
+     * user making them: a batch that changed registrations in its single transaction also returns the profile's change stamp
+     * after it. A batch that had to fall back to one transaction per operation reports {@link ProfileUpdate#UNCHANGED}.
+     *
+     * @param profileId the ID of the profile
+     * @param changes the operations, at most {@link #MAX_REGISTRATION_CHANGES}, each event at most once
+     * @return the outcome of each operation, in the same order, and the profile's new change stamp
+     * @throws IllegalArgumentException if the batch is empty, too large, names an event twice or has an incomplete operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProfileUpdate<List<RegistrationChangeResult>> applyRegistrationChangesAndStamp(Long profileId, List<RegistrationChange> changes) {
+        validateRegistrationChanges(changes);
+        long[] changeStamp = { ProfileUpdate.UNCHANGED };
+        Map<Long, RegistrationChangeResult.Outcome> outcomes = new HashMap<>();
+        List<WaitlistSlot> joined = new ArrayList<>();
+        List<WaitlistSlot> left = new ArrayList<>();
+        Set<Long> promoted = new HashSet<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (applyInOneTransaction(profileId, changes, outcomes, joined, left, promoted)) {
+                    changeStamp[0] = readChangeStamp(profileId);
+                }
+            });
+        } catch (DataIntegrityViolationException | ConcurrentRegistrationChangeException e) {
+            log.info("Batch of {} registration changes for profile {} hit a concurrent change; applying one at a time", changes.size(), profileId);
+            return new ProfileUpdate<>(changes.stream().map(change -> applyOne(profileId, change)).toList(), ProfileUpdate.UNCHANGED);
+        }
+        joined.forEach(slot -> waitlistIndex.add(slot.eventId(), slot.entryId()));
+        left.forEach(slot -> waitlistIndex.remove(slot.eventId(), slot.entryId()));
+        outcomes.forEach((eventId, outcome) -> {
+            if (outcome == RegistrationChangeResult.Outcome.REGISTERED) {
+                eventService.recordRegistrationChange(eventId, 1);
+            } else if (outcome == RegistrationChangeResult.Outcome.UNREGISTERED) {
+                eventService.recordRegistrationChange(eventId, promoted.contains(eventId) ? 0 : -1);
+            }
+        });
+        log.info("Applied {} registration changes for profile {}", changes.size(), profileId);
+        return new ProfileUpdate<>(
+                changes.stream().map(change -> new RegistrationChangeResult(change.eventId(), change.action(), outcomes.get(change.eventId()))).toList(),
+                changeStamp[0]);
+    }
+
+    private static void validateRegistrationChanges(List<RegistrationChange> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("At least one registration change is required");
+        }
+        if (changes.size() > MAX_REGISTRATION_CHANGES) {
+            throw new IllegalArgumentException("At most " + MAX_REGISTRATION_CHANGES + " registration changes are allowed per batch");
+        }
+        Set<Long> eventIds = new HashSet<>();
+        for (RegistrationChange change : changes) {
+            if (change == null || change.eventId() == null || change.action() == null) {
+                throw new IllegalArgumentException("Each registration change needs an eventId and an action");
+            }
+            if (!eventIds.add(change.eventId())) {
+                throw new IllegalArgumentException("Event " + change.eventId() + " appears more than once in the batch");
+            }
+        }
+    }
+
+    /** Applies a whole batch inside the caller's transaction; returns whether the profile's change stamp was bumped. */
+    private boolean applyInOneTransaction(Long profileId, List<RegistrationChange> changes, Map<Long, RegistrationChangeResult.Outcome> outcomes,
+            List<WaitlistSlot> joined, List<WaitlistSlot> left, Set<Long> promoted) {
+        List<Long> eventIds = changes.stream().map(RegistrationChange::eventId).toList();
+        Map<Long, Event> events = new HashMap<>();
+        eventRepository.findAndLockAllById(eventIds).forEach(event -> events.put(event.getId(), event));
+        Set<Long> registered = events.isEmpty() ? Set.of()
+                : new HashSet<>(eventRegistrationRepository.findEventIdsByProfileIdAndEventIdIn(profileId, events.keySet()));
+
+        List<Long> toRegister = new ArrayList<>();
+        List<Long> toWaitlist = new ArrayList<>();
+        List<Long> toUnregister = new ArrayList<>();
+        List<Long> toLeaveWaitlist = new ArrayList<>();
+        for (RegistrationChange change : changes) {
+            Long eventId = change.eventId();
+            Event event = events.get(eventId);
+            if (event == null) {
+                outcomes.put(eventId, RegistrationChangeResult.Outcome.EVENT_NOT_FOUND);
+            } else if (change.action() == RegistrationChange.Action.REGISTER) {
+                if (registered.contains(eventId)) {
+                    outcomes.put(eventId, RegistrationChangeResult.Outcome.ALREADY_REGISTERED);
+                } else if (event.getCapacity() == null || event.getRegisteredCount() < event.getCapacity()) {
+                    toRegister.add(eventId);
+                } else {
+                    toWaitlist.add(eventId);
+                }
+            } else if (registered.contains(eventId)) {
+                toUnregister.add(eventId);
+            } else {
+                toLeaveWaitlist.add(eventId);
+            }
+        }
+
+        // The rows are locked, so every statement below must affect exactly the rows counted above
+        boolean changed = !toRegister.isEmpty() || !toUnregister.isEmpty();
+        if (changed) {
+            bumpChangeStamp(profileId);
+        }
+        if (!toRegister.isEmpty()) {
+            if (eventRegistrationRepository.insertAllIfAbsent(profileId, toRegister) != toRegister.size()
+                    || eventRepository.claimSeats(toRegister) != toRegister.size()) {
+                throw new ConcurrentRegistrationChangeException();
+            }
+            toRegister.forEach(eventId -> outcomes.put(eventId, RegistrationChangeResult.Outcome.REGISTERED));
+        }
+        if (!toUnregister.isEmpty()) {
+            if (eventRegistrationRepository.deleteByProfileIdAndEventIdIn(profileId, toUnregister) != toUnregister.size()) {
+                throw new ConcurrentRegistrationChangeException();
+            }
+            eventRepository.releaseSeats(toUnregister);
+            for (Long eventId : toUnregister) {
+                List<Long> removedEntryIds = new ArrayList<>();
+                if (promoteFromWaitlist(eventId, removedEntryIds)) {
+                    promoted.add(eventId);
+                }
+                removedEntryIds.forEach(entryId -> left.add(new WaitlistSlot(entryId, eventId)));
+                outcomes.put(eventId, RegistrationChangeResult.Outcome.UNREGISTERED);
+            }
+        }
+        if (!toLeaveWaitlist.isEmpty()) {
+            toLeaveWaitlist.forEach(eventId -> outcomes.put(eventId, RegistrationChangeResult.Outcome.NOT_REGISTERED));
+            List<EventWaitlistEntry> entries = eventWaitlistRepository.findByProfileIdAndEventIdIn(profileId, toLeaveWaitlist);
+            if (!entries.isEmpty()) {
+                eventWaitlistRepository.deleteAllInBatch(entries);
+                for (EventWaitlistEntry entry : entries) {
+                    Long eventId = entry.getEvent().getId();
+                    left.add(new WaitlistSlot(entry.getId(), eventId));
+                    outcomes.put(eventId, RegistrationChangeResult.Outcome.LEFT_WAITLIST);
+                }
+            }
+        }
+        for (Long eventId : toWaitlist) {
+            joined.add(new WaitlistSlot(joinWaitlist(profileId, eventId).getId(), eventId));
+            outcomes.put(eventId, RegistrationChangeResult.Outcome.WAITLISTED);
+        }
+        return changed;
+    }
+
+    /** Applies one change in its own transaction, for when a batch has to fall back. */
+    private RegistrationChangeResult applyOne(Long profileId, RegistrationChange change) {
+        RegistrationChangeResult.Outcome outcome;
+        if (change.action() == RegistrationChange.Action.UNREGISTER) {
+            outcome = unregisterFromEvent(profileId, change.eventId()) ? RegistrationChangeResult.Outcome.UNREGISTERED
+                    : RegistrationChangeResult.Outcome.NOT_REGISTERED;
+        } else {
+            try {
+                outcome = RegistrationChangeResult.Outcome.valueOf(registerForEvent(profileId, change.eventId()).name());
+            } catch (IllegalArgumentException e) {
+                outcome = RegistrationChangeResult.Outcome.EVENT_NOT_FOUND;
+            }
+        }
+        return new RegistrationChangeResult(change.eventId(), change.action(), outcome);
+    }
+
+    /**
+     * Returns a profile's place in an event's waitlist. The entry is found through the {@code (user_profile_id, event_id)}
+     * unique index and its rank read from {@link WaitlistIndex} in O(log n), so no rows ahead of it are counted.
+     *
+     * @param profileId the ID of the profile
+     * @param eventId the ID of the event
+     * @return the 1-based position, or empty if the profile is not on the event's waitlist
+     */
+    @Transactional(readOnly = true)
+    public OptionalInt getWaitlistPosition(Long profileId, Long eventId) {
+        Optional<EventWaitlistEntry> entry = eventWaitlistRepository.findByUserProfileIdAndEventId(profileId, eventId);
+        if (entry.isEmpty()) {
+            return OptionalInt.empty();
+        }
+        Long entryId = entry.get().getId();
+        int position = waitlistIndex.position(eventId, entryId);
+        if (position == 0) {
+            // Joined through another instance since this one built its index
+            waitlistIndex.add(eventId, entryId);
+            position = waitlistIndex.position(eventId, entryId);
+        }
+        return OptionalInt.of(position);
+    }
+
+    /**
+     * Returns one page of the events a profile is registered for, in {@code (date, time, id)} order. Only the columns of
+     * {@link EventSummary} are read, and neither the profile nor its registrations are loaded.
+     *
+     * @param profileId the ID of the profile
+     * @param cursor the encoded {@link EventCursor} from the previous page, or {@code null}/blank for the first page
+     * @param limit the requested page size; clamped to {@code [1, EventService.MAX_PAGE_SIZE]}, {@code null} means
+     *        {@link EventService#DEFAULT_PAGE_SIZE}
+     * @return the requested page and the cursor for the next one
+     * @throws IllegalArgumentException if the cursor cannot be decoded
+     */
+    @Transactional(readOnly = true)
+    public EventSummaryPage getRegisteredEvents(Long profileId, String cursor, Integer limit) {
+        int pageSize = limit == null ? EventService.DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, EventService.MAX_PAGE_SIZE));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<EventSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = eventRegistrationRepository.findRegisteredEvents(profileId, fetchLimit);
+        } else {
+            EventCursor after = EventCursor.decode(cursor);
+            rows = eventRegistrationRepository.findRegisteredEventsAfter(profileId, after.date(), after.time(), after.id(), fetchLimit);
+        }
+        if (rows.size() <= pageSize) {
+            return new EventSummaryPage(rows, null);
+        }
+        List<EventSummary> page = rows.subList(0, pageSize);
+        return new EventSummaryPage(page, EventCursor.after(page.get(pageSize - 1)).encode());
     }
 
     /**
@@ -259,6 +818,7 @@ public class DemoUserProfileService implements UserProfileService<DemoUserProfil
      * @throws IllegalArgumentException if the profile or event is null
      */
     @Deprecated
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // The ID-based method runs its own transaction
     public DemoUserProfile unregisterFromEvent(DemoUserProfile profile, Event event) {
         if (profile == null) {
             throw new IllegalArgumentException("Profile must not be null");
@@ -267,7 +827,22 @@ public class DemoUserProfileService implements UserProfileService<DemoUserProfil
             throw new IllegalArgumentException("Event must not be null");
         }
         
-        // Delegate to the ID-based method to ensure we work with managed entities
-        return unregisterFromEvent(profile.getId(), event.getId());
+        // Delegate to the ID-based method, then reload the profile so the returned copy no longer has the registration
+        unregisterFromEvent(profile.getId(), event.getId());
+        return profileRepository.findById(profile.getId()).orElse(profile);
+    }
+
+    /**
+     * Thrown inside a batch transaction when a statement affects a different number of rows than the locked reads promised,
+     * which means a concurrent change got in first. Rolls the batch back. Carries no stack trace, since it is expected control
+     * flow.
+     */
+    private static final class ConcurrentRegistrationChangeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private ConcurrentRegistrationChangeException() {
+            super(null, null, false, false);
+        }
     }
 }
@@ -1,18 +1,32 @@
 package com.digitalsanctuary.spring.demo.user.profile;
 
+import java.time.Instant;
 import com.digitalsanctuary.spring.demo.event.Event;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 import lombok.ToString;
 
+/**
+ * Links a user profile to an event it is registered for. A profile can be registered for an event at most once, which the
+ * database enforces with a unique constraint on {@code (user_profile_id, event_id)}. That constraint's index serves lookups by
+ * profile; the {@code (event_id, id)} index serves an event's roster, in registration order, and the
+ * {@code (event_id, reminder_sent_at, id)} index finds the registrations of an event that still need a reminder.
+ */
 @Data
 @Entity
-@Table(name = "event_registrations")
+@Table(name = "event_registrations", uniqueConstraints = @UniqueConstraint(name = "uk_event_registrations_profile_event",
+        columnNames = {"user_profile_id", "event_id"}), indexes = {
+        @Index(name = "idx_event_registrations_event_id_id", columnList = "event_id, id"),
+        @Index(name = "idx_event_registrations_reminder", columnList = "event_id, reminder_sent_at, id")})
 public class EventRegistration {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,8 +34,21 @@ public class EventRegistration {
 
     @ToString.Exclude
     @ManyToOne
+    @JoinColumn(name = "user_profile_id")
     private DemoUserProfile userProfile;
 
     @ManyToOne
+    @JoinColumn(name = "event_id")
     private Event event;
+
+    /**
+     * When the event reminder for this registration was claimed for sending, or {@code null} if it has not been. Set together
+     * with {@link #reminderClaim} by one conditional {@code UPDATE}, so each reminder is claimed, and sent, at most once.
+     */
+    @Column(name = "reminder_sent_at")
+    private Instant reminderSentAt;
+
+    /** The id of the reminder run that claimed this registration's reminder. */
+    @Column(name = "reminder_claim", length = 36)
+    private String reminderClaim;
 }
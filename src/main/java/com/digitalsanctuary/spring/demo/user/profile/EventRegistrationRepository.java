@@ -1,8 +1,257 @@
 package com.digitalsanctuary.spring.demo.user.profile;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.digitalsanctuary.spring.demo.event.EventSummary;
+import com.digitalsanctuary.spring.demo.event.RosterEntry;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface EventRegistrationRepository extends JpaRepository<EventRegistration, Long> {
+
+    /**
+     * Checks for a registration by key, without loading the profile or the event.
+     *
+     * @param profileId the profile id
+     * @param eventId the event id
+     * @return whether the profile is registered for the event
+     */
+    boolean existsByUserProfileIdAndEventId(Long profileId, Long eventId);
+
+    /**
+     * Counts an event's registrations from the {@code (event_id, id)} index.
+     *
+     * @param eventId the event id
+     * @return the number of registrations
+     */
+    long countByEventId(Long eventId);
+
+    /**
+     * Reads the ids of the events a profile is registered for, without loading any registration or event.
+     *
+     * @param profileId the profile id
+     * @return the registered event ids, in no particular order
+     */
+    @Query("SELECT r.event.id FROM EventRegistration r WHERE r.userProfile.id = :profileId")
+    List<Long> findEventIdsByProfileId(@Param("profileId") Long profileId);
+
+    /**
+     * Registers a profile for an event in a single {@code INSERT ... SELECT} that only adds the row if it is not there yet.
+     * Neither the profile nor the event is loaded. The values come from a one-row derived table rather than {@code DUAL}, which
+     * PostgreSQL does not have. Two concurrent calls can both pass the {@code NOT EXISTS} check; the unique constraint on
+     * {@code (user_profile_id, event_id)} rejects the second one with a
+     * {@link org.springframework.dao.DataIntegrityViolationException}, as it does when the profile or event does not exist.
+     *
+     * @param profileId the profile id
+     * @param eventId the event id
+     * @return {@code 1} if a registration was added, {@code 0} if it already existed
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO event_registrations (user_profile_id, event_id)
+            SELECT seed.profile_id, seed.event_id FROM (SELECT :profileId AS profile_id, :eventId AS event_id) seed
+            WHERE NOT EXISTS (SELECT 1 FROM event_registrations r WHERE r.user_profile_id = seed.profile_id AND r.event_id = seed.event_id)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("profileId") Long profileId, @Param("eventId") Long eventId);
+
+    /**
+     * Removes a registration with a single keyed {@code DELETE}, without loading the profile or the event.
+     *
+     * @param profileId the profile id
+     * @param eventId the event id
+     * @return the number of registrations removed, {@code 0} or {@code 1}
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventRegistration r WHERE r.userProfile.id = :profileId AND r.event.id = :eventId")
+    int deleteByProfileIdAndEventId(@Param("profileId") Long profileId, @Param("eventId") Long eventId);
+
+    /**
+     * Reads which of the given events a profile is registered for, through the {@code (user_profile_id, event_id)} unique index.
+     *
+     * @param profileId the profile id
+     * @param eventIds the event ids to check
+     * @return the subset of {@code eventIds} the profile is registered for
+     */
+    @Query("SELECT r.event.id FROM EventRegistration r WHERE r.userProfile.id = :profileId AND r.event.id IN :eventIds")
+    List<Long> findEventIdsByProfileIdAndEventIdIn(@Param("profileId") Long profileId, @Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * Registers a profile for several events in one set-based {@code INSERT ... SELECT}, skipping events it is already
+     * registered for. As with {@link #insertIfAbsent}, a concurrent registration for the same pair is rejected by the unique
+     * constraint.
+     *
+     * @param profileId the profile id
+     * @param eventIds the ids of existing events
+     * @return the number of registrations added
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO event_registrations (user_profile_id, event_id)
+            SELECT :profileId, e.id FROM events e
+            WHERE e.id IN (:eventIds)
+              AND NOT EXISTS (SELECT 1 FROM event_registrations r WHERE r.user_profile_id = :profileId AND r.event_id = e.id)
+            """, nativeQuery = true)
+    int insertAllIfAbsent(@Param("profileId") Long profileId, @Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * Removes a profile's registrations for several events in one {@code DELETE}.
+     *
+     * @param profileId the profile id
+     * @param eventIds the event ids
+     * @return the number of registrations removed
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventRegistration r WHERE r.userProfile.id = :profileId AND r.event.id IN :eventIds")
+    int deleteByProfileIdAndEventIdIn(@Param("profileId") Long profileId, @Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * Returns the first events a profile is registered for, as summaries in {@code (date, time, id)} order. Only the listed
+     * columns are read; the registrations are found through the {@code (user_profile_id, event_id)} unique index.
+     *
+     * @param profileId the profile id
+     * @param limit the maximum number of events to return
+     * @return the first registered events in keyset order
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventSummary(e.id, e.name, e.date, e.time, e.location)
+            FROM EventRegistration r JOIN r.event e
+            WHERE r.userProfile.id = :profileId
+            ORDER BY e.date, e.time, e.id
+            """)
+    List<EventSummary> findRegisteredEvents(@Param("profileId") Long profileId, Limit limit);
+
+    /**
+     * Returns the events a profile is registered for that sort strictly after the given {@code (date, time, id)} key, as
+     * summaries in keyset order.
+     *
+     * @param profileId the profile id
+     * @param date the date of the last event already seen
+     * @param time the time of the last event already seen
+     * @param id the id of the last event already seen
+     * @param limit the maximum number of events to return
+     * @return the next registered events in keyset order
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.EventSummary(e.id, e.name, e.date, e.time, e.location)
+            FROM EventRegistration r JOIN r.event e
+            WHERE r.userProfile.id = :profileId
+              AND (e.date > :date
+                   OR (e.date = :date AND e.time > :time)
+                   OR (e.date = :date AND e.time = :time AND e.id > :id))
+            ORDER BY e.date, e.time, e.id
+            """)
+    List<EventSummary> findRegisteredEventsAfter(@Param("profileId") Long profileId, @Param("date") LocalDate date, @Param("time") LocalTime time,
+            @Param("id") Long id, Limit limit);
+
+    /**
+     * Returns the first attendees of an event, in registration order. A seek on the {@code (event_id, id)} index that reads
+     * only {@code limit} registrations however many the event has.
+     *
+     * @param eventId the event id
+     * @param limit the maximum number of attendees to return
+     * @return the first attendees
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.RosterEntry(r.id, u.id, u.email, u.firstName, u.lastName)
+            FROM EventRegistration r JOIN r.userProfile p JOIN p.user u
+            WHERE r.event.id = :eventId
+            ORDER BY r.id
+            """)
+    List<RosterEntry> findRoster(@Param("eventId") Long eventId, Limit limit);
+
+    /**
+     * Returns the attendees of an event registered after the given registration, in registration order, seeking on the
+     * {@code (event_id, id)} index.
+     *
+     * @param eventId the event id
+     * @param afterId the id of the last registration already seen
+     * @param limit the maximum number of attendees to return
+     * @return the next attendees
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.RosterEntry(r.id, u.id, u.email, u.firstName, u.lastName)
+            FROM EventRegistration r JOIN r.userProfile p JOIN p.user u
+            WHERE r.event.id = :eventId AND r.id > :afterId
+            ORDER BY r.id
+            """)
+    List<RosterEntry> findRosterAfter(@Param("eventId") Long eventId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Streams an event's whole roster in registration order over a forward-only JDBC cursor with a fixed fetch size. The rows
+     * are projections, not entities, so nothing accumulates in the persistence context. Must be called inside a transaction
+     * and the stream closed afterwards.
+     *
+     * @param eventId the event id
+     * @return a stream of the event's attendees
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.RosterEntry(r.id, u.id, u.email, u.firstName, u.lastName)
+            FROM EventRegistration r JOIN r.userProfile p JOIN p.user u
+            WHERE r.event.id = :eventId
+            ORDER BY r.id
+            """)
+    Stream<RosterEntry> streamRoster(@Param("eventId") Long eventId);
+
+    /**
+     * Reads the ids of an event's registrations whose reminder has not been claimed yet, in id order. This is a range scan on
+     * the {@code (event_id, reminder_sent_at, id)} index that touches only the pending rows, however many reminders have
+     * already gone out.
+     *
+     * @param eventId the event id
+     * @param limit the maximum number of ids to return
+     * @return the pending registration ids
+     */
+    @Query("SELECT r.id FROM EventRegistration r WHERE r.event.id = :eventId AND r.reminderSentAt IS NULL ORDER BY r.id")
+    List<Long> findIdsWithoutReminder(@Param("eventId") Long eventId, Limit limit);
+
+    /**
+     * Claims the reminders of the given registrations for one run, in a single conditional {@code UPDATE}. A registration
+     * whose reminder another run has claimed in the meantime is left alone, so the caller must send only the rows that
+     * {@link #findClaimedReminders} returns for its own claim.
+     *
+     * @param ids the registration ids
+     * @param claim the id of the claiming run
+     * @param now the time to record as sent
+     * @return the number of reminders claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE EventRegistration r SET r.reminderSentAt = :now, r.reminderClaim = :claim
+            WHERE r.id IN :ids AND r.reminderSentAt IS NULL
+            """)
+    int claimReminders(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("now") Instant now);
+
+    /**
+     * Reads the recipients of the reminders a run has claimed among the given registrations.
+     *
+     * @param ids the registration ids passed to {@link #claimReminders}
+     * @param claim the id of the claiming run
+     * @return the registrations claimed by {@code claim}, with their user's email and name
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.event.RosterEntry(r.id, u.id, u.email, u.firstName, u.lastName)
+            FROM EventRegistration r JOIN r.userProfile p JOIN p.user u
+            WHERE r.id IN :ids AND r.reminderClaim = :claim
+            ORDER BY r.id
+            """)
+    List<RosterEntry> findClaimedReminders(@Param("ids") Collection<Long> ids, @Param("claim") String claim);
 }
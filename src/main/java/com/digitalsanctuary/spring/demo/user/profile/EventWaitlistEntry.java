@@ -0,0 +1,45 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import java.time.Instant;
+import com.digitalsanctuary.spring.demo.event.Event;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * A user profile waiting for a seat at a full event. Entries are served in id order: the {@code (event_id, id)} index lets the
+ * head of an event's queue be read with one index seek, without scanning the rest of the queue.
+ */
+@Data
+@Entity
+@Table(name = "event_waitlist",
+        uniqueConstraints = @UniqueConstraint(name = "uk_event_waitlist_profile_event", columnNames = {"user_profile_id", "event_id"}),
+        indexes = @Index(name = "idx_event_waitlist_event_id_id", columnList = "event_id, id"))
+public class EventWaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_profile_id")
+    private DemoUserProfile userProfile;
+
+    @ToString.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "event_id")
+    private Event event;
+
+    @Column(name = "joined_at", nullable = false)
+    private Instant joinedAt;
+}
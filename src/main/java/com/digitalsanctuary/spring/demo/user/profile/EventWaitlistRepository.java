@@ -0,0 +1,83 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface EventWaitlistRepository extends JpaRepository<EventWaitlistEntry, Long> {
+
+    /**
+     * Finds a profile's entry in an event's waitlist through the {@code (user_profile_id, event_id)} unique index.
+     *
+     * @param profileId the profile id
+     * @param eventId the event id
+     * @return the entry, or empty if the profile is not waiting for the event
+     */
+    Optional<EventWaitlistEntry> findByUserProfileIdAndEventId(Long profileId, Long eventId);
+
+    /**
+     * Finds a profile's entries in the waitlists of several events.
+     *
+     * @param profileId the profile id
+     * @param eventIds the event ids
+     * @return the entries, in no particular order
+     */
+    @Query("SELECT w FROM EventWaitlistEntry w WHERE w.userProfile.id = :profileId AND w.event.id IN :eventIds")
+    List<EventWaitlistEntry> findByProfileIdAndEventIdIn(@Param("profileId") Long profileId, @Param("eventIds") Collection<Long> eventIds);
+
+    /**
+     * Returns the head of an event's waitlist: the oldest entries first. A seek on the {@code (event_id, id)} index that reads
+     * only {@code limit} rows however long the queue is.
+     *
+     * @param eventId the event id
+     * @param limit the number of entries to return
+     * @return the first entries in queue order
+     */
+    @Query("SELECT w FROM EventWaitlistEntry w WHERE w.event.id = :eventId ORDER BY w.id")
+    List<EventWaitlistEntry> findHead(@Param("eventId") Long eventId, Limit limit);
+
+    /**
+     * Returns waitlist keys with ids greater than {@code afterId}, in id order, for rebuilding {@link WaitlistIndex} one page at
+     * a time.
+     *
+     * @param afterId the last entry id already read, or {@code 0} to start
+     * @param limit the page size
+     * @return the next keys in id order
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.user.profile.WaitlistSlot(w.id, w.event.id)
+            FROM EventWaitlistEntry w WHERE w.id > :afterId ORDER BY w.id
+            """)
+    List<WaitlistSlot> findSlotsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Returns the keys of a profile's waitlist entries, so {@link WaitlistIndex} can be updated once they are deleted.
+     *
+     * @param profileId the profile id
+     * @return the profile's keys, in no particular order
+     */
+    @Query("""
+            SELECT new com.digitalsanctuary.spring.demo.user.profile.WaitlistSlot(w.id, w.event.id)
+            FROM EventWaitlistEntry w WHERE w.userProfile.id = :profileId
+            """)
+    List<WaitlistSlot> findSlotsByProfileId(@Param("profileId") Long profileId);
+
+    /**
+     * Removes every waitlist entry of a profile, for profile deletion.
+     *
+     * @param profileId the profile id
+     * @return the number of entries removed
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EventWaitlistEntry w WHERE w.userProfile.id = :profileId")
+    int deleteByProfileId(@Param("profileId") Long profileId);
+}
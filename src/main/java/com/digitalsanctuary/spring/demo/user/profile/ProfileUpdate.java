@@ -0,0 +1,16 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+/**
+ * The result of a change a user made to their own registrations, with their profile's change stamp as it stood when the
+ * change committed. The session that made the change uses the stamp to stay current without reloading the profile.
+ *
+ * @param <T> the type of the result
+ * @param result what the change did
+ * @param changeStamp the profile's change stamp, read in the transaction that made the change, or {@link #UNCHANGED} if
+ *        the change did not bump it or the stamp is not known
+ */
+public record ProfileUpdate<T>(T result, long changeStamp) {
+
+    /** Change stamp of an update that did not bump the profile's stamp, or whose new stamp is not known. */
+    public static final long UNCHANGED = -1;
+}
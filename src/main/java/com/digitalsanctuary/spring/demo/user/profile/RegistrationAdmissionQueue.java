@@ -0,0 +1,196 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for registrations to hot events, the ones announced to thousands of users at once.
+ *
+ * <p>
+ * Without it, every {@code POST /api/events/{id}/register} for such an event opens its own transaction and they all queue on
+ * the same event row. For the events listed in {@code app.events.admission.eventIds}, a registration is instead accepted into a
+ * bounded in-memory queue and the caller gets an {@link AdmissionTicket} to poll. One writer thread per event drains its queue
+ * in arrival order and writes up to {@code app.events.admission.batchSize} registrations per transaction through
+ * {@link DemoUserProfileService#registerForEventInOrder}, so the row is locked once per batch instead of once per request.
+ * When the queue is full the registration is refused straight away and the caller answers {@code 429 Too Many Requests}.
+ * </p>
+ *
+ * <p>
+ * A profile that already has a ticket waiting in the queue gets the same ticket back, so repeated clicks do not take more
+ * slots. Tickets are kept for {@code app.events.admission.ticketTtl} after they are issued. The queue lives in memory only:
+ * registrations still queued when the application stops are lost, and their tickets are unknown after a restart, so a client
+ * that gets {@code 404} for its ticket should register again. Queue length and refusals are published to Micrometer as
+ * {@code events.admission.queue} and {@code events.admission.rejected}, tagged with the event id.
+ * </p>
+ */
+@Slf4j
+@Component
+public class RegistrationAdmissionQueue {
+
+    private final DemoUserProfileService demoUserProfileService;
+    private final MeterRegistry meterRegistry;
+    private final Set<Long> eventIds;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Cache<String, AdmissionTicket> tickets;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public RegistrationAdmissionQueue(DemoUserProfileService demoUserProfileService, MeterRegistry meterRegistry,
+            @Value("${app.events.admission.eventIds:}") Set<Long> eventIds, @Value("${app.events.admission.queueCapacity:10000}") int queueCapacity,
+            @Value("${app.events.admission.batchSize:200}") int batchSize, @Value("${app.events.admission.ticketTtl:PT10M}") Duration ticketTtl) {
+        this.demoUserProfileService = demoUserProfileService;
+        this.meterRegistry = meterRegistry;
+        this.eventIds = Set.copyOf(eventIds);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.tickets = CacheBuilder.newBuilder().expireAfterWrite(ticketTtl).build();
+        if (!this.eventIds.isEmpty()) {
+            log.info("Registration admission queue enabled for events {} with queueCapacity={} and batchSize={}", this.eventIds, queueCapacity,
+                    batchSize);
+        }
+    }
+
+    /**
+     * @param eventId the event id
+     * @return whether registrations for the event go through this queue
+     */
+    public boolean isAdmissionControlled(Long eventId) {
+        return eventId != null && eventIds.contains(eventId);
+    }
+
+    /**
+     * Accepts a registration into the event's queue, or returns the ticket the profile already has waiting in it.
+     *
+     * @param profileId the ID of the profile to register
+     * @param eventId the ID of an {@link #isAdmissionControlled admission-controlled} event
+     * @return the ticket to poll, or empty if the queue is full
+     * @throws IllegalArgumentException if the event is not admission-controlled
+     */
+    public Optional<AdmissionTicket> submit(Long profileId, Long eventId) {
+        if (!isAdmissionControlled(eventId)) {
+            throw new IllegalArgumentException("Event " + eventId + " is not admission-controlled");
+        }
+        Lane lane = lanes.computeIfAbsent(eventId, this::startLane);
+        AdmissionTicket ticket = new AdmissionTicket(UUID.randomUUID().toString(), eventId, profileId);
+        AdmissionTicket waiting = lane.pending.putIfAbsent(profileId, ticket);
+        if (waiting != null) {
+            return Optional.of(waiting);
+        }
+        tickets.put(ticket.getId(), ticket);
+        if (!lane.queue.offer(ticket)) {
+            lane.pending.remove(profileId, ticket);
+            tickets.invalidate(ticket.getId());
+            lane.rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    /**
+     * @param ticketId the ticket id
+     * @return the ticket, or empty if it is unknown or has expired
+     */
+    public Optional<AdmissionTicket> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    /**
+     * Stops the writer threads. Registrations still in the queues are not written.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        lanes.values().forEach(lane -> lane.writer.interrupt());
+    }
+
+    private Lane startLane(Long eventId) {
+        Lane lane = new Lane(eventId, new ArrayBlockingQueue<>(queueCapacity));
+        Gauge.builder("events.admission.queue", lane.queue, BlockingQueue::size).tag("event", eventId.toString()).register(meterRegistry);
+        lane.rejected = Counter.builder("events.admission.rejected").tag("event", eventId.toString()).register(meterRegistry);
+        lane.writer = new Thread(() -> drain(lane), "admission-event-" + eventId);
+        lane.writer.setDaemon(true);
+        lane.writer.start();
+        return lane;
+    }
+
+    /**
+     * Writer loop: takes everything queued, up to a batch, and writes it in one transaction. A batch that fails in a way the
+     * fallback in {@link #write} does not handle fails its tickets, and the loop carries on with the next one.
+     */
+    private void drain(Lane lane) {
+        List<AdmissionTicket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(lane.queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            lane.queue.drainTo(batch, batchSize - 1);
+            try {
+                write(lane, batch);
+            } catch (Throwable e) {
+                // Anything escaping here would end the thread and leave every later ticket of the event queued for good
+                log.error("Writing {} registrations for event {} failed", batch.size(), lane.eventId, e);
+                batch.stream().filter(ticket -> !ticket.isDone()).forEach(AdmissionTicket::fail);
+            } finally {
+                batch.forEach(ticket -> lane.pending.remove(ticket.getProfileId(), ticket));
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Lane lane, List<AdmissionTicket> batch) {
+        try {
+            List<RegistrationResult> results = demoUserProfileService.registerForEventInOrder(lane.eventId,
+                    batch.stream().map(AdmissionTicket::getProfileId).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            // One bad registration rolls back the whole batch, so fall back to writing them one by one
+            log.warn("Batch of {} registrations for event {} failed; retrying one at a time", batch.size(), lane.eventId, e);
+            for (AdmissionTicket ticket : batch) {
+                try {
+                    ticket.complete(demoUserProfileService.registerForEvent(ticket.getProfileId(), lane.eventId));
+                } catch (RuntimeException ex) {
+                    log.warn("Registration of profile {} for event {} failed", ticket.getProfileId(), lane.eventId, ex);
+                    ticket.fail();
+                }
+            }
+        }
+    }
+
+    /** One hot event's queue, its writer thread and the tickets still in it by profile id. */
+    private static final class Lane {
+
+        private final Long eventId;
+        private final BlockingQueue<AdmissionTicket> queue;
+        private final Map<Long, AdmissionTicket> pending = new ConcurrentHashMap<>();
+        private Counter rejected;
+        private Thread writer;
+
+        private Lane(Long eventId, BlockingQueue<AdmissionTicket> queue) {
+            this.eventId = eventId;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+/**
+ * One operation in a {@link DemoUserProfileService#applyRegistrationChanges batch} of registration changes.
+ *
+ * @param eventId the event to register for or unregister from
+ * @param action what to do
+ */
+public record RegistrationChange(Long eventId, Action action) {
+
+    /** The kind of change. */
+    public enum Action {
+        REGISTER, UNREGISTER
+    }
+}
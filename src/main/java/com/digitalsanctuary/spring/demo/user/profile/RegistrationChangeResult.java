@@ -0,0 +1,36 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+/**
+ * Outcome of one {@link RegistrationChange}.
+ *
+ * @param eventId the event the change was for
+ * @param action the requested change
+ * @param outcome what happened
+ */
+public record RegistrationChangeResult(Long eventId, RegistrationChange.Action action, Outcome outcome) {
+
+    /** What a change did. */
+    public enum Outcome {
+        /** Registered and a seat taken. */
+        REGISTERED,
+        /** Was already registered; nothing changed. */
+        ALREADY_REGISTERED,
+        /** The event is full; added to, or already on, its waitlist. */
+        WAITLISTED,
+        /** The registration was removed and its seat given back. */
+        UNREGISTERED,
+        /** Was only on the waitlist, and has been taken off it. */
+        LEFT_WAITLIST,
+        /** Was neither registered nor waiting; nothing changed. */
+        NOT_REGISTERED,
+        /** There is no such event. */
+        EVENT_NOT_FOUND;
+
+        /**
+         * @return whether the profile holds a seat at the event after this change
+         */
+        public boolean isRegistered() {
+            return this == REGISTERED || this == ALREADY_REGISTERED;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+/**
+ * Outcome of {@link DemoUserProfileService#registerForEvent(Long, Long)}.
+ */
+public enum RegistrationResult {
+
+    /** A registration was added and a seat taken. */
+    REGISTERED,
+
+    /** The profile was already registered; nothing changed. */
+    ALREADY_REGISTERED,
+
+    /** The event has no seats left; the profile is on, or was added to, its waitlist. */
+    WAITLISTED
+}
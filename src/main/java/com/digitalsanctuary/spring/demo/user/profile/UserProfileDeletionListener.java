@@ -16,6 +16,7 @@ import com.digitalsanctuary.spring.user.event.UserPreDeleteEvent;
 @Slf4j
 public class UserProfileDeletionListener {
     private final DemoUserProfileRepository demoUserProfileRepository;
+    private final DemoUserProfileService demoUserProfileService;
     // Inject other repositories if needed (e.g., EventRegistrationRepository)
 
     @EventListener
@@ -32,6 +33,9 @@ public class UserProfileDeletionListener {
             // that aren't handled by CascadeType.REMOVE or orphanRemoval=true,
             // handle them here *before* deleting the profile.
             // Example: eventRegistrationRepository.deleteByUserProfile(profile);
+            // Waitlist entries are not mapped on the profile, so they are removed here. The registrations are removed with the
+            // profile; their seats are given back first, and to the waiting profiles, so the counts stay exact
+            demoUserProfileService.releaseRegistrationsOf(userId);
             demoUserProfileRepository.delete(profile);
             log.debug("DemoUserProfile deleted for userId: {}", userId);
         });
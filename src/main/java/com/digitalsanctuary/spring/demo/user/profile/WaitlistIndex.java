@@ -0,0 +1,222 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory order-statistics index over the event waitlists, so a user's place in the queue is found in O(log n) rather than
+ * by counting the rows ahead of them.
+ *
+ * <p>
+ * Each event's queue keeps its entry ids in a sorted array with a Fenwick (binary indexed) tree of live/removed flags over it.
+ * A position is a binary search for the entry followed by a prefix sum; joining appends, and leaving clears one flag. Both
+ * are O(log n). Removed slots are compacted away once they make up half the array.
+ * </p>
+ *
+ * <p>
+ * The index is rebuilt from the database, one page at a time, when the application starts. After that
+ * {@link DemoUserProfileService} updates it after each waitlist change commits. Changes committed by another instance are not
+ * seen here; {@link DemoUserProfileService#getWaitlistPosition} adds a missing entry when it is asked about it, so only the
+ * count of entries ahead of it can lag.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitlistIndex {
+
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final EventWaitlistRepository eventWaitlistRepository;
+
+    private final Map<Long, Queue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuilds the index from the database once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        queues.clear();
+        int indexed = 0;
+        long afterId = 0;
+        List<WaitlistSlot> page;
+        do {
+            page = eventWaitlistRepository.findSlotsAfter(afterId, Limit.of(REBUILD_PAGE_SIZE));
+            for (WaitlistSlot slot : page) {
+                add(slot.eventId(), slot.entryId());
+                afterId = slot.entryId();
+            }
+            indexed += page.size();
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        log.info("Waitlist index rebuilt: {} entries across {} events in {} ms", indexed, queues.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds an entry to an event's queue.
+     *
+     * @param eventId the event id
+     * @param entryId the waitlist entry id
+     */
+    public void add(Long eventId, Long entryId) {
+        queues.computeIfAbsent(eventId, id -> new Queue()).add(entryId);
+    }
+
+    /**
+     * Removes an entry from an event's queue, if present.
+     *
+     * @param eventId the event id
+     * @param entryId the waitlist entry id
+     */
+    public void remove(Long eventId, Long entryId) {
+        Queue queue = queues.get(eventId);
+        if (queue != null) {
+            queue.remove(entryId);
+        }
+    }
+
+    /**
+     * @param eventId the event id
+     * @param entryId the waitlist entry id
+     * @return the entry's 1-based position in the event's queue, or {@code 0} if it is not indexed
+     */
+    public int position(Long eventId, Long entryId) {
+        Queue queue = queues.get(eventId);
+        return queue == null ? 0 : queue.position(entryId);
+    }
+
+    /**
+     * @param eventId the event id
+     * @return the number of entries in the event's queue
+     */
+    public int size(Long eventId) {
+        Queue queue = queues.get(eventId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * One event's queue: entry ids in ascending order, with a Fenwick tree counting the live ones.
+     */
+    static final class Queue {
+
+        private static final int MIN_CAPACITY = 16;
+
+        private long[] ids = new long[MIN_CAPACITY];
+        private boolean[] live = new boolean[MIN_CAPACITY];
+        /** 1-based Fenwick tree over {@link #live}. */
+        private int[] tree = new int[MIN_CAPACITY + 1];
+        /** Number of slots in use, live or removed. */
+        private int slots;
+        private int size;
+
+        synchronized void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, slots, id);
+            if (index >= 0) {
+                if (!live[index]) {
+                    live[index] = true;
+                    update(index, 1);
+                    size++;
+                }
+                return;
+            }
+            int insertAt = -index - 1;
+            if (slots == ids.length) {
+                compact(Math.max(MIN_CAPACITY, size * 2 + 1));
+                insertAt = -Arrays.binarySearch(ids, 0, slots, id) - 1;
+            }
+            if (insertAt == slots) {
+                // The usual case: ids are issued in ascending order
+                ids[slots] = id;
+                live[slots] = true;
+                slots++;
+                update(insertAt, 1);
+            } else {
+                // An entry committed out of id order; shift the tail and rebuild the tree
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, slots - insertAt);
+                System.arraycopy(live, insertAt, live, insertAt + 1, slots - insertAt);
+                ids[insertAt] = id;
+                live[insertAt] = true;
+                slots++;
+                rebuildTree();
+            }
+            size++;
+        }
+
+        synchronized void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, slots, id);
+            if (index < 0 || !live[index]) {
+                return;
+            }
+            live[index] = false;
+            update(index, -1);
+            size--;
+            if (slots > MIN_CAPACITY && size * 2 < slots) {
+                compact(ids.length);
+            }
+        }
+
+        synchronized int position(long id) {
+            int index = Arrays.binarySearch(ids, 0, slots, id);
+            return index < 0 || !live[index] ? 0 : prefixSum(index);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /** Drops removed slots into arrays of the given capacity. */
+        private void compact(int capacity) {
+            long[] newIds = new long[capacity];
+            boolean[] newLive = new boolean[capacity];
+            int n = 0;
+            for (int i = 0; i < slots; i++) {
+                if (live[i]) {
+                    newIds[n] = ids[i];
+                    newLive[n] = true;
+                    n++;
+                }
+            }
+            ids = newIds;
+            live = newLive;
+            slots = n;
+            tree = new int[capacity + 1];
+            rebuildTree();
+        }
+
+        /** Builds the Fenwick tree from {@link #live} in O(n). */
+        private void rebuildTree() {
+            Arrays.fill(tree, 0);
+            // Runs over the whole tree, not just the used slots, so sums also reach the nodes past the last slot
+            for (int i = 1; i < tree.length; i++) {
+                tree[i] += i <= slots && live[i - 1] ? 1 : 0;
+                int parent = i + (i & -i);
+                if (parent < tree.length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        private void update(int index, int delta) {
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /** Number of live slots in {@code [0, index]}. */
+        private int prefixSum(int index) {
+            int sum = 0;
+            for (int i = index + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import com.digitalsanctuary.spring.demo.event.EventCapacityIncreasedEvent;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Listens for {@link EventCapacityIncreasedEvent} and gives the added seats to the event's waitlist. A listener rather than a
+ * call from {@code EventService}, which {@link DemoUserProfileService} already depends on.
+ */
+@Component
+@RequiredArgsConstructor
+public class WaitlistPromotionListener {
+
+    private final DemoUserProfileService demoUserProfileService;
+
+    @EventListener
+    @Transactional // Joins the transaction started by EventService.updateEvent
+    public void handleCapacityIncreased(EventCapacityIncreasedEvent event) {
+        demoUserProfileService.promoteIntoAddedSeats(event.eventId());
+    }
+}
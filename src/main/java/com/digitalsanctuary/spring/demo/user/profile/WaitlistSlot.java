@@ -0,0 +1,10 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+/**
+ * The key of one {@link EventWaitlistEntry}, read without hydrating the entry.
+ *
+ * @param entryId the waitlist entry id, which orders the queue
+ * @param eventId the event the entry waits for
+ */
+public record WaitlistSlot(Long entryId, Long eventId) {
+}
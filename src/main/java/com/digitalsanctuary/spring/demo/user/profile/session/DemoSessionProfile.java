@@ -1,11 +1,19 @@
 package com.digitalsanctuary.spring.demo.user.profile.session;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.digitalsanctuary.spring.demo.event.Event;
 import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
 import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileRepository;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import com.digitalsanctuary.spring.demo.user.profile.ProfileUpdate;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationChangeResult;
 import com.digitalsanctuary.spring.user.profile.session.BaseSessionProfile;
 import com.digitalsanctuary.spring.user.profile.session.SessionScopedProfile;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * Session-scoped profile for the demo user.
@@ -13,35 +21,256 @@ import com.digitalsanctuary.spring.user.profile.session.SessionScopedProfile;
  * Annotated with {@link SessionScopedProfile} rather than plain {@code @Component}. Spring's {@code @Scope} is
  * not inherited from {@link BaseSessionProfile}, so a plain {@code @Component} here would make this a singleton
  * shared by every HTTP session and leak one user's profile to all other users.
+ *
+ * <p>
+ * The session does not hold the {@link DemoUserProfile} entity. {@link #setUserProfile(DemoUserProfile)}, which the
+ * authentication listener calls on login, copies it into an immutable {@link SessionProfileSnapshot} of ids and display fields
+ * and drops the entity, so no {@code User}, registration or {@code Event} stays reachable from the session.
+ * {@link #getProfileId()} and {@link #getFavoriteColor()} read the snapshot; {@link #getUserProfile()} loads the entity from
+ * the database on each call and is only for code that needs the entity itself.
+ * </p>
+ *
+ * <p>
+ * Login reads nothing: the profile service hands the listener an uninitialized reference, from which only the id is taken into
+ * an {@linkplain SessionProfileSnapshot#unloaded(Long) unloaded} snapshot. The profile row is read on the first
+ * {@link #refreshProfile()} or {@link #getFavoriteColor()}, so a login that never shows a page needing the profile never reads it.
+ * </p>
+ *
+ * <p>
+ * The ids of the events the user is registered for are read into the snapshot with one query the first time a registration is
+ * checked, then kept up to date by {@link #markRegistered(Long, long)}, {@link #markUnregistered(Long, long)} and
+ * {@link #markRegistrationChanges(Collection, long)}, each of which swaps in a new snapshot. They also take the change stamp the
+ * user's own change left the profile with, so that change alone does not make the next refresh reload. Registrations made from
+ * another session of the same user, and promotions from an event's waitlist, show up after the next {@link #refreshProfile()}.
+ * </p>
+ *
+ * <p>
+ * {@link #refreshProfile()} is cheap enough to call on every page: it reads only the profile's {@code change_stamp}, which
+ * every write in {@link com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService} bumps, and reloads the profile
+ * and its registered event ids only when the stamp differs from the one held in the session. Both outcomes are counted in the
+ * {@code session.profile.refresh} metric, tagged {@code result=skipped} or {@code result=reloaded}.
+ * </p>
  */
 @SessionScopedProfile
 public class DemoSessionProfile extends BaseSessionProfile<DemoUserProfile> {
 
+    // Transient: only the snapshot is session state. A session store that reads the bean back wires these again, as
+    // JdbcSessionConfiguration does.
+    @Autowired
+    private transient DemoUserProfileRepository profileRepository;
+
+    @Autowired
+    private transient EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private transient MeterRegistry meterRegistry;
+
     @Autowired
-    private DemoUserProfileRepository profileRepository;
+    private transient SessionProfileDiagnostics diagnostics;
+
+    /** The user's profile as of the last load, or {@code null} without one. Replaced, never changed in place. */
+    private volatile SessionProfileSnapshot snapshot;
+
+    /**
+     * Replaces the session's snapshot with one taken from {@code profile}. The entity itself is not kept. An uninitialized
+     * reference is not loaded here; only its id is kept until a profile field is needed.
+     *
+     * @param profile the freshly loaded profile or a reference to it, or {@code null} to clear the session
+     */
+    @Override
+    public synchronized void setUserProfile(DemoUserProfile profile) {
+        if (profile == null) {
+            snapshot = null;
+        } else if (!Hibernate.isInitialized(profile)) {
+            // The proxy answers getId() from its identifier without touching the database
+            replaceSnapshot(SessionProfileSnapshot.unloaded(profile.getId()));
+        } else {
+            replaceSnapshot(SessionProfileSnapshot.of(profile));
+        }
+    }
+
+    /**
+     * Loads the session user's profile entity from the database. Every call is a primary-key read; use {@link #getProfileId()}
+     * or {@link #getSnapshot()} when the id or a display field is enough.
+     *
+     * @return the profile, or {@code null} without one
+     */
+    @Override
+    public DemoUserProfile getUserProfile() {
+        Long profileId = getProfileId();
+        return profileId == null ? null : profileRepository.findById(profileId).orElse(null);
+    }
+
+    /**
+     * @return the snapshot of the user's profile, or {@code null} without one
+     */
+    public SessionProfileSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Restores a snapshot, for a session store that rebuilds this bean from its stored form.
+     *
+     * @param snapshot the stored snapshot, or {@code null} without a profile
+     */
+    public synchronized void setSnapshot(SessionProfileSnapshot snapshot) {
+        replaceSnapshot(snapshot);
+    }
+
+    /**
+     * @return the id of the user's profile, or {@code null} without one
+     */
+    public Long getProfileId() {
+        SessionProfileSnapshot current = snapshot;
+        return current != null ? current.profileId() : null;
+    }
 
     public boolean isRegisteredForEvent(Event event) {
-        return getUserProfile() != null && getUserProfile().getEventRegistrations().stream().anyMatch(reg -> reg.getEvent().equals(event));
+        return event != null && isRegisteredForEvent(event.getId());
+    }
+
+    /**
+     * @param eventId the event id
+     * @return whether the user is registered for the event; always {@code false} without a profile
+     */
+    public boolean isRegisteredForEvent(Long eventId) {
+        SessionProfileSnapshot current = snapshot;
+        if (current != null && !current.hasRegisteredEventIds()) {
+            current = loadRegisteredEventIds();
+        }
+        return current != null && eventId != null && current.isRegisteredForEvent(eventId);
+    }
+
+    /**
+     * Records a registration the user has just made, so it is reflected without reloading.
+     *
+     * @param eventId the event registered for
+     */
+    public void markRegistered(Long eventId) {
+        markRegistered(eventId, ProfileUpdate.UNCHANGED);
+    }
+
+    /**
+     * Records a registration the user has just made, and the change stamp it left the profile with, so it is reflected
+     * without reloading and the next {@link #refreshProfile()} does not reload for it.
+     *
+     * @param eventId the event registered for
+     * @param changeStamp the profile's change stamp after the registration, or {@link ProfileUpdate#UNCHANGED}
+     */
+    public synchronized void markRegistered(Long eventId, long changeStamp) {
+        if (snapshot != null && eventId != null) {
+            replaceSnapshot(snapshot.withRegistrationChanges(List.of(eventId), List.of()).withOwnChange(changeStamp));
+        }
+    }
+
+    /**
+     * Records a registration the user has just cancelled, and the change stamp it left the profile with, so it is reflected
+     * without reloading and the next {@link #refreshProfile()} does not reload for it.
+     *
+     * @param eventId the event unregistered from
+     * @param changeStamp the profile's change stamp after the cancellation, or {@link ProfileUpdate#UNCHANGED}
+     */
+    public synchronized void markUnregistered(Long eventId, long changeStamp) {
+        if (snapshot != null && eventId != null) {
+            replaceSnapshot(snapshot.withRegistrationChanges(List.of(), List.of(eventId)).withOwnChange(changeStamp));
+        }
+    }
+
+    /**
+     * Records the outcome of a batch of registration changes in one pass, so a whole agenda is reflected without reloading.
+     *
+     * @param results the outcomes returned by {@link com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService#applyRegistrationChangesAndStamp}
+     * @param changeStamp the profile's change stamp after the batch, or {@link ProfileUpdate#UNCHANGED}
+     */
+    public synchronized void markRegistrationChanges(Collection<RegistrationChangeResult> results, long changeStamp) {
+        if (snapshot == null) {
+            return;
+        }
+        List<Long> registered = new ArrayList<>();
+        List<Long> unregistered = new ArrayList<>();
+        for (RegistrationChangeResult result : results) {
+            (result.outcome().isRegistered() ? registered : unregistered).add(result.eventId());
+        }
+        replaceSnapshot(snapshot.withRegistrationChanges(registered, unregistered).withOwnChange(changeStamp));
     }
 
     public String getFavoriteColor() {
-        return getUserProfile() != null ? getUserProfile().getFavoriteColor() : null;
+        SessionProfileSnapshot current = snapshot;
+        if (current != null && !current.isLoaded()) {
+            current = loadProfile();
+        }
+        return current != null ? current.favoriteColor() : null;
     }
-    
+
     /**
-     * Refreshes the user profile from the database to ensure we have the latest data
-     * @return the refreshed user profile or null if no profile exists
+     * Brings the session snapshot up to date with the database. Reads only the profile's change stamp and reloads the profile,
+     * dropping the cached registered event ids, when it has changed since the snapshot was taken.
+     *
+     * @return the current snapshot, or {@code null} if no profile exists
      */
-    public DemoUserProfile refreshProfile() {
-        DemoUserProfile currentProfile = getUserProfile();
-        if (currentProfile != null && currentProfile.getId() != null) {
-            DemoUserProfile refreshedProfile = profileRepository.findById(currentProfile.getId()).orElse(null);
-            if (refreshedProfile != null) {
-                // Update the session with the refreshed profile
-                setUserProfile(refreshedProfile);
-                return refreshedProfile;
-            }
+    public SessionProfileSnapshot refreshProfile() {
+        SessionProfileSnapshot current = snapshot;
+        if (current == null || current.profileId() == null) {
+            return current;
+        }
+        Long stamp = profileRepository.findChangeStampById(current.profileId()).orElse(null);
+        if (stamp == null) {
+            return current;
         }
-        return currentProfile;
+        if (stamp == current.changeStamp()) {
+            meterRegistry.counter("session.profile.refresh", "result", "skipped").increment();
+            return current;
+        }
+        DemoUserProfile refreshedProfile = profileRepository.findById(current.profileId()).orElse(null);
+        if (refreshedProfile == null) {
+            return current;
+        }
+        // Re-read the registered ids on the next check, picking up changes made from other sessions
+        setUserProfile(refreshedProfile);
+        meterRegistry.counter("session.profile.refresh", "result", "reloaded").increment();
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot with the profile fields, reading the profile if the snapshot only holds its id.
+     */
+    private synchronized SessionProfileSnapshot loadProfile() {
+        SessionProfileSnapshot current = snapshot;
+        if (current == null || current.profileId() == null || current.isLoaded()) {
+            return current;
+        }
+        profileRepository.findById(current.profileId()).ifPresent(this::setUserProfile);
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot with its registered event ids, reading them with one query if they have not been read yet.
+     */
+    private synchronized SessionProfileSnapshot loadRegisteredEventIds() {
+        SessionProfileSnapshot current = snapshot;
+        if (current == null || current.profileId() == null || current.hasRegisteredEventIds()) {
+            return current;
+        }
+        replaceSnapshot(current.withRegisteredEventIds(eventRegistrationRepository.findEventIdsByProfileId(current.profileId())));
+        return snapshot;
+    }
+
+    /** Swaps in a new snapshot and samples it for {@link SessionProfileDiagnostics}. */
+    private void replaceSnapshot(SessionProfileSnapshot next) {
+        snapshot = next;
+        if (next != null && diagnostics != null) {
+            diagnostics.sample(next);
+        }
+    }
+
+    /** One instance per session: identity, not the state inherited from the base class, tells two sessions apart. */
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
     }
 }
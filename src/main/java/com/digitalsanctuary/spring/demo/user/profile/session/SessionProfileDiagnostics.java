@@ -0,0 +1,58 @@
+package com.digitalsanctuary.spring.demo.user.profile.session;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Samples the {@link SessionProfileSnapshot}s that session profiles take on and reports how much heap they retain.
+ *
+ * <p>
+ * Every time a {@link DemoSessionProfile} swaps in a snapshot, at login, on a reload, on a registration change or when a
+ * {@code jdbc-session} store reads it back, the snapshot's {@link SessionProfileSnapshot#estimatedRetainedBytes()} and
+ * registered event id count are added to running totals. Nothing holds on to a profile or a snapshot, so the sampling costs a
+ * few atomic additions and keeps no session reachable; a report is O(1). The figures describe the snapshots seen since
+ * startup, weighted by how often each session changes or is read, rather than a census of the sessions live right now.
+ * </p>
+ */
+@Component
+public class SessionProfileDiagnostics {
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder retainedBytes = new LongAdder();
+    private final LongAccumulator maxRetainedBytes = new LongAccumulator(Math::max, 0);
+    private final LongAdder samplesWithRegistrations = new LongAdder();
+    private final LongAdder registeredEventIds = new LongAdder();
+
+    /**
+     * Snapshot footprint sampled on this instance.
+     *
+     * @param samples the number of snapshots sampled
+     * @param averageRetainedBytes the average estimated heap retained by a snapshot, or {@code 0}
+     * @param maxRetainedBytes the largest estimated heap retained by a snapshot
+     * @param averageRegisteredEventIds the average number of registered event ids among snapshots that had read them
+     */
+    public record SessionFootprint(long samples, long averageRetainedBytes, long maxRetainedBytes, long averageRegisteredEventIds) {
+    }
+
+    void sample(SessionProfileSnapshot snapshot) {
+        long bytes = snapshot.estimatedRetainedBytes();
+        samples.increment();
+        retainedBytes.add(bytes);
+        maxRetainedBytes.accumulate(bytes);
+        if (snapshot.hasRegisteredEventIds()) {
+            samplesWithRegistrations.increment();
+            registeredEventIds.add(snapshot.registeredEventIds().length);
+        }
+    }
+
+    /**
+     * @return the footprint of the snapshots sampled so far
+     */
+    public SessionFootprint report() {
+        long count = samples.sum();
+        long withRegistrations = samplesWithRegistrations.sum();
+        return new SessionFootprint(count, count == 0 ? 0 : retainedBytes.sum() / count, maxRetainedBytes.get(),
+                withRegistrations == 0 ? 0 : registeredEventIds.sum() / withRegistrations);
+    }
+}
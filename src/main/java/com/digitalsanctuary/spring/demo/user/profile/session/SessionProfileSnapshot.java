@@ -0,0 +1,167 @@
+package com.digitalsanctuary.spring.demo.user.profile.session;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.LongStream;
+import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
+
+/**
+ * What {@link DemoSessionProfile} keeps of the user's profile between requests: the profile id, its change stamp, the fields
+ * pages display, and the ids of the events the user is registered for.
+ *
+ * <p>
+ * Immutable and free of entity references, so a session never pins a {@code User}, a registration list or an {@code Event}, and
+ * serializing it writes a handful of fields. The registered event ids are a sorted {@code long[]}, eight bytes per registration,
+ * checked with a binary search; {@code null} means they have not been read yet. Changes produce a new snapshot.
+ * </p>
+ *
+ * <p>
+ * A snapshot taken at login holds only the profile id ({@link #unloaded(Long)}); its change stamp is {@link #UNLOADED_STAMP},
+ * which matches no stored stamp, so the first refresh or display-field read loads the rest.
+ * </p>
+ *
+ * @param profileId the profile id, which is also the user id
+ * @param changeStamp the profile's change stamp when it was read, or {@link #UNLOADED_STAMP}
+ * @param favoriteColor the favorite color, may be {@code null}
+ * @param receiveNewsletter whether the user receives the newsletter
+ * @param registeredEventIds the sorted registered event ids, or {@code null} until loaded
+ */
+public record SessionProfileSnapshot(Long profileId, long changeStamp, String favoriteColor, boolean receiveNewsletter, long[] registeredEventIds)
+        implements Serializable {
+
+    /** Change stamp of a snapshot whose profile fields have not been read. Stored stamps start at zero. */
+    public static final long UNLOADED_STAMP = -1;
+
+    /** Object header plus the compressed reference fields and primitives of this record, padded to eight bytes. */
+    private static final int SHALLOW_BYTES = 40;
+    private static final int BOXED_LONG_BYTES = 16;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int STRING_BYTES = 24;
+
+    /**
+     * Copies the fields of a loaded profile. The registered event ids are left to be read on first use.
+     *
+     * @param profile the profile
+     * @return the snapshot
+     */
+    public static SessionProfileSnapshot of(DemoUserProfile profile) {
+        return new SessionProfileSnapshot(profile.getId(), profile.getChangeStamp(), profile.getFavoriteColor(), profile.isReceiveNewsletter(), null);
+    }
+
+    /**
+     * Holds only the profile id, for a session whose profile has not been read yet.
+     *
+     * @param profileId the profile id
+     * @return the snapshot
+     */
+    public static SessionProfileSnapshot unloaded(Long profileId) {
+        return new SessionProfileSnapshot(profileId, UNLOADED_STAMP, null, false, null);
+    }
+
+    /**
+     * @return whether the profile fields have been read
+     */
+    public boolean isLoaded() {
+        return changeStamp != UNLOADED_STAMP;
+    }
+
+    /**
+     * @return whether the registered event ids have been read
+     */
+    public boolean hasRegisteredEventIds() {
+        return registeredEventIds != null;
+    }
+
+    /**
+     * @param eventId the event id
+     * @return whether the event is among the registered event ids; {@code false} if they have not been read
+     */
+    public boolean isRegisteredForEvent(long eventId) {
+        return registeredEventIds != null && Arrays.binarySearch(registeredEventIds, eventId) >= 0;
+    }
+
+    /**
+     * @param eventIds the registered event ids, in any order
+     * @return a copy holding the given ids
+     */
+    public SessionProfileSnapshot withRegisteredEventIds(Collection<Long> eventIds) {
+        return withIds(eventIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray());
+    }
+
+    /**
+     * Applies registrations and cancellations in one copy. Does nothing if the registered event ids have not been read.
+     *
+     * @param registered the event ids to add
+     * @param unregistered the event ids to remove
+     * @return the updated snapshot
+     */
+    public SessionProfileSnapshot withRegistrationChanges(Collection<Long> registered, Collection<Long> unregistered) {
+        if (registeredEventIds == null || (registered.isEmpty() && unregistered.isEmpty())) {
+            return this;
+        }
+        long[] removed = unregistered.stream().mapToLong(Long::longValue).sorted().toArray();
+        return withIds(LongStream.concat(Arrays.stream(registeredEventIds), registered.stream().mapToLong(Long::longValue))
+                .filter(id -> Arrays.binarySearch(removed, id) < 0).sorted().distinct().toArray());
+    }
+
+    /**
+     * Moves the change stamp past a change this session made itself and has already applied to the snapshot. The new stamp is
+     * taken only if it directly follows the snapshot's, so no change made elsewhere in between is skipped over; otherwise the
+     * old stamp is kept and the next refresh reloads.
+     *
+     * @param newChangeStamp the profile's change stamp after the change, as read in the transaction that made it
+     * @return the snapshot with the new stamp, or this snapshot
+     */
+    public SessionProfileSnapshot withOwnChange(long newChangeStamp) {
+        if (!isLoaded() || newChangeStamp != changeStamp + 1) {
+            return this;
+        }
+        return new SessionProfileSnapshot(profileId, newChangeStamp, favoriteColor, receiveNewsletter, registeredEventIds);
+    }
+
+    /**
+     * Estimates the heap this snapshot retains on a 64-bit JVM with compressed references, counting the record, the boxed id, the
+     * favorite color and the id array.
+     *
+     * @return the estimated retained size in bytes
+     */
+    public long estimatedRetainedBytes() {
+        long bytes = SHALLOW_BYTES;
+        if (profileId != null) {
+            bytes += BOXED_LONG_BYTES;
+        }
+        if (favoriteColor != null) {
+            bytes += STRING_BYTES + align(ARRAY_HEADER_BYTES + favoriteColor.length());
+        }
+        if (registeredEventIds != null) {
+            bytes += ARRAY_HEADER_BYTES + 8L * registeredEventIds.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Compares by value, including the registered event ids element by element, so a copy that changed nothing equals the
+     * original.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SessionProfileSnapshot that && Objects.equals(profileId, that.profileId) && changeStamp == that.changeStamp
+                && Objects.equals(favoriteColor, that.favoriteColor) && receiveNewsletter == that.receiveNewsletter
+                && Arrays.equals(registeredEventIds, that.registeredEventIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(profileId, changeStamp, favoriteColor, receiveNewsletter) * 31 + Arrays.hashCode(registeredEventIds);
+    }
+
+    private SessionProfileSnapshot withIds(long[] ids) {
+        return new SessionProfileSnapshot(profileId, changeStamp, favoriteColor, receiveNewsletter, ids);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -19,3 +19,8 @@ VALUES
     (13, 'Machine Learning in Production', 'MLOps practices for deploying and monitoring ML models at scale.', 'San Diego, CA', '2027-02-28', '09:00:00'),
     (14, 'Startup Tech Meetup', 'Networking event for tech founders and engineers building the next big thing.', 'Nashville, TN', '2027-03-10', '17:30:00'),
     (15, 'Women in Tech Summit', 'Inspiring talks and workshops celebrating women in the technology industry.', 'Washington, DC', '2027-04-25', '08:30:00');
+
+-- Event ids come from events_seq. Move it past the explicit ids above so new events never collide with them; SETVAL
+-- never moves a sequence backwards, so this is also safe to re-run. On a database with older events, set it to
+-- MAX(id) of events instead if that is higher (see docs/CONFIGURATION.md, Bulk import).
+SELECT SETVAL(events_seq, 1000);
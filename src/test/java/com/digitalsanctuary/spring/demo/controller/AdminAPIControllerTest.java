@@ -2,6 +2,7 @@ package com.digitalsanctuary.spring.demo.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -11,8 +12,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import com.digitalsanctuary.spring.demo.session.UserSessionRegistry;
 import com.digitalsanctuary.spring.user.persistence.model.User;
 import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
 import com.digitalsanctuary.spring.user.test.annotations.IntegrationTest;
@@ -39,6 +42,9 @@ class AdminAPIControllerTest {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private UserSessionRegistry userSessionRegistry;
+
     @BeforeEach
     void setUp() {
         User existing = userRepository.findByEmail(TARGET_EMAIL);
@@ -83,6 +89,21 @@ class AdminAPIControllerTest {
         assertThat(locked.getLockedDate()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Locking an account ends the user's sessions")
+    @WithMockUser(username = "admin@example.com", authorities = {"ADMIN_PRIVILEGE"})
+    void lockEndsActiveSessions() throws Exception {
+        User target = saveTargetUser(UserTestDataBuilder.aUser().unlocked());
+        MockHttpSession session = new MockHttpSession();
+        userSessionRegistry.register(target.getId(), session);
+
+        mockMvc.perform(post(LOCK_URI).contentType(MediaType.APPLICATION_JSON).content(body(TARGET_EMAIL)).with(csrf()))
+                .andExpect(status().isOk());
+
+        assertThat(session.isInvalid()).isTrue();
+        assertThat(userSessionRegistry.getSessionIds(target.getId())).isEmpty();
+    }
+
     @Test
     @DisplayName("Admin can unlock an account")
     @WithMockUser(username = "admin@example.com", authorities = {"ADMIN_PRIVILEGE"})
@@ -140,4 +161,19 @@ class AdminAPIControllerTest {
 
         assertThat(reloadTargetUser().isLocked()).isTrue();
     }
+
+    @Test
+    @DisplayName("Admin can read the session footprint")
+    @WithMockUser(username = "admin@example.com", authorities = {"ADMIN_PRIVILEGE"})
+    void adminCanReadSessionDiagnostics() throws Exception {
+        mockMvc.perform(get("/admin/diagnostics/sessions")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.samples").isNumber()).andExpect(jsonPath("$.averageRetainedBytes").isNumber());
+    }
+
+    @Test
+    @DisplayName("Non-admin gets 403 on session diagnostics")
+    @WithMockUser(username = "user@example.com", authorities = {"LOGIN_PRIVILEGE"})
+    void nonAdminCannotReadSessionDiagnostics() throws Exception {
+        mockMvc.perform(get("/admin/diagnostics/sessions")).andExpect(status().isForbidden());
+    }
 }
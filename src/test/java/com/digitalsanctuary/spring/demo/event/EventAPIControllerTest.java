@@ -1,41 +1,58 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import com.digitalsanctuary.spring.demo.SecurityTestUtils;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
+import com.digitalsanctuary.spring.demo.user.profile.AdmissionTicket;
 import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService;
+import com.digitalsanctuary.spring.demo.user.profile.ProfileUpdate;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationAdmissionQueue;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationChange;
+import com.digitalsanctuary.spring.demo.user.profile.RegistrationChangeResult;
 import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
 @WebMvcTest(EventAPIController.class)
 @ActiveProfiles("test")
@@ -53,6 +70,18 @@ public class EventAPIControllerTest {
     @MockitoBean
     private DemoSessionProfile demoSessionProfile;
 
+    @MockitoBean
+    private EventExportService eventExportService;
+
+    @MockitoBean
+    private EventImportService eventImportService;
+
+    @MockitoBean
+    private RegistrationAdmissionQueue registrationAdmissionQueue;
+
+    @MockitoBean
+    private EventRosterService eventRosterService;
+
     private ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
 
@@ -82,16 +111,315 @@ public class EventAPIControllerTest {
 
     @Test
     public void testGetAllEvents() throws Exception {
-        when(eventService.getAllEvents()).thenReturn(testEvents);
+        when(eventService.getAllEventsSnapshot(any())).thenReturn(EventListSnapshotCache.serialize(JsonMapper.builder().build(), null, testEvents));
 
         mockMvc.perform(get("/api/events").with(SecurityTestUtils.mockUserWithCsrf()))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].name", is("Test Event")))
                 .andExpect(jsonPath("$[1].name", is("Another Event")));
 
-        verify(eventService).getAllEvents();
+        verify(eventService).getAllEventsSnapshot(any());
+        verify(eventService, never()).getAllEvents();
+    }
+
+    @Test
+    public void testGetAllEventsGzipped() throws Exception {
+        EventListSnapshot snapshot = EventListSnapshotCache.serialize(JsonMapper.builder().build(), null, testEvents);
+        when(eventService.getAllEventsSnapshot(any())).thenReturn(snapshot);
+
+        byte[] body = mockMvc.perform(get("/api/events").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br")
+                .with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(in.readAllBytes()).isEqualTo(snapshot.json());
+        }
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertThat(EventAPIController.acceptsGzip("gzip, deflate")).isTrue();
+        assertThat(EventAPIController.acceptsGzip("br;q=1.0, gzip;q=0.8")).isTrue();
+        assertThat(EventAPIController.acceptsGzip("*")).isTrue();
+        assertThat(EventAPIController.acceptsGzip("gzip;q=0, *")).isFalse();
+        assertThat(EventAPIController.acceptsGzip("*;q=0, gzip")).isTrue();
+        assertThat(EventAPIController.acceptsGzip("identity")).isFalse();
+        assertThat(EventAPIController.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    public void testGetEventPage() throws Exception {
+        when(eventService.getEventPageBetween(null, null, null, 1)).thenReturn(new EventPage(List.of(testEvent), "next-token"));
+
+        mockMvc.perform(get("/api/events").param("limit", "1").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EventAPIController.NEXT_CURSOR_HEADER, "next-token"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Test Event")));
+
+        verify(eventService).getEventPageBetween(null, null, null, 1);
+    }
+
+    @Test
+    public void testGetEventPageLastPageHasNoCursor() throws Exception {
+        when(eventService.getEventPageBetween(null, null, "abc", null)).thenReturn(new EventPage(List.of(testEvent), null));
+
+        mockMvc.perform(get("/api/events").param("cursor", "abc").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(EventAPIController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testGetEventPageInvalidCursor() throws Exception {
+        when(eventService.getEventPageBetween(null, null, "bogus", null)).thenThrow(new IllegalArgumentException("Invalid event cursor"));
+
+        mockMvc.perform(get("/api/events").param("cursor", "bogus").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetEventsBetweenDates() throws Exception {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        LocalDate to = LocalDate.of(2030, 1, 31);
+        when(eventService.getEventPageBetween(from, to, null, null)).thenReturn(new EventPage(testEvents, null));
+
+        mockMvc.perform(get("/api/events").param("from", "2030-01-01").param("to", "2030-01-31").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        verify(eventService).getEventPageBetween(from, to, null, null);
+    }
+
+    @Test
+    public void testGetEventsBetweenDatesRejectsInvertedRange() throws Exception {
+        when(eventService.getEventPageBetween(any(), any(), any(), any())).thenThrow(new IllegalArgumentException("from must not be after to"));
+
+        mockMvc.perform(get("/api/events").param("from", "2030-02-01").param("to", "2030-01-01").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSearchEvents() throws Exception {
+        when(eventService.searchEvents("test", null)).thenReturn(List.of(testEvent));
+
+        mockMvc.perform(get("/api/events/search").param("q", "test").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Test Event")));
+
+        verify(eventService).searchEvents("test", null);
+    }
+
+    @Test
+    public void testGetRegisteredEvents() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        EventSummary summary = new EventSummary(1L, "Test Event", LocalDate.of(2030, 1, 1), LocalTime.of(18, 0), "Test Location");
+        when(demoUserProfileService.getRegisteredEvents(7L, null, 1)).thenReturn(new EventSummaryPage(List.of(summary), "next"));
+
+        mockMvc.perform(get("/api/events/registered").param("limit", "1").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EventAPIController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Test Event")))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    public void testGetRegisteredEventsWithoutProfile() throws Exception {
+        mockMvc.perform(get("/api/events/registered").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+
+        verify(demoUserProfileService, never()).getRegisteredEvents(any(), any(), any());
+    }
+
+    @Test
+    public void testRegisterForHotEventReturnsTicket() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+        when(registrationAdmissionQueue.isAdmissionControlled(1L)).thenReturn(true);
+        when(registrationAdmissionQueue.submit(7L, 1L)).thenReturn(Optional.of(new AdmissionTicket("abc", 1L, 7L)));
+
+        mockMvc.perform(post("/api/events/1/register").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/events/1/admission/abc"))
+                .andExpect(jsonPath("$.status", is("QUEUED")))
+                .andExpect(jsonPath("$.profileId").doesNotExist());
+
+        verify(demoUserProfileService, never()).registerForEventAndStamp(any(Long.class), any(Long.class));
+    }
+
+    @Test
+    public void testRegisterForHotEventWithFullQueueIsRejected() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+        when(registrationAdmissionQueue.isAdmissionControlled(1L)).thenReturn(true);
+        when(registrationAdmissionQueue.submit(7L, 1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/events/1/register").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void testApplyRegistrationChangesUpdatesSessionOnce() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        List<RegistrationChangeResult> results = List.of(
+                new RegistrationChangeResult(1L, RegistrationChange.Action.REGISTER, RegistrationChangeResult.Outcome.REGISTERED),
+                new RegistrationChangeResult(2L, RegistrationChange.Action.UNREGISTER, RegistrationChangeResult.Outcome.NOT_REGISTERED));
+        when(demoUserProfileService.applyRegistrationChangesAndStamp(eq(7L), any())).thenReturn(new ProfileUpdate<>(results, 12L));
+
+        mockMvc.perform(post("/api/events/registrations:batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"eventId\": 1, \"action\": \"REGISTER\"}, {\"eventId\": 2, \"action\": \"UNREGISTER\"}]")
+                .with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].outcome", is("REGISTERED")))
+                .andExpect(jsonPath("$[1].eventId", is(2)));
+
+        verify(demoUserProfileService).applyRegistrationChangesAndStamp(7L,
+                List.of(new RegistrationChange(1L, RegistrationChange.Action.REGISTER), new RegistrationChange(2L, RegistrationChange.Action.UNREGISTER)));
+        verify(demoSessionProfile).markRegistrationChanges(results, 12L);
+        verify(demoSessionProfile, never()).refreshProfile();
+    }
+
+    @Test
+    public void testApplyRegistrationChangesRejectsRegistrationForHotEvent() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        when(registrationAdmissionQueue.isAdmissionControlled(1L)).thenReturn(true);
+
+        mockMvc.perform(post("/api/events/registrations:batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"eventId\": 2, \"action\": \"REGISTER\"}, {\"eventId\": 1, \"action\": \"REGISTER\"}]")
+                .with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isTooManyRequests());
+
+        verify(demoUserProfileService, never()).applyRegistrationChangesAndStamp(any(), any());
+    }
+
+    @Test
+    public void testApplyRegistrationChangesRejectsInvalidBatch() throws Exception {
+        when(demoSessionProfile.getProfileId()).thenReturn(7L);
+        when(demoUserProfileService.applyRegistrationChangesAndStamp(eq(7L), any())).thenThrow(new IllegalArgumentException("empty"));
+
+        mockMvc.perform(post("/api/events/registrations:batch").contentType(MediaType.APPLICATION_JSON).content("[]")
+                .with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testCatalogSnapshotLeavesOutRegistrationCounts() throws Exception {
+        testEvent.setRegisteredCount(3);
+        when(eventService.getAllEventsSnapshot(any())).thenReturn(EventListSnapshotCache.serialize(JsonMapper.builder().build(), null, testEvents));
+        when(eventService.getRegisteredCounts()).thenReturn(Map.of(1L, 3));
+
+        mockMvc.perform(get("/api/events").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("Test Event")))
+                .andExpect(jsonPath("$[0].registeredCount").doesNotExist());
+        mockMvc.perform(get("/api/events/registered-counts").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1']", is(3)));
+    }
+
+    @Test
+    public void testGetTrendingEvents() throws Exception {
+        when(eventService.getTrendingEvents(5)).thenReturn(List.of(testEvent));
+
+        mockMvc.perform(get("/api/events/trending").param("limit", "5").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Test Event")));
+    }
+
+    @Test
+    public void testExportEventsStreamsCsv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/events/export").param("format", "csv").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events.csv\""));
+
+        verify(eventExportService).export(eq(EventExportService.Format.CSV), any());
+    }
+
+    @Test
+    public void testGetRosterSendsNextCursor() throws Exception {
+        RosterEntry entry = new RosterEntry(10L, 3L, "ada@example.com", "Ada", "Lovelace");
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+        when(eventRosterService.getRoster(1L, null, 1)).thenReturn(new RosterPage(List.of(entry), "10"));
+
+        mockMvc.perform(get("/api/events/1/registrations").param("limit", "1").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(EventAPIController.NEXT_CURSOR_HEADER, "10"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].email", is("ada@example.com")));
+    }
+
+    @Test
+    public void testGetRosterRejectsInvalidCursor() throws Exception {
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+        when(eventRosterService.getRoster(1L, "bad", null)).thenThrow(new IllegalArgumentException("Invalid roster cursor"));
+
+        mockMvc.perform(get("/api/events/1/registrations").param("cursor", "bad").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportRosterStreamsCsv() throws Exception {
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+
+        MvcResult result = mockMvc.perform(get("/api/events/1/registrations/export").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-1-roster.csv\""));
+
+        verify(eventRosterService).exportCsv(eq(1L), any());
+    }
+
+    @Test
+    public void testExportRosterForUnknownEvent() throws Exception {
+        when(eventService.getEventById(99L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/events/99/registrations/export").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isNotFound());
+
+        verify(eventRosterService, never()).exportCsv(any(), any());
+    }
+
+    @Test
+    public void testExportEventsRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/events/export").param("format", "xml").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportEventsFromJson() throws Exception {
+        EventImportResult result = new EventImportResult(2, 1, List.of(new EventImportResult.RowError(2, "Event name is required")), 5);
+        when(eventImportService.importJson(any())).thenReturn(result);
+
+        mockMvc.perform(post("/api/events/import").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(testEvent, new Event()))).with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(2)));
+    }
+
+    @Test
+    public void testImportEventsFromCsvRejectsBadHeader() throws Exception {
+        when(eventImportService.importCsv(any())).thenThrow(new IllegalArgumentException("CSV header is missing column(s): time"));
+
+        mockMvc.perform(post("/api/events/import").contentType("text/csv").content("name\nConcert\n").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -108,6 +436,41 @@ public class EventAPIControllerTest {
         verify(eventService).getEventById(1L);
     }
 
+    @Test
+    public void testGetEventByIdNotModified() throws Exception {
+        EventStamp stamp = new EventStamp(3L, Instant.parse("2030-01-01T10:15:30Z"));
+        when(eventService.getEventStamp(1L)).thenReturn(Optional.of(stamp));
+
+        mockMvc.perform(get("/api/events/1").header(HttpHeaders.IF_NONE_MATCH, stamp.eTag("event-1")).with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(eventService, never()).getEventById(1L);
+    }
+
+    @Test
+    public void testGetEventByIdSendsETag() throws Exception {
+        EventStamp stamp = new EventStamp(3L, Instant.parse("2030-01-01T10:15:30Z"));
+        when(eventService.getEventStamp(1L)).thenReturn(Optional.of(stamp));
+        when(eventService.getEventById(1L)).thenReturn(Optional.of(testEvent));
+
+        mockMvc.perform(get("/api/events/1").header(HttpHeaders.IF_NONE_MATCH, "\"stale\"").with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, stamp.eTag("event-1")))
+                .andExpect(jsonPath("$.name", is("Test Event")));
+    }
+
+    @Test
+    public void testGetAllEventsNotModified() throws Exception {
+        EventStamp stamp = new EventStamp(2L, Instant.parse("2030-01-01T10:15:30Z"));
+        when(eventService.getCatalogStamp()).thenReturn(stamp);
+
+        mockMvc.perform(get("/api/events").header(HttpHeaders.IF_NONE_MATCH, stamp.eTag("events")).with(SecurityTestUtils.mockUserWithCsrf()))
+                .andExpect(status().isNotModified());
+
+        verify(eventService, never()).getAllEventsSnapshot(any());
+    }
+
     @Test
     public void testGetEventByIdNotFound() throws Exception {
         when(eventService.getEventById(999L)).thenReturn(Optional.empty());
@@ -1,5 +1,6 @@
 package com.digitalsanctuary.spring.demo.event;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -23,6 +24,7 @@ import com.digitalsanctuary.spring.demo.SecurityTestUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfileService;
 import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import tools.jackson.databind.json.JsonMapper;
 
 @ActiveProfiles("test")
 @WebMvcTest(EventAPIController.class) // Focus ONLY on the EventController
@@ -40,6 +42,12 @@ public class EventControllerTest {
     @MockitoBean
     private DemoUserProfileService demoUserProfileService; // Add this mock bean
 
+    @MockitoBean
+    private EventExportService eventExportService;
+
+    @MockitoBean
+    private EventImportService eventImportService;
+
     private ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule());
 
@@ -58,7 +66,8 @@ public class EventControllerTest {
 
     @Test
     public void testGetAllEvents() throws Exception {
-        when(eventService.getAllEvents()).thenReturn(List.of(event));
+        when(eventService.getAllEventsSnapshot(any()))
+                .thenReturn(EventListSnapshotCache.serialize(JsonMapper.builder().build(), null, List.of(event)));
 
         mockMvc.perform(get("/api/events").with(SecurityTestUtils.mockUserWithCsrf())).andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name").value("Concert"));
@@ -0,0 +1,91 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.json.JsonMapper;
+
+@ActiveProfiles("test")
+public class EventExportServiceTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private EventExportService exportService;
+
+    private Event event1;
+    private Event event2;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        exportService = new EventExportService(eventRepository, JsonMapper.builder().build());
+        ReflectionTestUtils.setField(exportService, "entityManager", entityManager);
+
+        event1 = event(1L, "Concert", "Loud, \"live\" music", "Stadium");
+        event1.setCapacity(100);
+        event2 = event(2L, "Meetup", "Tech talks", "Hall");
+    }
+
+    @Test
+    public void testExportCsv() throws Exception {
+        when(eventRepository.streamAll()).thenReturn(Stream.of(event1, event2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(EventExportService.Format.CSV, out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,name,description,location,date,time,capacity\n"
+                + "1,Concert,\"Loud, \"\"live\"\" music\",Stadium,2030-01-01,18:00,100\n"
+                + "2,Meetup,Tech talks,Hall,2030-01-01,18:00,\n");
+        verify(entityManager).detach(event1);
+        verify(entityManager).detach(event2);
+    }
+
+    @Test
+    public void testExportNdjson() throws Exception {
+        when(eventRepository.streamAll()).thenReturn(Stream.of(event1, event2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(EventExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("{").contains("\"name\":\"Concert\"");
+        assertThat(lines[1]).contains("\"name\":\"Meetup\"");
+    }
+
+    @Test
+    public void testFormatParameter() {
+        assertThat(EventExportService.Format.fromParameter("csv")).isEqualTo(EventExportService.Format.CSV);
+        assertThat(EventExportService.Format.fromParameter(" NDJSON ")).isEqualTo(EventExportService.Format.NDJSON);
+        assertThatThrownBy(() -> EventExportService.Format.fromParameter("xml")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Event event(Long id, String name, String description, String location) {
+        Event event = new Event();
+        event.setId(id);
+        event.setName(name);
+        event.setDescription(description);
+        event.setLocation(location);
+        event.setDate(LocalDate.of(2030, 1, 1));
+        event.setTime(LocalTime.of(18, 0));
+        return event;
+    }
+}
@@ -0,0 +1,240 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.persistence.autoconfigure.EntityScan;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Runs imports against the test database without a surrounding test transaction, because the import commits each batch in its
+ * own transaction.
+ */
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EntityScan(basePackages = {"com.digitalsanctuary.spring.user.persistence.model", "com.digitalsanctuary.spring.demo.user.profile",
+        "com.digitalsanctuary.spring.demo.event"})
+public class EventImportServiceTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private EventSearchIndex eventSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+        eventSearchIndex = new EventSearchIndex(eventRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        eventRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testImportSkipsInvalidRowsAndKeepsTheRest() {
+        List<Event> events = List.of(event("Concert"), event("Meetup"), event(" "), event("Workshop"), event("Summit"));
+
+        EventImportResult result = importService(2).importEvents(events);
+
+        assertThat(result.received()).isEqualTo(5);
+        assertThat(result.imported()).isEqualTo(4);
+        assertThat(result.errors()).extracting(EventImportResult.RowError::row).containsExactly(3);
+        assertThat(result.errors().get(0).message()).isEqualTo("Event name is required");
+        assertThat(eventRepository.count()).isEqualTo(4);
+        assertThat(eventSearchIndex.search("workshop", 10)).hasSize(1);
+    }
+
+    @Test
+    public void testRowsRejectedByTheDatabaseDoNotAbortTheirBatch() {
+        // Passes bean validation but exceeds the name column, so the database rejects the whole JDBC batch
+        List<Event> events = List.of(event("Concert"), event("x".repeat(300)), event("Meetup"));
+
+        EventImportResult result = importService(3).importEvents(events);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).extracting(EventImportResult.RowError::row).containsExactly(2);
+        assertThat(eventRepository.findAll()).extracting(Event::getName).containsExactlyInAnyOrder("Concert", "Meetup");
+    }
+
+    @Test
+    public void testImportIgnoresClientSuppliedIds() {
+        Event event = event("Concert");
+        event.setId(424242L);
+
+        importService(10).importEvents(List.of(event));
+
+        assertThat(eventRepository.findById(424242L)).isEmpty();
+        assertThat(eventRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testImportCsv() throws Exception {
+        String csv = """
+                time,date,name,location,description,ignored
+                18:00,2030-01-01,Concert,Stadium,"Loud, ""live""
+                music",x
+                09:30,2030-01-02,Meetup,Hall,Tech talks,x
+                10:00,not-a-date,Broken,Hall,Bad date,x
+                """;
+
+        EventImportResult result = importService(10).importCsv(new StringReader(csv));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).containsExactly(new EventImportResult.RowError(5, "Invalid date: not-a-date"));
+        Event concert = eventRepository.findAll().stream().filter(e -> e.getName().equals("Concert")).findFirst().orElseThrow();
+        assertThat(concert.getDescription()).isEqualTo("Loud, \"live\"\nmusic");
+        assertThat(concert.getTime()).isEqualTo(LocalTime.of(18, 0));
+    }
+
+    @Test
+    public void testImportCsvAcceptsExportFormat() throws Exception {
+        StringBuilder csv = new StringBuilder("id,name,description,location,date,time,capacity\n");
+        EventExportService.appendCsv(csv.append("7,"), "Concert").append(',');
+        EventExportService.appendCsv(csv, "Music, live").append(",Stadium,2030-01-01,18:00,250\n");
+        csv.append("8,Meetup,Talks,Hall,2030-01-02,09:30,\n");
+        csv.append("9,Broken,Bad capacity,Hall,2030-01-03,10:00,lots\n");
+
+        EventImportResult result = importService(10).importCsv(new StringReader(csv.toString()));
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).containsExactly(new EventImportResult.RowError(4, "Invalid capacity: lots"));
+        assertThat(eventRepository.findAll()).extracting(Event::getDescription, Event::getCapacity)
+                .containsExactlyInAnyOrder(tuple("Music, live", 250), tuple("Talks", null));
+    }
+
+    @Test
+    public void testImportJsonStreamsTheArray() {
+        String json = """
+                [{"name":"Concert","description":"Music","location":"Stadium","date":"2030-01-01","time":"18:00","id":99},
+                 null,
+                 {"name":" ","description":"Blank name","location":"Hall","date":"2030-01-02","time":"09:30"},
+                 {"name":"Meetup","description":"Talks","location":"Hall","date":"2030-01-03","time":"10:00"}]
+                """;
+
+        EventImportResult result = importService(1).importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.received()).isEqualTo(4);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.errors()).extracting(EventImportResult.RowError::row).containsExactly(2, 3);
+        assertThat(eventRepository.findAll()).extracting(Event::getName).containsExactlyInAnyOrder("Concert", "Meetup");
+        assertThat(eventRepository.findById(99L)).isEmpty();
+    }
+
+    @Test
+    public void testImportJsonRejectsAnythingButAnArray() {
+        assertThatThrownBy(() -> importService(10).importJson(new ByteArrayInputStream("{\"name\":\"x\"}".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> importService(10).importJson(new ByteArrayInputStream("[{\"name\":".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Malformed JSON");
+    }
+
+    @Test
+    public void testImportJsonRejectsElementsThatDoNotBind() {
+        String json = """
+                [{"name":"Concert","description":"Music","location":"Stadium","date":"2026-13-45","time":"18:00"},
+                 ["not", {"an": "object"}],
+                 {"name":"Meetup","description":"Talks","location":"Hall","date":"2030-01-03","time":"10:00"}]
+                """;
+
+        EventImportResult result = importService(10).importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.received()).isEqualTo(3);
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).extracting(EventImportResult.RowError::row).containsExactly(1, 2);
+        assertThat(eventRepository.findAll()).extracting(Event::getName).containsExactly("Meetup");
+    }
+
+    @Test
+    public void testMalformedUploadStillClearsTheCacheForCommittedBatches() {
+        EventCache eventCache = new EventCache(Duration.ofMinutes(5), 100, new SimpleMeterRegistry());
+        eventCache.getAllEvents(List::of);
+        String json = """
+                [{"name":"Concert","description":"Music","location":"Stadium","date":"2030-01-01","time":"18:00"},
+                 {"name":
+                """;
+
+        assertThatThrownBy(() -> importService(1, eventCache).importJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Malformed JSON");
+
+        assertThat(eventRepository.count()).isEqualTo(1);
+        assertThat(eventCache.getAllEvents(eventRepository::findAll)).hasSize(1);
+    }
+
+    @Test
+    public void testImportCsvRequiresHeaderColumns() {
+        assertThatThrownBy(() -> importService(10).importCsv(new StringReader("name,date\nConcert,2030-01-01\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("description, location, time");
+    }
+
+    /**
+     * Throughput check for a 100k-row import. Opt-in because of its run time: {@code ./gradlew test -Dbenchmark=true --tests
+     * '*EventImportServiceTest'}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkImport100kEvents() {
+        List<Event> events = new ArrayList<>(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            events.add(event("Event " + i));
+        }
+
+        for (int batchSize : new int[] {1, 50, 500, 2000}) {
+            eventRepository.deleteAllInBatch();
+            EventImportResult result = importService(batchSize).importEvents(events);
+            assertThat(result.imported()).isEqualTo(100_000);
+            System.out.printf("batchSize=%d: %d events in %d ms (%d rows/s)%n", batchSize, result.imported(), result.elapsedMillis(),
+                    result.imported() * 1000L / Math.max(1, result.elapsedMillis()));
+        }
+    }
+
+    private EventImportService importService(int batchSize) {
+        return importService(batchSize, new EventCache(Duration.ofMinutes(5), 100, new SimpleMeterRegistry()));
+    }
+
+    private EventImportService importService(int batchSize, EventCache eventCache) {
+        EventImportService service = new EventImportService(eventCache, eventSearchIndex, new EventListSnapshotCache(JsonMapper.builder().build()),
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, JsonMapper.builder().build(), batchSize);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        return service;
+    }
+
+    private Event event(String name) {
+        Event event = new Event();
+        event.setName(name);
+        event.setDescription("Description of " + name);
+        event.setLocation("Venue");
+        event.setDate(LocalDate.of(2030, 1, 1));
+        event.setTime(LocalTime.of(18, 0));
+        return event;
+    }
+}
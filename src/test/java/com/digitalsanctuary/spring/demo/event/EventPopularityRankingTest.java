@@ -0,0 +1,77 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+public class EventPopularityRankingTest {
+
+    private static final LocalDate TOMORROW = LocalDate.now().plusDays(1);
+
+    @Test
+    public void testAdjustMovesEventsAndDropsThemAtZero() {
+        EventPopularityRanking ranking = new EventPopularityRanking(mock(EventRepository.class));
+        ranking.put(event(1L, 3, TOMORROW));
+        ranking.put(event(2L, 5, TOMORROW));
+        ranking.put(event(3L, 3, TOMORROW));
+
+        assertThat(ids(ranking.top(10))).containsExactly(2L, 1L, 3L);
+
+        assertThat(ranking.adjust(3L, 4)).isTrue();
+        assertThat(ranking.adjust(2L, -5)).isTrue();
+        assertThat(ids(ranking.top(10))).containsExactly(3L, 1L);
+        assertThat(ranking.adjust(2L, 1)).isFalse();
+        assertThat(ranking.size()).isEqualTo(2);
+        assertThat(ids(ranking.top(1))).containsExactly(3L);
+    }
+
+    @Test
+    public void testTopSkipsEventsThatHaveStarted() {
+        EventPopularityRanking ranking = new EventPopularityRanking(mock(EventRepository.class));
+        ranking.put(event(1L, 100, LocalDate.now().minusDays(1)));
+        ranking.put(event(2L, 1, TOMORROW));
+
+        assertThat(ids(ranking.top(1))).containsExactly(2L);
+
+        Event rescheduled = event(1L, 0, TOMORROW.plusDays(1));
+        ranking.reschedule(rescheduled);
+        assertThat(ids(ranking.top(2))).containsExactly(1L, 2L);
+        assertThat(ranking.top(2).get(0).registeredCount()).isEqualTo(100);
+
+        ranking.remove(1L);
+        assertThat(ids(ranking.top(2))).containsExactly(2L);
+    }
+
+    @Test
+    public void testRebuildPagesThroughRepository() {
+        EventRepository repository = mock(EventRepository.class);
+        when(repository.findPopularityAfter(eq(0L), any(), eq(Limit.of(1000))))
+                .thenReturn(List.of(new EventPopularity(4L, 2, TOMORROW, LocalTime.NOON), new EventPopularity(6L, 9, TOMORROW, LocalTime.NOON)));
+        EventPopularityRanking ranking = new EventPopularityRanking(repository);
+        ranking.put(event(1L, 50, TOMORROW));
+
+        ranking.rebuild();
+
+        assertThat(ids(ranking.top(10))).containsExactly(6L, 4L);
+    }
+
+    private static List<Long> ids(List<EventPopularity> entries) {
+        return entries.stream().map(EventPopularity::eventId).toList();
+    }
+
+    private static Event event(Long id, int registeredCount, LocalDate date) {
+        Event event = new Event();
+        event.setId(id);
+        event.setRegisteredCount(registeredCount);
+        event.setDate(date);
+        event.setTime(LocalTime.NOON);
+        return event;
+    }
+}
@@ -0,0 +1,72 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import com.digitalsanctuary.spring.demo.SecurityTestUtils;
+import com.digitalsanctuary.spring.demo.jdbc.SqlStatistics;
+import com.digitalsanctuary.spring.user.test.annotations.IntegrationTest;
+import com.digitalsanctuary.spring.user.test.annotations.SqlStatementBudget;
+
+/**
+ * Guards the statement count of the event listing endpoints against N+1 regressions.
+ */
+@IntegrationTest
+public class EventQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @BeforeEach
+    public void setUp() {
+        saveEvents(5);
+    }
+
+    @Test
+    @SqlStatementBudget(5)
+    public void testEventPageStaysWithinStatementBudget() throws Exception {
+        mockMvc.perform(get("/api/events").param("limit", "20").with(SecurityTestUtils.mockUserWithCsrf())).andExpect(status().isOk());
+    }
+
+    @Test
+    public void testEventPageStatementCountDoesNotGrowWithPageSize() throws Exception {
+        int fewEvents = statementsForPage();
+        saveEvents(20);
+        int manyEvents = statementsForPage();
+
+        assertThat(manyEvents).isEqualTo(fewEvents);
+    }
+
+    private int statementsForPage() throws Exception {
+        try (SqlStatistics.Scope scope = SqlStatistics.open()) {
+            mockMvc.perform(get("/api/events").param("limit", "50").with(SecurityTestUtils.mockUserWithCsrf())).andExpect(status().isOk());
+            return scope.statementCount();
+        }
+    }
+
+    private void saveEvents(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Event event = new Event();
+            event.setName("Event " + i);
+            event.setDescription("Description " + i);
+            event.setLocation("Venue");
+            event.setDate(LocalDate.now().plusDays(i + 1));
+            event.setTime(LocalTime.NOON);
+            events.add(event);
+        }
+        // Flush now so the inserts are not counted against the request that triggers the next auto-flush
+        eventRepository.saveAllAndFlush(events);
+    }
+}
@@ -0,0 +1,70 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ActiveProfiles("test")
+public class EventRegistrationCountReconcilerTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private EventPopularityRanking eventPopularityRanking;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EventRegistrationCountReconciler reconciler;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new EventRegistrationCountReconciler(eventRepository, eventRegistrationRepository, eventService, eventPopularityRanking,
+                new TransactionTemplate(transactionManager), meterRegistry);
+    }
+
+    @Test
+    public void testRepairsDriftedCountsUnderLock() {
+        when(eventRepository.findIdsWithDriftedRegisteredCount()).thenReturn(List.of(1L, 2L, 3L));
+        when(eventRepository.findAndLockById(1L)).thenReturn(Optional.of(new Event()));
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventRepository.findAndLockById(3L)).thenReturn(Optional.empty());
+        when(eventRegistrationRepository.countByEventId(1L)).thenReturn(7L);
+        when(eventRegistrationRepository.countByEventId(2L)).thenReturn(4L);
+        when(eventRepository.setRegisteredCount(eq(1L), eq(7))).thenReturn(1);
+        // Fixed by a registration between the drift query and the lock
+        when(eventRepository.setRegisteredCount(eq(2L), eq(4))).thenReturn(0);
+
+        assertThat(reconciler.reconcile()).isEqualTo(1);
+
+        verify(eventService).evictCachedEvent(1L);
+        verify(eventService, never()).evictCachedEvent(2L);
+        verify(eventRegistrationRepository, never()).countByEventId(3L);
+        verify(eventPopularityRanking).rebuild();
+        assertThat(meterRegistry.get("events.registrations.reconciled").counter().count()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+import com.digitalsanctuary.spring.user.mail.MailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ActiveProfiles("test")
+public class EventReminderSchedulerTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Mock
+    private MailService mailService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EventReminderScheduler scheduler;
+
+    private Event soon;
+    private Event later;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new EventReminderScheduler(eventRepository, eventRegistrationRepository, mailService, meterRegistry, true, Duration.ofHours(24), 2, 3,
+                2, 10, "https://events.example.com");
+
+        LocalDateTime inOneHour = LocalDateTime.now().plusHours(1);
+        soon = event(1L, inOneHour, 5);
+        LocalDateTime inTwoDays = LocalDateTime.now().plusDays(2);
+        later = event(2L, inTwoDays, 5);
+        when(eventRepository.findPageAfterUpTo(any(), any(), any(), any(), any())).thenReturn(List.of(soon, later));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testClaimsInBatchesAndSendsOnlyOwnClaims() {
+        when(eventRegistrationRepository.findIdsWithoutReminder(1L, Limit.of(2))).thenReturn(List.of(10L, 11L));
+        when(eventRegistrationRepository.claimReminders(eq(List.of(10L, 11L)), anyString(), any())).thenReturn(2);
+        // Another instance claimed registration 12 first
+        when(eventRegistrationRepository.claimReminders(eq(List.of(12L)), anyString(), any())).thenReturn(0);
+        when(eventRegistrationRepository.findClaimedReminders(eq(List.of(10L, 11L)), anyString()))
+                .thenReturn(List.of(recipient(10L, "ada@example.com"), recipient(11L, "alan@example.com")));
+        when(eventRegistrationRepository.findIdsWithoutReminder(1L, Limit.of(1))).thenReturn(List.of(12L), List.of());
+
+        assertThat(scheduler.sendDueReminders()).isEqualTo(2);
+
+        verify(mailService, timeout(5_000)).sendTemplateMessage(eq("ada@example.com"), eq("Reminder: Event 1"), anyMap(), eq(EventReminderScheduler.TEMPLATE));
+        verify(mailService, timeout(5_000)).sendTemplateMessage(eq("alan@example.com"), eq("Reminder: Event 1"), anyMap(), eq(EventReminderScheduler.TEMPLATE));
+        verify(eventRegistrationRepository, never()).findClaimedReminders(eq(List.of(12L)), anyString());
+        // Outside the lead time
+        verify(eventRegistrationRepository, never()).findIdsWithoutReminder(eq(2L), any());
+    }
+
+    @Test
+    public void testFailedSendIsCountedAndNotRetried() throws Exception {
+        when(eventRegistrationRepository.findIdsWithoutReminder(eq(1L), any())).thenReturn(List.of(10L), List.of());
+        when(eventRegistrationRepository.claimReminders(eq(List.of(10L)), anyString(), any())).thenReturn(1);
+        when(eventRegistrationRepository.findClaimedReminders(eq(List.of(10L)), anyString())).thenReturn(List.of(recipient(10L, "ada@example.com")));
+        doThrow(new IllegalStateException("mail server down")).when(mailService).sendTemplateMessage(anyString(), anyString(), anyMap(), anyString());
+
+        assertThat(scheduler.sendDueReminders()).isEqualTo(1);
+        scheduler.shutdown();
+
+        assertThat(meterRegistry.get("events.reminders.failed").counter().count()).isEqualTo(1.0);
+        assertThat(scheduler.sendDueReminders()).isZero();
+    }
+
+    @Test
+    public void testClaimsNothingOnceShuttingDown() {
+        when(eventRegistrationRepository.findIdsWithoutReminder(eq(1L), any())).thenReturn(List.of(10L));
+        scheduler.shutdown();
+
+        assertThat(scheduler.sendDueReminders()).isZero();
+
+        verify(eventRegistrationRepository, never()).claimReminders(any(), anyString(), any());
+        verify(mailService, never()).sendTemplateMessage(anyString(), anyString(), anyMap(), anyString());
+    }
+
+    private static Event event(Long id, LocalDateTime start, int registeredCount) {
+        Event event = new Event();
+        event.setId(id);
+        event.setName("Event " + id);
+        event.setDate(start.toLocalDate());
+        event.setTime(start.toLocalTime());
+        event.setRegisteredCount(registeredCount);
+        return event;
+    }
+
+    private static RosterEntry recipient(Long registrationId, String email) {
+        return new RosterEntry(registrationId, registrationId + 100, email, "First", "Last");
+    }
+}
@@ -1,15 +1,23 @@
 package com.digitalsanctuary.spring.demo.event;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.boot.persistence.autoconfigure.EntityScan;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
+import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistration;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.test.builders.UserTestDataBuilder;
 
 @ActiveProfiles("test")
 @DataJpaTest
@@ -22,6 +30,9 @@ public class EventRepositoryTest {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void testSaveEvent() {
         Event event = new Event();
@@ -76,4 +87,152 @@ public class EventRepositoryTest {
 
         assertThat(events).hasSize(2);
     }
+
+    @Test
+    public void testKeysetPagination() {
+        LocalDate day = LocalDate.now().plusDays(10);
+        Event early = eventRepository.save(newEvent("Early", day, LocalTime.parse("09:00")));
+        Event sameSlotA = eventRepository.save(newEvent("Same Slot A", day, LocalTime.parse("12:00")));
+        Event sameSlotB = eventRepository.save(newEvent("Same Slot B", day, LocalTime.parse("12:00")));
+        Event nextDay = eventRepository.save(newEvent("Next Day", day.plusDays(1), LocalTime.parse("08:00")));
+
+        List<Event> firstPage = eventRepository.findAllByOrderByDateAscTimeAscIdAsc(Limit.of(2));
+        assertThat(firstPage).containsExactly(early, sameSlotA);
+
+        Event last = firstPage.get(1);
+        List<Event> secondPage = eventRepository.findPageAfter(last.getDate(), last.getTime(), last.getId(), Limit.of(2));
+        assertThat(secondPage).containsExactly(sameSlotB, nextDay);
+    }
+
+    @Test
+    public void testRangeQueries() {
+        LocalDate start = LocalDate.now().plusDays(100);
+        Event before = eventRepository.save(newEvent("Before", start.minusDays(1), LocalTime.parse("23:00")));
+        Event first = eventRepository.save(newEvent("First", start, LocalTime.MIN));
+        Event last = eventRepository.save(newEvent("Last", start.plusDays(2), LocalTime.parse("20:00")));
+        Event after = eventRepository.save(newEvent("After", start.plusDays(3), LocalTime.parse("08:00")));
+
+        List<Event> between = eventRepository.findPageAfterUpTo(start, LocalTime.MIN, Long.MIN_VALUE, start.plusDays(2), Limit.of(10));
+        assertThat(between).containsExactly(first, last);
+
+        List<Event> upTo = eventRepository.findByDateLessThanEqualOrderByDateAscTimeAscIdAsc(start.minusDays(1), Limit.of(10));
+        assertThat(upTo).contains(before).doesNotContain(first, last, after);
+    }
+
+    @Test
+    public void testVersionStamps() {
+        EventStamp emptyCatalog = eventRepository.findCatalogStamp();
+        assertThat(emptyCatalog.version()).isZero();
+
+        Event event = eventRepository.saveAndFlush(newEvent("Versioned", LocalDate.now().plusDays(5), LocalTime.NOON));
+        EventStamp created = eventRepository.findStampById(event.getId()).orElseThrow();
+        assertThat(created.version()).isEqualTo(1L);
+        assertThat(created.lastModified()).isNotNull();
+
+        event.setName("Versioned again");
+        eventRepository.saveAndFlush(event);
+        assertThat(eventRepository.findStampById(event.getId()).orElseThrow().version()).isEqualTo(2L);
+
+        EventStamp catalog = eventRepository.findCatalogStamp();
+        assertThat(catalog.version()).isEqualTo(1L);
+        assertThat(catalog.lastModified()).isNotNull();
+    }
+
+    @Test
+    public void testSeatChangesBumpTheEventVersionButNotTheCatalogStamp() {
+        Event event = eventRepository.saveAndFlush(newEvent("Seated", LocalDate.now().plusDays(5), LocalTime.NOON));
+        EventStamp eventBefore = eventRepository.findStampById(event.getId()).orElseThrow();
+        EventStamp catalogBefore = eventRepository.findCatalogStamp();
+
+        assertThat(eventRepository.claimSeat(event.getId())).isEqualTo(1);
+        entityManager.clear();
+
+        EventStamp eventAfter = eventRepository.findStampById(event.getId()).orElseThrow();
+        assertThat(eventAfter.version()).isEqualTo(eventBefore.version() + 1);
+        assertThat(eventAfter.lastModified()).isEqualTo(eventBefore.lastModified());
+        assertThat(eventRepository.findCatalogStamp()).isEqualTo(catalogBefore);
+        assertThat(eventRepository.findRegisteredCounts()).containsExactly(new EventRegisteredCount(event.getId(), 1));
+    }
+
+    @Test
+    public void testDeletingAnOlderEventMovesTheCatalogLastModified() {
+        Event older = eventRepository.saveAndFlush(newEvent("Older", LocalDate.now().plusDays(5), LocalTime.NOON));
+        eventRepository.saveAndFlush(newEvent("Newer", LocalDate.now().plusDays(6), LocalTime.NOON));
+        EventStamp before = eventRepository.findCatalogStamp();
+
+        eventRepository.deleteById(older.getId());
+        Instant deletedAt = before.lastModified().plusSeconds(1);
+        assertThat(eventRepository.markCatalogDeleted(deletedAt)).isZero();
+        assertThat(eventRepository.insertCatalogStateIfAbsent(deletedAt)).isEqualTo(1);
+        assertThat(eventRepository.insertCatalogStateIfAbsent(deletedAt)).isZero();
+        entityManager.clear();
+
+        EventStamp after = eventRepository.findCatalogStamp();
+        assertThat(after.lastModified()).isEqualTo(deletedAt);
+        assertThat(after.eTag("events")).isNotEqualTo(before.eTag("events"));
+        assertThat(eventRepository.markCatalogDeleted(deletedAt.plusSeconds(1))).isEqualTo(1);
+    }
+
+    @Test
+    public void testFindDetailsByIdReportsRegistrationOfGivenProfile() {
+        Event registered = eventRepository.save(newEvent("Registered", LocalDate.of(2030, 1, 1), LocalTime.NOON));
+        Event other = eventRepository.save(newEvent("Other", LocalDate.of(2030, 1, 2), LocalTime.NOON));
+        DemoUserProfile profile = newProfile();
+        EventRegistration registration = new EventRegistration();
+        registration.setEvent(registered);
+        profile.addEventRegistration(registration);
+        entityManager.persist(registration);
+        entityManager.flush();
+        entityManager.clear();
+
+        EventDetails details = eventRepository.findDetailsById(registered.getId(), profile.getId()).orElseThrow();
+        assertThat(details.event().getName()).isEqualTo("Registered");
+        assertThat(details.registered()).isTrue();
+
+        assertThat(eventRepository.findDetailsById(other.getId(), profile.getId()).orElseThrow().registered()).isFalse();
+        assertThat(eventRepository.findDetailsById(registered.getId(), -1L).orElseThrow().registered()).isFalse();
+        assertThat(eventRepository.findDetailsById(-1L, profile.getId())).isEmpty();
+    }
+
+    @Test
+    public void testRegistrationCountDriftIsFoundAndRepaired() {
+        Event drifted = eventRepository.save(newEvent("Drifted", LocalDate.now().plusDays(3), LocalTime.NOON));
+        Event exact = eventRepository.save(newEvent("Exact", LocalDate.now().plusDays(4), LocalTime.NOON));
+        DemoUserProfile profile = newProfile();
+        // Written straight to the table, bypassing claimSeat, so the counter stays at zero
+        EventRegistration registration = new EventRegistration();
+        registration.setEvent(drifted);
+        profile.addEventRegistration(registration);
+        entityManager.persist(registration);
+        entityManager.flush();
+
+        assertThat(eventRepository.findIdsWithDriftedRegisteredCount()).containsExactly(drifted.getId());
+        assertThat(eventRepository.setRegisteredCount(drifted.getId(), 1)).isEqualTo(1);
+        assertThat(eventRepository.setRegisteredCount(exact.getId(), 0)).isZero();
+        assertThat(eventRepository.findIdsWithDriftedRegisteredCount()).isEmpty();
+
+        assertThat(eventRepository.findPopularityAfter(0L, LocalDate.now(), Limit.of(10))).extracting(EventPopularity::eventId,
+                EventPopularity::registeredCount).containsExactly(tuple(drifted.getId(), 1));
+
+        assertThat(eventRepository.releaseSeatsHeldBy(profile.getId())).isEqualTo(1);
+        entityManager.clear();
+        assertThat(eventRepository.findById(drifted.getId()).orElseThrow().getRegisteredCount()).isZero();
+    }
+
+    private DemoUserProfile newProfile() {
+        User user = entityManager.persist(UserTestDataBuilder.aUser().withId(null).build());
+        DemoUserProfile profile = new DemoUserProfile();
+        profile.setUser(user);
+        return entityManager.persist(profile);
+    }
+
+    private Event newEvent(String name, LocalDate date, LocalTime time) {
+        Event event = new Event();
+        event.setName(name);
+        event.setDescription(name + " description");
+        event.setLocation("Hall");
+        event.setDate(date);
+        event.setTime(time);
+        return event;
+    }
 }
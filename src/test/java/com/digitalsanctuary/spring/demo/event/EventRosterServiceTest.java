@@ -0,0 +1,75 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import com.digitalsanctuary.spring.demo.user.profile.EventRegistrationRepository;
+
+@ActiveProfiles("test")
+public class EventRosterServiceTest {
+
+    @Mock
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    private EventRosterService rosterService;
+
+    private RosterEntry ada;
+    private RosterEntry alan;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rosterService = new EventRosterService(eventRegistrationRepository);
+
+        ada = new RosterEntry(10L, 1L, "ada@example.com", "Ada", "Lovelace, Countess");
+        alan = new RosterEntry(11L, 2L, "alan@example.com", "Alan", "Turing");
+    }
+
+    @Test
+    public void testGetRosterReturnsCursorWhenMoreRowsExist() {
+        when(eventRegistrationRepository.findRoster(5L, Limit.of(2))).thenReturn(List.of(ada, alan));
+
+        RosterPage page = rosterService.getRoster(5L, null, 1);
+
+        assertThat(page.entries()).containsExactly(ada);
+        assertThat(page.nextCursor()).isEqualTo("10");
+    }
+
+    @Test
+    public void testGetRosterAfterCursor() {
+        when(eventRegistrationRepository.findRosterAfter(5L, 10L, Limit.of(EventService.DEFAULT_PAGE_SIZE + 1))).thenReturn(List.of(alan));
+
+        RosterPage page = rosterService.getRoster(5L, "10", null);
+
+        assertThat(page.entries()).containsExactly(alan);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testGetRosterRejectsInvalidCursor() {
+        assertThatThrownBy(() -> rosterService.getRoster(5L, "not-a-cursor", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testExportCsv() throws Exception {
+        when(eventRegistrationRepository.streamRoster(5L)).thenReturn(Stream.of(ada, alan));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = rosterService.exportCsv(5L, out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("registration_id,user_id,email,first_name,last_name\n"
+                + "10,1,ada@example.com,Ada,\"Lovelace, Countess\"\n"
+                + "11,2,alan@example.com,Alan,Turing\n");
+    }
+}
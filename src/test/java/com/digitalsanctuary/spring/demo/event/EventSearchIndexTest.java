@@ -0,0 +1,97 @@
+package com.digitalsanctuary.spring.demo.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+public class EventSearchIndexTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    private EventSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new EventSearchIndex(eventRepository);
+    }
+
+    @Test
+    public void testNameMatchesRankAboveDescriptionMatches() {
+        index.index(event(1L, "Cloud Summit", "Talks about kubernetes", "Seattle"));
+        index.index(event(2L, "Kubernetes Deep Dive", "Hands-on workshop", "Austin"));
+
+        assertThat(index.search("kubernetes", 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void testPrefixMatching() {
+        index.index(event(1L, "Spring Boot Workshop", "Learn Spring Boot", "New York"));
+        index.index(event(2L, "Java Launch Party", "Celebrating Java", "Denver"));
+
+        assertThat(index.search("wor", 10)).containsExactly(1L);
+        assertThat(index.search("new yo", 10)).containsExactly(1L);
+        assertThat(index.search("w", 10)).isEmpty();
+    }
+
+    @Test
+    public void testAllTermsMustMatch() {
+        index.index(event(1L, "Spring Boot Workshop", "Learn Spring Boot", "New York"));
+        index.index(event(2L, "Spring Security", "Securing apps", "Boston"));
+
+        assertThat(index.search("spring boston", 10)).containsExactly(2L);
+        assertThat(index.search("spring paris", 10)).isEmpty();
+    }
+
+    @Test
+    public void testReindexAndRemoveAreIncremental() {
+        index.index(event(1L, "Old Name", "Description", "Venue"));
+        index.index(event(1L, "New Name", "Description", "Venue"));
+
+        assertThat(index.search("old", 10)).isEmpty();
+        assertThat(index.search("new", 10)).containsExactly(1L);
+
+        index.remove(1L);
+        assertThat(index.search("new", 10)).isEmpty();
+        assertThat(index.termCount()).isZero();
+    }
+
+    @Test
+    public void testRebuildPagesThroughRepository() {
+        Event event = event(7L, "Database Tuning", "Indexes", "Atlanta");
+        when(eventRepository.findAllByOrderByDateAscTimeAscIdAsc(any(Limit.class))).thenReturn(List.of(event));
+        index.index(event(99L, "Stale", "Gone", "Nowhere"));
+
+        index.rebuild();
+
+        assertThat(index.search("tuning", 10)).containsExactly(7L);
+        assertThat(index.search("stale", 10)).isEmpty();
+    }
+
+    @Test
+    public void testTokenize() {
+        assertThat(EventSearchIndex.tokenize("Kubernetes: Deep-Dive, DEEP dive!")).containsExactly("kubernetes", "deep", "dive");
+    }
+
+    private Event event(Long id, String name, String description, String location) {
+        Event event = new Event();
+        event.setId(id);
+        event.setName(name);
+        event.setDescription(description);
+        event.setLocation(location);
+        event.setDate(LocalDate.of(2030, 1, 1));
+        event.setTime(LocalTime.NOON);
+        return event;
+    }
+}
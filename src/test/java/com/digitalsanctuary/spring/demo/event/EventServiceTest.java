@@ -1,19 +1,33 @@
 package com.digitalsanctuary.spring.demo.event;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import tools.jackson.databind.json.JsonMapper;
 
 @ActiveProfiles("test")
 public class EventServiceTest {
@@ -21,12 +35,24 @@ public class EventServiceTest {
     @Mock
     private EventRepository eventRepository;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     private EventService eventService;
 
+    private EventPopularityRanking eventPopularityRanking;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        eventPopularityRanking = new EventPopularityRanking(eventRepository);
+        eventService = new EventService(eventRepository, new EventCache(Duration.ofMinutes(5), 100, new SimpleMeterRegistry()),
+                new EventSearchIndex(eventRepository), new EventListSnapshotCache(JsonMapper.builder().build()), eventPopularityRanking,
+                eventPublisher);
+        ReflectionTestUtils.setField(eventService, "entityManager", entityManager);
     }
 
     @Test
@@ -57,6 +83,115 @@ public class EventServiceTest {
         assertThat(foundEvent.get().getName()).isEqualTo("Concert");
     }
 
+    @Test
+    public void testGetEventByIdIsCached() {
+        Event event = new Event();
+        event.setId(1L);
+        event.setName("Concert");
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+
+        eventService.getEventById(1L);
+        eventService.getEventById(1L);
+        eventService.getAllEvents();
+        eventService.getAllEvents();
+
+        verify(eventRepository, times(1)).findById(1L);
+        verify(eventRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void testGetEventDetailsForAnonymousVisitorUsesCache() {
+        Event event = new Event();
+        event.setId(1L);
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+
+        Optional<EventDetails> details = eventService.getEventDetails(1L, null);
+
+        assertThat(details).contains(new EventDetails(event, false));
+        verify(eventRepository, never()).findDetailsById(any(), any());
+    }
+
+    @Test
+    public void testGetEventDetailsForProfileUsesSingleQuery() {
+        Event event = new Event();
+        event.setId(1L);
+
+        when(eventRepository.findDetailsById(1L, 7L)).thenReturn(Optional.of(new EventDetails(event, true)));
+
+        Optional<EventDetails> details = eventService.getEventDetails(1L, 7L);
+
+        assertThat(details).contains(new EventDetails(event, true));
+        verify(eventRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testAllEventsSnapshotIsRebuiltOnlyWhenCatalogChanges() {
+        Event event = new Event();
+        event.setId(1L);
+        event.setName("Concert");
+        EventStamp stamp = new EventStamp(1L, Instant.parse("2030-01-01T10:15:30Z"));
+
+        when(eventRepository.findAll()).thenReturn(List.of(event));
+        when(eventRepository.save(event)).thenReturn(event);
+
+        EventListSnapshot first = eventService.getAllEventsSnapshot(stamp);
+        assertThat(eventService.getAllEventsSnapshot(stamp)).isSameAs(first);
+        assertThat(new String(first.json(), StandardCharsets.UTF_8)).contains("\"name\":\"Concert\"");
+
+        // A different stamp means another instance changed the catalog
+        EventStamp newer = new EventStamp(2L, Instant.parse("2030-01-02T10:15:30Z"));
+        EventListSnapshot second = eventService.getAllEventsSnapshot(newer);
+        assertThat(second).isNotSameAs(first);
+
+        // A local write drops the snapshot even before the stamp moves
+        eventService.createEvent(event);
+        assertThat(eventService.getAllEventsSnapshot(newer)).isNotSameAs(second);
+        verify(eventRepository, times(3)).findAll();
+    }
+
+    @Test
+    public void testWritesEvictCachedEvents() {
+        Event event = new Event();
+        event.setId(1L);
+        event.setName("Concert");
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(eventRepository.save(event)).thenReturn(event);
+
+        eventService.getEventById(1L);
+        eventService.getAllEvents();
+        eventService.updateEvent(1L, event);
+        eventService.getAllEvents();
+
+        // One load for the initial read, one inside updateEvent; the update then evicts the cached copy
+        eventService.getEventById(1L);
+        verify(eventRepository, times(3)).findById(1L);
+        verify(eventRepository, times(2)).findAll();
+
+        eventService.deleteEvent(1L);
+        eventService.getEventById(1L);
+        verify(eventRepository, times(4)).findById(1L);
+    }
+
+    @Test
+    public void testSearchFollowsWrites() {
+        Event event = event(1L, LocalDate.of(2030, 1, 1), LocalTime.NOON);
+        event.setName("Spring Workshop");
+        event.setLocation("Berlin");
+        event.setDescription("Hands-on");
+
+        when(eventRepository.save(event)).thenReturn(event);
+        when(eventRepository.findAllById(List.of(1L))).thenReturn(List.of(event));
+
+        eventService.createEvent(event);
+        assertThat(eventService.searchEvents("work", 10)).containsExactly(event);
+
+        eventService.deleteEvent(1L);
+        assertThat(eventService.searchEvents("work", 10)).isEmpty();
+    }
+
     @Test
     public void testCreateEvent() {
         Event event = new Event();
@@ -84,6 +219,46 @@ public class EventServiceTest {
         assertThat(updatedEvent.getName()).isEqualTo("Concert");
     }
 
+    @Test
+    public void testRaisingTheCapacityPromotesFromTheWaitlist() {
+        Event event = new Event();
+        event.setName("Concert");
+        event.setCapacity(10);
+        Event details = new Event();
+        details.setName("Concert");
+        details.setCapacity(12);
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(eventRepository.save(event)).thenReturn(event);
+
+        eventService.updateEvent(1L, details);
+
+        verify(eventRepository).flush();
+        verify(eventPublisher).publishEvent(new EventCapacityIncreasedEvent(1L));
+        verify(entityManager).refresh(event);
+    }
+
+    @Test
+    public void testLoweringOrSettingTheCapacityPromotesNobody() {
+        Event event = new Event();
+        event.setName("Concert");
+        event.setCapacity(10);
+        Event details = new Event();
+        details.setName("Concert");
+        details.setCapacity(8);
+
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event));
+        when(eventRepository.save(event)).thenReturn(event);
+
+        eventService.updateEvent(1L, details);
+        event.setCapacity(null);
+        details.setCapacity(5);
+        eventService.updateEvent(1L, details);
+
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(entityManager, never()).refresh(any());
+    }
+
     @Test
     public void testDeleteEvent() {
         Event event = new Event();
@@ -96,8 +271,108 @@ public class EventServiceTest {
 
         // Verify the repository's deleteById method was called with the correct ID
         verify(eventRepository, times(1)).deleteById(1L);
+        // The first delete creates the catalog state row that moves the catalog's Last-Modified
+        verify(eventRepository).markCatalogDeleted(any(Instant.class));
+        verify(eventRepository).insertCatalogStateIfAbsent(any(Instant.class));
 
         // Optionally, verify that findById was not called again after the deletion
         verify(eventRepository, never()).findById(1L);
     }
+
+    @Test
+    public void testGetEventPageFirstPageWithMore() {
+        Event event1 = event(1L, LocalDate.of(2030, 1, 1), LocalTime.of(9, 0));
+        Event event2 = event(2L, LocalDate.of(2030, 1, 1), LocalTime.of(10, 0));
+        Event event3 = event(3L, LocalDate.of(2030, 1, 2), LocalTime.of(9, 0));
+
+        when(eventRepository.findAllByOrderByDateAscTimeAscIdAsc(any(Limit.class))).thenReturn(List.of(event1, event2, event3));
+
+        EventPage page = eventService.getEventPage(null, 2);
+
+        assertThat(page.events()).containsExactly(event1, event2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(EventCursor.decode(page.nextCursor())).isEqualTo(new EventCursor(LocalDate.of(2030, 1, 1), LocalTime.of(10, 0), 2L));
+    }
+
+    @Test
+    public void testGetEventPageSeeksPastCursor() {
+        Event event3 = event(3L, LocalDate.of(2030, 1, 2), LocalTime.of(9, 0));
+        EventCursor cursor = new EventCursor(LocalDate.of(2030, 1, 1), LocalTime.of(10, 0), 2L);
+
+        when(eventRepository.findPageAfter(eq(cursor.date()), eq(cursor.time()), eq(cursor.id()), any(Limit.class))).thenReturn(List.of(event3));
+
+        EventPage page = eventService.getEventPage(cursor.encode(), 2);
+
+        assertThat(page.events()).containsExactly(event3);
+        assertThat(page.hasNext()).isFalse();
+        verify(eventRepository, never()).findAllByOrderByDateAscTimeAscIdAsc(any(Limit.class));
+    }
+
+    @Test
+    public void testGetUpcomingEventPageIgnoresCursorInThePast() {
+        EventCursor stale = new EventCursor(LocalDate.now().minusYears(1), LocalTime.NOON, 5L);
+        when(eventRepository.findPageAfter(any(), any(), any(), any(Limit.class))).thenReturn(List.of());
+
+        eventService.getUpcomingEventPage(stale.encode(), 10);
+
+        verify(eventRepository).findPageAfter(eq(LocalDate.now()), any(), eq(Long.MIN_VALUE), any(Limit.class));
+    }
+
+    @Test
+    public void testGetEventPageInMonthBoundsTheRange() {
+        when(eventRepository.findPageAfterUpTo(any(), any(), any(), any(), any(Limit.class))).thenReturn(List.of());
+
+        eventService.getEventPageInMonth(YearMonth.of(2030, 2), null, 10);
+
+        verify(eventRepository).findPageAfterUpTo(eq(LocalDate.of(2030, 2, 1)), eq(LocalTime.MIN), eq(Long.MIN_VALUE), eq(LocalDate.of(2030, 2, 28)),
+                any(Limit.class));
+    }
+
+    @Test
+    public void testGetEventPageBetweenRejectsInvertedRange() {
+        assertThatThrownBy(() -> eventService.getEventPageBetween(LocalDate.of(2030, 2, 1), LocalDate.of(2030, 1, 1), null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testGetEventPageRejectsInvalidCursor() {
+        assertThatThrownBy(() -> eventService.getEventPage("not-a-cursor", 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Event event(Long id, LocalDate date, LocalTime time) {
+        Event event = new Event();
+        event.setId(id);
+        event.setName("Event " + id);
+        event.setDate(date);
+        event.setTime(time);
+        return event;
+    }
+
+    @Test
+    public void testRecordRegistrationChangeMovesEventInTrending() {
+        Event popular = new Event();
+        popular.setId(1L);
+        popular.setName("Popular");
+        popular.setDate(LocalDate.now().plusDays(1));
+        popular.setTime(LocalTime.NOON);
+        popular.setRegisteredCount(2);
+        Event quiet = new Event();
+        quiet.setId(2L);
+        quiet.setName("Quiet");
+        quiet.setDate(LocalDate.now().plusDays(1));
+        quiet.setTime(LocalTime.NOON);
+        quiet.setRegisteredCount(1);
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(popular));
+        when(eventRepository.findById(2L)).thenReturn(Optional.of(quiet));
+
+        eventService.recordRegistrationChange(1L, 1);
+        eventService.recordRegistrationChange(2L, 1);
+        assertThat(eventService.getTrendingEvents(10)).extracting(Event::getName).containsExactly("Popular", "Quiet");
+
+        // Ranked events move without being loaded again
+        eventService.recordRegistrationChange(2L, 2);
+        eventService.recordRegistrationChange(1L, -2);
+        assertThat(eventService.getTrendingEvents(1)).extracting(Event::getName).containsExactly("Quiet");
+        verify(eventRepository, times(2)).findById(2L);
+    }
 }
@@ -0,0 +1,48 @@
+package com.digitalsanctuary.spring.demo.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class SqlStatisticsTest {
+
+    @Test
+    public void testStatementsCountTowardsEveryOpenScope() {
+        try (SqlStatistics.Scope outer = SqlStatistics.openCapturing()) {
+            SqlStatistics.record("select 1", 1_000_000);
+            try (SqlStatistics.Scope inner = SqlStatistics.open()) {
+                SqlStatistics.record("select 2", 2_000_000);
+                assertThat(inner.statementCount()).isEqualTo(1);
+                assertThat(inner.statements()).isEmpty();
+            }
+            SqlStatistics.record("select 3", 3_000_000);
+
+            assertThat(outer.statementCount()).isEqualTo(3);
+            assertThat(outer.time()).isEqualTo(Duration.ofMillis(6));
+            assertThat(outer.statements()).containsExactly("select 1", "select 2", "select 3");
+        }
+        assertThat(SqlStatistics.isActive()).isFalse();
+    }
+
+    @Test
+    public void testNothingIsRecordedWithoutAScope() {
+        SqlStatistics.record("select 1", 1_000);
+
+        try (SqlStatistics.Scope scope = SqlStatistics.open()) {
+            assertThat(scope.statementCount()).isZero();
+        }
+    }
+
+    @Test
+    public void testClosingOuterScopeEndsInnerScope() {
+        SqlStatistics.Scope outer = SqlStatistics.open();
+        SqlStatistics.Scope inner = SqlStatistics.open();
+
+        outer.close();
+        SqlStatistics.record("select 1", 1_000);
+        inner.close();
+
+        assertThat(SqlStatistics.isActive()).isFalse();
+        assertThat(inner.statementCount()).isZero();
+    }
+}
@@ -0,0 +1,102 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import com.digitalsanctuary.spring.demo.UserDemoApplication;
+import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventRepository;
+import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import com.digitalsanctuary.spring.user.dto.UserDto;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import com.digitalsanctuary.spring.user.service.UserService;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * Logs in and registers for an event with sessions stored by the {@code jdbc-session} profile, then reads the stored session
+ * back. Not transactional: the requests and the session store commit on their own, so the data they use must be committed too.
+ */
+@SpringBootTest(classes = UserDemoApplication.class,
+        properties = {"spring.profiles.active=test,jdbc-session", "app.sessions.jdbc.platform=h2"})
+@AutoConfigureMockMvc
+public class JdbcSessionLoginTest {
+
+    private static final String PROFILE_ATTRIBUTE = "scopedTarget.demoSessionProfile";
+    private static final String SECURITY_ATTRIBUTE = "SPRING_SECURITY_CONTEXT";
+    private static final String EMAIL = "jdbc.session@example.com";
+    private static final String PASSWORD = "Sess1on!Passw0rd";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private FindByIndexNameSessionRepository<? extends Session> sessionRepository;
+
+    @Test
+    public void testLoginAndRegistrationAreStoredInTheSession() throws Exception {
+        User user = createUser();
+        Event event = createEvent();
+
+        MvcResult login = mockMvc.perform(post("/user/login").param("username", EMAIL).param("password", PASSWORD).with(csrf()))
+                .andExpect(status().is3xxRedirection()).andReturn();
+        Cookie sessionCookie = login.getResponse().getCookie("SESSION");
+        assertThat(sessionCookie).isNotNull();
+
+        mockMvc.perform(post("/api/events/{eventId}/register", event.getId()).cookie(sessionCookie).with(csrf())).andExpect(status().isOk());
+
+        Map<String, ? extends Session> sessions = sessionRepository.findByPrincipalName(UserSessionRegistry.principalIndexName(user.getId()));
+        assertThat(sessions).hasSize(1);
+        Session stored = sessions.values().iterator().next();
+        SecurityContext securityContext = stored.getAttribute(SECURITY_ATTRIBUTE);
+        assertThat(securityContext.getAuthentication().getName()).isEqualTo(EMAIL);
+        DemoSessionProfile profile = stored.getAttribute(PROFILE_ATTRIBUTE);
+        assertThat(profile.getProfileId()).isNotNull();
+        // Needs the repositories the store wired back into the bean on read
+        assertThat(profile.isRegisteredForEvent(event.getId())).isTrue();
+    }
+
+    private User createUser() {
+        UserDto userDto = new UserDto();
+        userDto.setFirstName("Jdbc");
+        userDto.setLastName("Session");
+        userDto.setEmail(EMAIL);
+        userDto.setPassword(PASSWORD);
+        userDto.setMatchingPassword(PASSWORD);
+        User user = userService.registerNewUserAccount(userDto);
+        user.setEnabled(true);
+        return userRepository.saveAndFlush(user);
+    }
+
+    private Event createEvent() {
+        Event event = new Event();
+        event.setName("Session Test Event");
+        event.setDescription("Session Test Event description");
+        event.setLocation("Stadium");
+        event.setDate(LocalDate.now().plusDays(7));
+        event.setTime(LocalTime.of(18, 0));
+        return eventRepository.save(event);
+    }
+}
@@ -0,0 +1,247 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.digitalsanctuary.spring.demo.user.profile.session.DemoSessionProfile;
+import com.digitalsanctuary.spring.demo.user.profile.session.SessionProfileSnapshot;
+import com.digitalsanctuary.spring.user.oauth2.OAuth2TestUtils;
+import com.digitalsanctuary.spring.user.service.DSUserDetails;
+import com.digitalsanctuary.spring.user.test.builders.UserTestDataBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the JDBC session store against an embedded H2 database created from Spring Session's own schema script.
+ */
+public class JdbcSessionRepositoryTest {
+
+    private static final String PROFILE_ATTRIBUTE = "scopedTarget.demoSessionProfile";
+    private static final String SECURITY_ATTRIBUTE = "SPRING_SECURITY_CONTEXT";
+
+    private EmbeddedDatabase database;
+    private CompactSessionSerializer serializer;
+    private SimpleMeterRegistry meterRegistry;
+    private DirtyCheckingSessionRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(EmbeddedDatabaseType.H2)
+                .addScript("org/springframework/session/jdbc/schema-h2.sql").build();
+        meterRegistry = new SimpleMeterRegistry();
+        serializer = new CompactSessionSerializer(snapshot -> {
+            DemoSessionProfile profile = new DemoSessionProfile();
+            profile.setSnapshot(snapshot);
+            return profile;
+        }, userId -> userId == 42L ? frameworkUser(42L) : null, meterRegistry);
+        repository = new DirtyCheckingSessionRepository(jdbcRepository(serializer, serializer), meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    public void testProfileAndSecurityContextSurviveTheDatabase() {
+        DirtyCheckingSessionRepository.TrackedSession session = repository.createSession();
+        session.setAttribute(PROFILE_ATTRIBUTE, profile(7L, 3));
+        session.setAttribute(SECURITY_ATTRIBUTE, securityContext("user@example.com"));
+        repository.save(session);
+
+        DirtyCheckingSessionRepository.TrackedSession loaded = repository.findById(session.getId());
+        DemoSessionProfile profile = loaded.getAttribute(PROFILE_ATTRIBUTE);
+        SecurityContextImpl context = loaded.getAttribute(SECURITY_ATTRIBUTE);
+
+        assertThat(profile.getProfileId()).isEqualTo(7L);
+        assertThat(profile.getSnapshot().registeredEventIds()).containsExactly(1L, 2L, 3L);
+        assertThat(profile.getFavoriteColor()).isEqualTo("teal");
+        assertThat(context.getAuthentication().getName()).isEqualTo("user@example.com");
+        assertThat(context.getAuthentication().getAuthorities()).extracting(Object::toString).containsExactly("LOGIN_PRIVILEGE");
+    }
+
+    @Test
+    public void testLoginSecurityContextIsStoredWithoutJavaSerialization() {
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("LOGIN_PRIVILEGE", "REGISTER_FOR_EVENT_PRIVILEGE");
+        DSUserDetails userDetails = new DSUserDetails(frameworkUser(42L), authorities);
+        byte[] bytes = serializer.toBytes(new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(userDetails, null, authorities)));
+
+        SecurityContextImpl context = (SecurityContextImpl) serializer.fromBytes(bytes);
+
+        assertThat(context.getAuthentication().getPrincipal()).isInstanceOfSatisfying(DSUserDetails.class,
+                principal -> assertThat(principal.getUser().getId()).isEqualTo(42L));
+        assertThat(context.getAuthentication().getName()).isEqualTo("user42@example.com");
+        assertThat(context.getAuthentication().getAuthorities()).extracting(Object::toString)
+                .containsExactly("LOGIN_PRIVILEGE", "REGISTER_FOR_EVENT_PRIVILEGE");
+        // Tag, form, id, then the two authority strings
+        assertThat(bytes.length).isLessThan(60);
+        assertThat(serializer.toBytes(context)).isEqualTo(bytes);
+        assertThat(meterRegistry.get("sessions.security.encodings").tag("form", "compact").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDeletedUserReadsBackAsAnEmptySecurityContext() {
+        DSUserDetails userDetails = new DSUserDetails(frameworkUser(7L), AuthorityUtils.createAuthorityList("LOGIN_PRIVILEGE"));
+        byte[] bytes = serializer.toBytes(new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(userDetails, null, userDetails.getAuthorities())));
+
+        assertThat(((SecurityContextImpl) serializer.fromBytes(bytes)).getAuthentication()).isNull();
+    }
+
+    @Test
+    public void testOAuth2SecurityContextFallsBackToJavaSerialization() {
+        OAuth2AuthenticationToken token = OAuth2TestUtils.createGoogleOAuth2Token("oauth@example.com", "OAuth User");
+
+        SecurityContextImpl context = (SecurityContextImpl) serializer.fromBytes(serializer.toBytes(new SecurityContextImpl(token)));
+
+        assertThat(context.getAuthentication()).isInstanceOf(OAuth2AuthenticationToken.class);
+        assertThat(context.getAuthentication().getName()).isEqualTo(token.getName());
+        assertThat(meterRegistry.get("sessions.security.encodings").tag("form", "java").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUnchangedAttributeIsNotWrittenBack() {
+        DirtyCheckingSessionRepository.TrackedSession session = repository.createSession();
+        session.setAttribute(PROFILE_ATTRIBUTE, profile(7L, 3));
+        repository.save(session);
+
+        // What the session scope does at the end of every request that touched the bean
+        DirtyCheckingSessionRepository.TrackedSession loaded = repository.findById(session.getId());
+        DemoSessionProfile profile = loaded.getAttribute(PROFILE_ATTRIBUTE);
+        loaded.setAttribute(PROFILE_ATTRIBUTE, profile);
+        repository.save(loaded);
+        assertThat(meterRegistry.get("sessions.attribute.writes").tag("result", "skipped").counter().count()).isEqualTo(1);
+
+        profile.markRegistered(4L);
+        loaded.setAttribute(PROFILE_ATTRIBUTE, profile);
+        repository.save(loaded);
+        assertThat(meterRegistry.get("sessions.attribute.writes").tag("result", "written").counter().count()).isEqualTo(2);
+
+        DemoSessionProfile reloaded = repository.findById(session.getId()).getAttribute(PROFILE_ATTRIBUTE);
+        assertThat(reloaded.getSnapshot().registeredEventIds()).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void testProfileEncodingIsCompact() {
+        byte[] bytes = serializer.toBytes(profile(7L, 100));
+
+        // Tag, flags, id and stamp, color, count, then one byte per consecutive id
+        assertThat(bytes.length).isLessThan(120);
+        assertThat(serializer.toBytes(serializer.fromBytes(bytes))).isEqualTo(bytes);
+    }
+
+    /**
+     * Session read and write latency on H2 for 2,000 sessions, compact encoding against Java serialization of the same state,
+     * and a request that changes nothing against one that rewrites the profile. Opt-in: {@code ./gradlew test -Dbenchmark=true
+     * --tests '*JdbcSessionRepositoryTest'}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkSessionReadAndWrite() {
+        int sessions = 2_000;
+        DefaultSerializer javaSerializer = new DefaultSerializer();
+        DefaultDeserializer javaDeserializer = new DefaultDeserializer();
+        JdbcIndexedSessionRepository java = jdbcRepository(javaSerializer, javaDeserializer);
+        JdbcIndexedSessionRepository compact = jdbcRepository(serializer, serializer);
+
+        for (int registrations : new int[] {10, 200}) {
+            List<String> javaIds = createSessions(java, sessions, registrations, true);
+            List<String> compactIds = createSessions(compact, sessions, registrations, false);
+            System.out.printf("registrations=%d: java read %.1f us, compact read %.1f us%n", registrations, readMicros(java, javaIds),
+                    readMicros(compact, compactIds));
+
+            List<String> trackedIds = createSessions(repository, sessions, registrations, false);
+            System.out.printf("registrations=%d: unchanged request %.1f us, changed request %.1f us%n", registrations,
+                    requestMicros(trackedIds, false), requestMicros(trackedIds, true));
+        }
+    }
+
+    private List<String> createSessions(SessionRepository<? extends Session> target, int count, int registrations, boolean javaState) {
+        @SuppressWarnings("unchecked")
+        SessionRepository<Session> sessions = (SessionRepository<Session>) target;
+        return LongStream.range(0, count).mapToObj(i -> {
+            Session session = sessions.createSession();
+            DemoSessionProfile profile = profile(i + 1, registrations);
+            session.setAttribute(PROFILE_ATTRIBUTE, javaState ? profile.getSnapshot() : profile);
+            session.setAttribute(SECURITY_ATTRIBUTE, securityContext("user" + i + "@example.com"));
+            sessions.save(session);
+            return session.getId();
+        }).toList();
+    }
+
+    private static double readMicros(JdbcIndexedSessionRepository sessions, List<String> ids) {
+        long start = System.nanoTime();
+        for (String id : ids) {
+            Session session = sessions.findById(id);
+            session.getAttribute(PROFILE_ATTRIBUTE);
+            session.getAttribute(SECURITY_ATTRIBUTE);
+        }
+        return (System.nanoTime() - start) / 1000.0 / ids.size();
+    }
+
+    /** Load, touch the profile as a page would, set it back, save. */
+    private double requestMicros(List<String> ids, boolean change) {
+        long start = System.nanoTime();
+        for (String id : ids) {
+            DirtyCheckingSessionRepository.TrackedSession session = repository.findById(id);
+            DemoSessionProfile profile = session.getAttribute(PROFILE_ATTRIBUTE);
+            if (change) {
+                profile.markRegistered(1_000_000L + id.hashCode());
+            }
+            session.setAttribute(PROFILE_ATTRIBUTE, profile);
+            repository.save(session);
+        }
+        return (System.nanoTime() - start) / 1000.0 / ids.size();
+    }
+
+    private JdbcIndexedSessionRepository jdbcRepository(Serializer<Object> out, Deserializer<Object> in) {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, new SerializingConverter(out));
+        conversionService.addConverter(byte[].class, Object.class, new DeserializingConverter(in));
+        JdbcIndexedSessionRepository jdbcRepository = new JdbcIndexedSessionRepository(new JdbcTemplate(database),
+                new TransactionTemplate(new DataSourceTransactionManager(database)));
+        jdbcRepository.setConversionService(conversionService);
+        return jdbcRepository;
+    }
+
+    private static DemoSessionProfile profile(long profileId, int registrations) {
+        DemoSessionProfile profile = new DemoSessionProfile();
+        profile.setSnapshot(new SessionProfileSnapshot(profileId, 5, "teal", true, null)
+                .withRegisteredEventIds(LongStream.rangeClosed(1, registrations).boxed().toList()));
+        return profile;
+    }
+
+    private static com.digitalsanctuary.spring.user.persistence.model.User frameworkUser(long id) {
+        return UserTestDataBuilder.aUser().withId(id).withEmail("user" + id + "@example.com").build();
+    }
+
+    private static SecurityContextImpl securityContext(String username) {
+        User user = new User(username, "", AuthorityUtils.createAuthorityList("LOGIN_PRIVILEGE"));
+        return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+    }
+}
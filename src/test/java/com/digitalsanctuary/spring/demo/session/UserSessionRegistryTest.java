@@ -0,0 +1,177 @@
+package com.digitalsanctuary.spring.demo.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.event.InteractiveAuthenticationSuccessEvent;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.Session;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.digitalsanctuary.spring.user.oauth2.OAuth2TestUtils;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpSessionEvent;
+
+public class UserSessionRegistryTest {
+
+    private ObjectProvider<FindByIndexNameSessionRepository<?>> indexedSessionRepository;
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserSessionRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        indexedSessionRepository = mock(ObjectProvider.class);
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new UserSessionRegistry(indexedSessionRepository, userRepository, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testEndsOnlyTheUsersSessionsExceptTheKeptOne() {
+        MockHttpSession first = new MockHttpSession();
+        MockHttpSession second = new MockHttpSession();
+        MockHttpSession current = new MockHttpSession();
+        MockHttpSession otherUser = new MockHttpSession();
+        registry.register(1L, first);
+        registry.register(1L, second);
+        registry.register(1L, current);
+        registry.register(2L, otherUser);
+
+        assertThat(registry.invalidateSessions(user(1L), current.getId())).isEqualTo(2);
+
+        assertThat(first.isInvalid()).isTrue();
+        assertThat(second.isInvalid()).isTrue();
+        assertThat(current.isInvalid()).isFalse();
+        assertThat(otherUser.isInvalid()).isFalse();
+        assertThat(registry.getSessionIds(1L)).containsExactly(current.getId());
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("sessions.registry.tracked").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDestroyedAndRenamedSessionsAreFollowed() {
+        MockHttpSession session = new MockHttpSession(null, "before");
+        registry.register(1L, session);
+
+        MockHttpSession renamed = new MockHttpSession(null, "after");
+        registry.sessionIdChanged(new HttpSessionEvent(renamed), "before");
+        assertThat(registry.getSessionIds(1L)).containsExactly("after");
+
+        registry.sessionDestroyed(new HttpSessionEvent(renamed));
+        assertThat(registry.getSessionIds(1L)).isEmpty();
+        assertThat(registry.size()).isZero();
+        assertThat(registry.invalidateSessions(user(1L), null)).isZero();
+    }
+
+    @Test
+    public void testUsesThePrincipalIndexWhenSessionsAreStoredElsewhere() {
+        @SuppressWarnings("unchecked")
+        FindByIndexNameSessionRepository<Session> repository = mock(FindByIndexNameSessionRepository.class);
+        when(repository.findByPrincipalName("user@example.com")).thenReturn(Map.of("a", mock(Session.class), "b", mock(Session.class)));
+        doReturn(repository).when(indexedSessionRepository).getIfAvailable();
+
+        assertThat(registry.invalidateSessions(user(1L), "b")).isEqualTo(1);
+        verify(repository).deleteById("a");
+    }
+
+    @Test
+    public void testOAuth2LoginIsIndexedByUserId() {
+        @SuppressWarnings("unchecked")
+        FindByIndexNameSessionRepository<Session> repository = mock(FindByIndexNameSessionRepository.class);
+        doReturn(repository).when(indexedSessionRepository).getIfAvailable();
+        when(userRepository.findByEmail("oauth@example.com")).thenReturn(user(5L));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        OAuth2AuthenticationToken token = OAuth2TestUtils.createGoogleOAuth2Token("oauth@example.com", "OAuth User");
+        registry.onInteractiveAuthenticationSuccess(new InteractiveAuthenticationSuccessEvent(token, getClass()));
+
+        // The provider's subject is the authentication name, so the default index would not find the session by email
+        assertThat(token.getName()).startsWith("google-user-");
+        assertThat(request.getSession().getAttribute(FindByIndexNameSessionRepository.PRINCIPAL_NAME_INDEX_NAME)).isEqualTo("user-id:5");
+
+        when(repository.findByPrincipalName("user-id:5")).thenReturn(Map.of("c", mock(Session.class)));
+        assertThat(registry.invalidateSessions(user(5L), null)).isEqualTo(1);
+        verify(repository).deleteById("c");
+    }
+
+    @Test
+    public void testOAuth2LoginIsTrackedWithoutSpringSession() {
+        when(userRepository.findByEmail("oauth@example.com")).thenReturn(user(5L));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        registry.onInteractiveAuthenticationSuccess(
+                new InteractiveAuthenticationSuccessEvent(OAuth2TestUtils.createGoogleOAuth2Token("oauth@example.com", "OAuth User"), getClass()));
+
+        assertThat(registry.getSessionIds(5L)).containsExactly(request.getSession().getId());
+    }
+
+    /**
+     * Ending one user's sessions among 500,000 live ones: the registry lookup against a scan of every session, which is what a
+     * registry keyed by principal object has to do to find a user by id. Opt-in: {@code ./gradlew test -Dbenchmark=true
+     * --tests '*UserSessionRegistryTest'}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkInvalidationAmongHalfAMillionSessions() {
+        int sessionCount = 500_000;
+        int users = 250_000;
+        long[] owners = new long[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            owners[i] = i % users;
+            registry.register(owners[i], new MockHttpSession(null, "s" + i));
+        }
+        int lookups = 1_000;
+
+        long start = System.nanoTime();
+        int ended = 0;
+        for (int i = 0; i < lookups; i++) {
+            ended += registry.invalidateSessions(user(i * 97L % users), null);
+        }
+        double indexedMicros = (System.nanoTime() - start) / 1000.0 / lookups;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < lookups; i++) {
+            long userId = (i * 89L + 1) % users;
+            for (int s = 0; s < sessionCount; s++) {
+                if (owners[s] == userId) {
+                    found++;
+                }
+            }
+        }
+        double scanMicros = (System.nanoTime() - start) / 1000.0 / lookups;
+
+        System.out.printf("%d sessions: indexed invalidation %.2f us per user (%d ended), full scan %.1f us per user (%d found)%n", sessionCount,
+                indexedMicros, ended, scanMicros, found);
+        assertThat(registry.size()).isEqualTo(sessionCount - ended);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user@example.com");
+        return user;
+    }
+}
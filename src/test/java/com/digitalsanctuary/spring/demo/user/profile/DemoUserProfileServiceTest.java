@@ -0,0 +1,438 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventCursor;
+import com.digitalsanctuary.spring.demo.event.EventRepository;
+import com.digitalsanctuary.spring.demo.event.EventService;
+import com.digitalsanctuary.spring.demo.event.EventSummary;
+import com.digitalsanctuary.spring.demo.event.EventSummaryPage;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+
+@ActiveProfiles("test")
+public class DemoUserProfileServiceTest {
+
+    @Mock
+    private DemoUserProfileRepository profileRepository;
+
+    @Mock
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Mock
+    private EventWaitlistRepository eventWaitlistRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EventService eventService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WaitlistIndex waitlistIndex;
+
+    private DemoUserProfileService service;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        waitlistIndex = new WaitlistIndex(eventWaitlistRepository);
+        service = new DemoUserProfileService(profileRepository, eventRegistrationRepository, eventWaitlistRepository, waitlistIndex,
+                eventRepository, eventService, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    public void testGetOrCreateProfileIsOneStatementAndReadsNothing() {
+        User user = new User();
+        user.setId(5L);
+        DemoUserProfile reference = new DemoUserProfile();
+        when(profileRepository.insertIfAbsent(5L)).thenReturn(0);
+        when(profileRepository.getReferenceById(5L)).thenReturn(reference);
+
+        assertThat(service.getOrCreateProfile(user)).isSameAs(reference);
+        verify(profileRepository).insertIfAbsent(5L);
+        verify(profileRepository).getReferenceById(5L);
+        verifyNoMoreInteractions(profileRepository);
+    }
+
+    @Test
+    public void testGetOrCreateProfileToleratesConcurrentCreation() {
+        User user = new User();
+        user.setId(5L);
+        when(profileRepository.insertIfAbsent(5L)).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(profileRepository.getReferenceById(5L)).thenReturn(new DemoUserProfile());
+
+        assertThat(service.getOrCreateProfile(user)).isNotNull();
+        assertThatThrownBy(() -> service.getOrCreateProfile(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testRegisterDoesNotLoadProfileOrEvent() {
+        when(eventRegistrationRepository.insertIfAbsent(1L, 2L)).thenReturn(1, 0);
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1);
+        when(profileRepository.findChangeStampById(1L)).thenReturn(Optional.of(6L));
+
+        assertThat(service.registerForEventAndStamp(1L, 2L)).isEqualTo(new ProfileUpdate<>(RegistrationResult.REGISTERED, 6L));
+        assertThat(service.registerForEventAndStamp(1L, 2L))
+                .isEqualTo(new ProfileUpdate<>(RegistrationResult.ALREADY_REGISTERED, ProfileUpdate.UNCHANGED));
+        verify(eventService, times(1)).recordRegistrationChange(2L, 1);
+        // The duplicate's seat claim and stamp bump are rolled back
+        verify(transactionManager, times(1)).commit(argThat(TransactionStatus::isRollbackOnly));
+        // Only the change stamp is touched and read back; the profile is never loaded
+        verify(profileRepository, times(2)).bumpChangeStamps(List.of(1L));
+        verify(profileRepository).findChangeStampById(1L);
+        verifyNoMoreInteractions(profileRepository);
+    }
+
+    @Test
+    public void testRegisterClaimsTheSeatBeforeInserting() {
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1);
+        when(eventRegistrationRepository.insertIfAbsent(1L, 2L)).thenReturn(1);
+
+        assertThat(service.registerForEvent(1L, 2L)).isEqualTo(RegistrationResult.REGISTERED);
+
+        // The claim takes the event row's exclusive lock before the insert's foreign key check share-locks it
+        InOrder order = inOrder(eventRepository, profileRepository, eventRegistrationRepository);
+        order.verify(eventRepository).claimSeat(eq(2L));
+        order.verify(profileRepository).bumpChangeStamps(List.of(1L));
+        order.verify(eventRegistrationRepository).insertIfAbsent(1L, 2L);
+        verify(eventRepository, never()).findAndLockById(any());
+    }
+
+    @Test
+    public void testRegisterForFullEventWhenAlreadyRegisteredDoesNotWaitlist() {
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventRegistrationRepository.existsByUserProfileIdAndEventId(1L, 2L)).thenReturn(true);
+
+        assertThat(service.registerForEvent(1L, 2L)).isEqualTo(RegistrationResult.ALREADY_REGISTERED);
+        verify(eventWaitlistRepository, never()).saveAndFlush(any());
+        verify(eventRegistrationRepository, never()).insertIfAbsent(any(), any());
+    }
+
+    @Test
+    public void testRegisterForFullEventJoinsWaitlist() {
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(0);
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(1L, 2L)).thenReturn(Optional.empty());
+        when(eventWaitlistRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            EventWaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(7L);
+            return entry;
+        });
+
+        assertThat(service.registerForEvent(1L, 2L)).isEqualTo(RegistrationResult.WAITLISTED);
+        verify(eventRepository).findAndLockById(2L);
+        verify(eventRepository, times(2)).claimSeat(eq(2L));
+        verify(eventRegistrationRepository, never()).insertIfAbsent(any(), any());
+        verify(eventService, never()).recordRegistrationChange(any(), anyInt());
+        assertThat(waitlistIndex.position(2L, 7L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testRegisterTakesSeatFreedWhileWaitingForLock() {
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(0, 1);
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventRegistrationRepository.insertIfAbsent(1L, 2L)).thenReturn(1);
+
+        assertThat(service.registerForEvent(1L, 2L)).isEqualTo(RegistrationResult.REGISTERED);
+        verify(eventWaitlistRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testRegisterInOrderLocksOnceAndWaitlistsOnceFull() {
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventRegistrationRepository.insertIfAbsent(any(), eq(2L))).thenReturn(1);
+        when(eventRegistrationRepository.insertIfAbsent(3L, 2L)).thenReturn(0);
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1, 0);
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(any(), eq(2L))).thenReturn(Optional.empty());
+        when(eventWaitlistRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            EventWaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(8L);
+            return entry;
+        });
+
+        assertThat(service.registerForEventInOrder(2L, List.of(1L, 4L, 3L))).containsExactly(RegistrationResult.REGISTERED,
+                RegistrationResult.WAITLISTED, RegistrationResult.ALREADY_REGISTERED);
+        verify(eventRepository, times(1)).findAndLockById(2L);
+        verify(transactionManager, times(1)).commit(any());
+        verify(eventRegistrationRepository).deleteByProfileIdAndEventId(4L, 2L);
+        verify(eventService).recordRegistrationChange(2L, 1);
+        assertThat(waitlistIndex.position(2L, 8L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testRegisterTreatsLostRaceAsAlreadyRegistered() {
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1);
+        when(eventRegistrationRepository.insertIfAbsent(1L, 2L)).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(eventRegistrationRepository.existsByUserProfileIdAndEventId(1L, 2L)).thenReturn(true);
+
+        assertThat(service.registerForEvent(1L, 2L)).isEqualTo(RegistrationResult.ALREADY_REGISTERED);
+    }
+
+    @Test
+    public void testRegisterForMissingEventFails() {
+        // claimSeat finds no row and neither does the lock
+        assertThatThrownBy(() -> service.registerForEvent(1L, 99L)).isInstanceOf(IllegalArgumentException.class);
+        verify(eventRegistrationRepository, never()).insertIfAbsent(any(), any());
+    }
+
+    @Test
+    public void testUnregisterIsSingleDelete() {
+        when(eventRegistrationRepository.deleteByProfileIdAndEventId(1L, 2L)).thenReturn(1);
+        when(profileRepository.findChangeStampById(1L)).thenReturn(Optional.of(6L));
+
+        assertThat(service.unregisterFromEventAndStamp(1L, 2L)).isEqualTo(new ProfileUpdate<>(true, 6L));
+        verify(eventRepository).releaseSeat(eq(2L));
+        // Only the change stamp is touched and read back; the profile is never loaded
+        verify(profileRepository).bumpChangeStamps(List.of(1L));
+        verify(profileRepository).findChangeStampById(1L);
+        verifyNoMoreInteractions(profileRepository);
+        verify(eventService).recordRegistrationChange(2L, -1);
+    }
+
+    @Test
+    public void testUnregisterPromotesHeadOfWaitlist() {
+        DemoUserProfile waiting = mock(DemoUserProfile.class);
+        when(waiting.getId()).thenReturn(3L);
+        EventWaitlistEntry head = new EventWaitlistEntry();
+        head.setId(7L);
+        head.setUserProfile(waiting);
+        waitlistIndex.add(2L, 7L);
+        when(eventRegistrationRepository.deleteByProfileIdAndEventId(1L, 2L)).thenReturn(1);
+        when(eventWaitlistRepository.findHead(2L, Limit.of(1))).thenReturn(List.of(head), List.of());
+        when(eventRegistrationRepository.insertIfAbsent(3L, 2L)).thenReturn(1);
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1);
+
+        assertThat(service.unregisterFromEvent(1L, 2L)).isTrue();
+        verify(eventRepository).releaseSeat(eq(2L));
+        verify(eventWaitlistRepository).delete(head);
+        verify(eventRepository).claimSeat(eq(2L));
+        // The freed seat went straight to the waiting profile, so the count is unchanged
+        verify(eventService).recordRegistrationChange(2L, 0);
+        // Both the leaving and the promoted profile see the change on their next refresh
+        verify(profileRepository).bumpChangeStamps(List.of(1L));
+        verify(profileRepository).bumpChangeStamps(List.of(3L));
+        assertThat(waitlistIndex.size(2L)).isZero();
+    }
+
+    @Test
+    public void testPromotionThatCannotClaimTheSeatLeavesTheProfileWaiting() {
+        DemoUserProfile waiting = mock(DemoUserProfile.class);
+        when(waiting.getId()).thenReturn(3L);
+        EventWaitlistEntry head = new EventWaitlistEntry();
+        head.setId(7L);
+        head.setUserProfile(waiting);
+        waitlistIndex.add(2L, 7L);
+        when(eventRegistrationRepository.deleteByProfileIdAndEventId(1L, 2L)).thenReturn(1);
+        when(eventWaitlistRepository.findHead(2L, Limit.of(1))).thenReturn(List.of(head));
+        when(eventRegistrationRepository.insertIfAbsent(3L, 2L)).thenReturn(1);
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(0);
+
+        assertThat(service.unregisterFromEvent(1L, 2L)).isTrue();
+        verify(eventRegistrationRepository).deleteByProfileIdAndEventId(3L, 2L);
+        verify(eventWaitlistRepository, never()).delete(head);
+        verify(eventService).recordRegistrationChange(2L, -1);
+        verify(profileRepository, never()).bumpChangeStamps(List.of(3L));
+        assertThat(waitlistIndex.position(2L, 7L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testAddedSeatsGoToTheWaitlistUntilTheEventIsFull() {
+        EventWaitlistEntry first = waitlistEntry(7L, 3L);
+        EventWaitlistEntry second = waitlistEntry(8L, 4L);
+        EventWaitlistEntry third = waitlistEntry(9L, 5L);
+        waitlistIndex.add(2L, 7L);
+        waitlistIndex.add(2L, 8L);
+        waitlistIndex.add(2L, 9L);
+        when(eventRepository.findAndLockById(2L)).thenReturn(Optional.of(new Event()));
+        when(eventWaitlistRepository.findHead(2L, Limit.of(1))).thenReturn(List.of(first), List.of(second), List.of(third));
+        when(eventRegistrationRepository.insertIfAbsent(any(), eq(2L))).thenReturn(1);
+        // Two seats were added
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1, 1, 0);
+
+        assertThat(service.promoteIntoAddedSeats(2L)).isEqualTo(2);
+        verify(eventWaitlistRepository).delete(first);
+        verify(eventWaitlistRepository).delete(second);
+        verify(eventWaitlistRepository, never()).delete(third);
+        verify(eventRegistrationRepository).deleteByProfileIdAndEventId(5L, 2L);
+        verify(profileRepository).bumpChangeStamps(List.of(3L));
+        verify(profileRepository).bumpChangeStamps(List.of(4L));
+        verify(eventService).recordRegistrationChange(2L, 2);
+        assertThat(waitlistIndex.position(2L, 9L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testReleasingADeletedProfileGivesItsSeatsToTheWaitlist() {
+        DemoUserProfile waiting = mock(DemoUserProfile.class);
+        when(waiting.getId()).thenReturn(3L);
+        EventWaitlistEntry head = new EventWaitlistEntry();
+        head.setId(7L);
+        head.setUserProfile(waiting);
+        waitlistIndex.add(2L, 7L);
+        waitlistIndex.add(5L, 8L);
+        when(eventWaitlistRepository.findSlotsByProfileId(1L)).thenReturn(List.of(new WaitlistSlot(8L, 5L)));
+        when(eventWaitlistRepository.deleteByProfileId(1L)).thenReturn(1);
+        when(eventRegistrationRepository.findEventIdsByProfileId(1L)).thenReturn(List.of(2L, 4L));
+        when(eventWaitlistRepository.findHead(2L, Limit.of(1))).thenReturn(List.of(head));
+        when(eventWaitlistRepository.findHead(4L, Limit.of(1))).thenReturn(List.of());
+        when(eventRegistrationRepository.insertIfAbsent(3L, 2L)).thenReturn(1);
+        when(eventRepository.claimSeat(eq(2L))).thenReturn(1);
+
+        service.releaseRegistrationsOf(1L);
+
+        verify(eventRepository).releaseSeatsHeldBy(eq(1L));
+        verify(eventWaitlistRepository).delete(head);
+        verify(profileRepository).bumpChangeStamps(List.of(3L));
+        // Event 2's seat went to the waiting profile, event 4's was freed, and event 5 only lost a waitlist entry
+        verify(eventService).recordRegistrationChange(2L, 0);
+        verify(eventService).recordRegistrationChange(4L, -1);
+        verify(eventService).recordRegistrationChange(5L, 0);
+        assertThat(waitlistIndex.size(2L)).isZero();
+        assertThat(waitlistIndex.size(5L)).isZero();
+    }
+
+    @Test
+    public void testUnregisterWhileWaitlistedLeavesWaitlist() {
+        EventWaitlistEntry entry = new EventWaitlistEntry();
+        entry.setId(7L);
+        waitlistIndex.add(2L, 7L);
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(1L, 2L)).thenReturn(Optional.of(entry));
+
+        assertThat(service.unregisterFromEvent(1L, 2L)).isTrue();
+        verify(eventWaitlistRepository).delete(entry);
+        verify(eventRepository, never()).releaseSeat(any());
+        assertThat(waitlistIndex.size(2L)).isZero();
+    }
+
+    @Test
+    public void testApplyRegistrationChangesWritesEachKindOnce() {
+        Event open = eventWithSeats(1L, null, 0);
+        Event full = eventWithSeats(2L, 1, 1);
+        Event attending = eventWithSeats(3L, 10, 4);
+        when(eventRepository.findAndLockAllById(List.of(1L, 2L, 3L, 4L))).thenReturn(List.of(open, full, attending));
+        when(eventRegistrationRepository.findEventIdsByProfileIdAndEventIdIn(eq(9L), any())).thenReturn(List.of(3L));
+        when(eventRegistrationRepository.insertAllIfAbsent(9L, List.of(1L))).thenReturn(1);
+        when(eventRepository.claimSeats(eq(List.of(1L)))).thenReturn(1);
+        when(eventRegistrationRepository.deleteByProfileIdAndEventIdIn(9L, List.of(3L))).thenReturn(1);
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(9L, 2L)).thenReturn(Optional.empty());
+        when(eventWaitlistRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            EventWaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(8L);
+            return entry;
+        });
+        when(profileRepository.findChangeStampById(9L)).thenReturn(Optional.of(3L));
+
+        ProfileUpdate<List<RegistrationChangeResult>> update = service.applyRegistrationChangesAndStamp(9L,
+                List.of(new RegistrationChange(1L, RegistrationChange.Action.REGISTER), new RegistrationChange(2L, RegistrationChange.Action.REGISTER),
+                        new RegistrationChange(3L, RegistrationChange.Action.UNREGISTER), new RegistrationChange(4L, RegistrationChange.Action.REGISTER)));
+
+        // One bump for the whole batch, read back in the same transaction
+        verify(profileRepository).bumpChangeStamps(List.of(9L));
+        assertThat(update.changeStamp()).isEqualTo(3L);
+        assertThat(update.result()).extracting(RegistrationChangeResult::outcome).containsExactly(RegistrationChangeResult.Outcome.REGISTERED,
+                RegistrationChangeResult.Outcome.WAITLISTED, RegistrationChangeResult.Outcome.UNREGISTERED,
+                RegistrationChangeResult.Outcome.EVENT_NOT_FOUND);
+        verify(eventRepository).releaseSeats(eq(List.of(3L)));
+        verify(eventRepository, never()).claimSeat(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(waitlistIndex.position(2L, 8L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testApplyRegistrationChangesFallsBackOnConcurrentChange() {
+        when(eventRepository.findAndLockAllById(List.of(1L))).thenReturn(List.of(eventWithSeats(1L, null, 0)));
+        when(eventRegistrationRepository.insertAllIfAbsent(9L, List.of(1L))).thenReturn(0);
+        when(eventRepository.claimSeat(eq(1L))).thenReturn(1);
+        when(eventRegistrationRepository.insertIfAbsent(9L, 1L)).thenReturn(0);
+
+        ProfileUpdate<List<RegistrationChangeResult>> update = service.applyRegistrationChangesAndStamp(9L,
+                List.of(new RegistrationChange(1L, RegistrationChange.Action.REGISTER)));
+
+        assertThat(update.result()).extracting(RegistrationChangeResult::outcome).containsExactly(RegistrationChangeResult.Outcome.ALREADY_REGISTERED);
+        assertThat(update.changeStamp()).isEqualTo(ProfileUpdate.UNCHANGED);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    public void testApplyRegistrationChangesRejectsDuplicateEvents() {
+        List<RegistrationChange> changes = List.of(new RegistrationChange(1L, RegistrationChange.Action.REGISTER),
+                new RegistrationChange(1L, RegistrationChange.Action.UNREGISTER));
+
+        assertThatThrownBy(() -> service.applyRegistrationChanges(9L, changes)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    public void testGetWaitlistPositionReadsIndex() {
+        EventWaitlistEntry entry = new EventWaitlistEntry();
+        entry.setId(7L);
+        waitlistIndex.add(2L, 5L);
+        waitlistIndex.add(2L, 7L);
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(1L, 2L)).thenReturn(Optional.of(entry));
+        when(eventWaitlistRepository.findByUserProfileIdAndEventId(9L, 2L)).thenReturn(Optional.empty());
+
+        assertThat(service.getWaitlistPosition(1L, 2L)).hasValue(2);
+        assertThat(service.getWaitlistPosition(9L, 2L)).isEmpty();
+    }
+
+    @Test
+    public void testGetRegisteredEventsReturnsCursorWhenMoreRemain() {
+        EventSummary first = new EventSummary(1L, "First", LocalDate.of(2030, 1, 1), LocalTime.NOON, "Hall");
+        EventSummary second = new EventSummary(2L, "Second", LocalDate.of(2030, 1, 2), LocalTime.NOON, "Hall");
+        when(eventRegistrationRepository.findRegisteredEvents(1L, Limit.of(2))).thenReturn(List.of(first, second));
+
+        EventSummaryPage page = service.getRegisteredEvents(1L, null, 1);
+
+        assertThat(page.events()).containsExactly(first);
+        assertThat(EventCursor.decode(page.nextCursor())).isEqualTo(EventCursor.after(first));
+        verifyNoInteractions(profileRepository);
+    }
+
+    private static EventWaitlistEntry waitlistEntry(Long entryId, Long profileId) {
+        DemoUserProfile waiting = mock(DemoUserProfile.class);
+        when(waiting.getId()).thenReturn(profileId);
+        EventWaitlistEntry entry = new EventWaitlistEntry();
+        entry.setId(entryId);
+        entry.setUserProfile(waiting);
+        return entry;
+    }
+
+    private static Event eventWithSeats(Long id, Integer capacity, int registeredCount) {
+        Event event = new Event();
+        event.setId(id);
+        event.setCapacity(capacity);
+        event.setRegisteredCount(registeredCount);
+        return event;
+    }
+}
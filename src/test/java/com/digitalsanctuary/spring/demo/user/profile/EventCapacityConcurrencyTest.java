@@ -0,0 +1,147 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventRepository;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import com.digitalsanctuary.spring.user.test.annotations.IntegrationTest;
+import com.digitalsanctuary.spring.user.test.builders.UserTestDataBuilder;
+
+/**
+ * Registers many profiles for one event at the same time and checks that the seat count never passes the capacity and that
+ * everyone else is waitlisted.
+ */
+@IntegrationTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Event capacity under concurrent registration")
+class EventCapacityConcurrencyTest {
+
+    private static final int THREADS = 1_000;
+    private static final int CAPACITY = 100;
+
+    @Autowired
+    private DemoUserProfileService demoUserProfileService;
+
+    @Autowired
+    private DemoUserProfileRepository demoUserProfileRepository;
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private EventWaitlistRepository eventWaitlistRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Long> profileIds = new ArrayList<>();
+    private Event event;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < THREADS; i++) {
+            users.add(UserTestDataBuilder.aUser().withId(null).withEmail("capacity" + i + "@test.com").withEncodedPassword("x").build());
+        }
+        userRepository.saveAll(users);
+        List<DemoUserProfile> profiles = new ArrayList<>();
+        for (User user : users) {
+            DemoUserProfile profile = new DemoUserProfile();
+            profile.setUser(user);
+            profiles.add(profile);
+        }
+        demoUserProfileRepository.saveAll(profiles).forEach(profile -> profileIds.add(profile.getId()));
+
+        event = new Event();
+        event.setName("Sold out");
+        event.setDescription("One hundred seats");
+        event.setLocation("Hall");
+        event.setDate(LocalDate.of(2030, 1, 1));
+        event.setTime(LocalTime.of(18, 0));
+        event.setCapacity(CAPACITY);
+        event = eventRepository.save(event);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventRegistrationRepository.deleteAllInBatch();
+        eventWaitlistRepository.deleteAllInBatch();
+        demoUserProfileRepository.deleteAllInBatch();
+        eventRepository.deleteById(event.getId());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    @DisplayName("1,000 concurrent registrations for 100 seats register exactly 100 and waitlist the rest")
+    void concurrentRegistrationsDoNotOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<RegistrationResult, AtomicInteger> results = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Long profileId : profileIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    RegistrationResult result = demoUserProfileService.registerForEvent(profileId, event.getId());
+                    results.computeIfAbsent(result, r -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(results.get(RegistrationResult.REGISTERED)).hasValue(CAPACITY);
+        assertThat(results.get(RegistrationResult.WAITLISTED)).hasValue(THREADS - CAPACITY);
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getRegisteredCount()).isEqualTo(CAPACITY);
+        assertThat(eventRegistrationRepository.count()).isEqualTo(CAPACITY);
+        assertThat(eventWaitlistRepository.count()).isEqualTo(THREADS - CAPACITY);
+    }
+
+    @Test
+    @DisplayName("Unregistering gives the seat to the head of the waitlist")
+    void unregisterPromotesFromWaitlist() {
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(demoUserProfileService.registerForEvent(profileIds.get(i), event.getId())).isEqualTo(RegistrationResult.REGISTERED);
+        }
+        Long first = profileIds.get(CAPACITY);
+        Long second = profileIds.get(CAPACITY + 1);
+        assertThat(demoUserProfileService.registerForEvent(first, event.getId())).isEqualTo(RegistrationResult.WAITLISTED);
+        assertThat(demoUserProfileService.registerForEvent(second, event.getId())).isEqualTo(RegistrationResult.WAITLISTED);
+        assertThat(demoUserProfileService.getWaitlistPosition(second, event.getId())).hasValue(2);
+
+        assertThat(demoUserProfileService.unregisterFromEvent(profileIds.get(0), event.getId())).isTrue();
+
+        assertThat(eventRegistrationRepository.existsByUserProfileIdAndEventId(first, event.getId())).isTrue();
+        assertThat(demoUserProfileService.getWaitlistPosition(first, event.getId())).isEmpty();
+        assertThat(demoUserProfileService.getWaitlistPosition(second, event.getId())).hasValue(1);
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getRegisteredCount()).isEqualTo(CAPACITY);
+    }
+}
@@ -0,0 +1,144 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.mariadb.MariaDBContainer;
+import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventRepository;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.persistence.repository.UserRepository;
+import com.digitalsanctuary.spring.user.test.annotations.IntegrationTest;
+import com.digitalsanctuary.spring.user.test.builders.UserTestDataBuilder;
+
+/**
+ * Registers many profiles for one event at the same time against MariaDB, whose row locking H2 does not reproduce: on InnoDB
+ * the registration insert's foreign key check share-locks the event row, so a registration that inserted before claiming its
+ * seat could deadlock with another one. Needs Docker and is skipped without it.
+ */
+@IntegrationTest
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"spring.datasource.driver-class-name=org.mariadb.jdbc.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.MariaDBDialect", "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MariaDBDialect",
+        "spring.jpa.properties.hibernate.dialect.storage_engine=innodb"})
+@DisplayName("Event capacity under concurrent registration on MariaDB")
+class EventCapacityMariaDbTest {
+
+    private static final int THREADS = 200;
+    private static final int CAPACITY = 20;
+
+    @Container
+    @ServiceConnection
+    static final MariaDBContainer MARIADB = new MariaDBContainer("mariadb:11.4");
+
+    @Autowired
+    private DemoUserProfileService demoUserProfileService;
+
+    @Autowired
+    private DemoUserProfileRepository demoUserProfileRepository;
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private EventWaitlistRepository eventWaitlistRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Long> profileIds = new ArrayList<>();
+    private Event event;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < THREADS; i++) {
+            users.add(UserTestDataBuilder.aUser().withId(null).withEmail("mariadb" + i + "@test.com").withEncodedPassword("x").build());
+        }
+        userRepository.saveAll(users);
+        List<DemoUserProfile> profiles = new ArrayList<>();
+        for (User user : users) {
+            DemoUserProfile profile = new DemoUserProfile();
+            profile.setUser(user);
+            profiles.add(profile);
+        }
+        demoUserProfileRepository.saveAll(profiles).forEach(profile -> profileIds.add(profile.getId()));
+
+        event = new Event();
+        event.setName("Flash sale");
+        event.setDescription("Twenty seats");
+        event.setLocation("Hall");
+        event.setDate(LocalDate.of(2030, 1, 1));
+        event.setTime(LocalTime.of(18, 0));
+        event.setCapacity(CAPACITY);
+        event = eventRepository.save(event);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventRegistrationRepository.deleteAllInBatch();
+        eventWaitlistRepository.deleteAllInBatch();
+        demoUserProfileRepository.deleteAllInBatch();
+        eventRepository.deleteById(event.getId());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    @DisplayName("Concurrent registrations and repeats neither deadlock nor oversell")
+    void concurrentRegistrationsDoNotDeadlock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<RegistrationResult, AtomicInteger> results = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Long profileId : profileIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // Registering twice exercises the duplicate path, which gives its claimed seat back
+                    for (int attempt = 0; attempt < 2; attempt++) {
+                        RegistrationResult result = demoUserProfileService.registerForEvent(profileId, event.getId());
+                        results.computeIfAbsent(result, r -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // A deadlock would surface here as a DeadlockLoserDataAccessException
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(results.get(RegistrationResult.REGISTERED)).hasValue(CAPACITY);
+        assertThat(eventRepository.findById(event.getId()).orElseThrow().getRegisteredCount()).isEqualTo(CAPACITY);
+        assertThat(eventRegistrationRepository.count()).isEqualTo(CAPACITY);
+        assertThat(eventWaitlistRepository.count()).isEqualTo(THREADS - CAPACITY);
+    }
+}
@@ -0,0 +1,201 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.persistence.autoconfigure.EntityScan;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import com.digitalsanctuary.spring.demo.event.Event;
+import com.digitalsanctuary.spring.demo.event.EventSummary;
+import com.digitalsanctuary.spring.demo.event.RosterEntry;
+import com.digitalsanctuary.spring.user.persistence.model.User;
+import com.digitalsanctuary.spring.user.test.builders.UserTestDataBuilder;
+
+@ActiveProfiles("test")
+@DataJpaTest
+@EntityScan(basePackages = {"com.digitalsanctuary.spring.user.persistence.model", "com.digitalsanctuary.spring.demo.user.profile",
+        "com.digitalsanctuary.spring.demo.event"})
+public class EventRegistrationRepositoryTest {
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    @Autowired
+    private DemoUserProfileRepository profileRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Long profileId;
+    private Long eventId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = entityManager.persist(UserTestDataBuilder.aUser().withId(null).build());
+        DemoUserProfile profile = new DemoUserProfile();
+        profile.setUser(user);
+        profileId = entityManager.persist(profile).getId();
+
+        eventId = persistEvent("Concert", LocalDate.of(2030, 1, 1)).getId();
+        entityManager.flush();
+    }
+
+    @Test
+    public void testInsertIfAbsentAddsOneRow() {
+        assertThat(eventRegistrationRepository.insertIfAbsent(profileId, eventId)).isEqualTo(1);
+        assertThat(eventRegistrationRepository.insertIfAbsent(profileId, eventId)).isZero();
+
+        assertThat(eventRegistrationRepository.existsByUserProfileIdAndEventId(profileId, eventId)).isTrue();
+        assertThat(eventRegistrationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeleteByProfileIdAndEventId() {
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+
+        assertThat(eventRegistrationRepository.deleteByProfileIdAndEventId(profileId, eventId)).isEqualTo(1);
+        assertThat(eventRegistrationRepository.deleteByProfileIdAndEventId(profileId, eventId)).isZero();
+        assertThat(eventRegistrationRepository.existsByUserProfileIdAndEventId(profileId, eventId)).isFalse();
+    }
+
+    @Test
+    public void testInsertAllIfAbsentSkipsExistingRegistrations() {
+        Long second = persistEvent("Second", LocalDate.of(2030, 2, 1)).getId();
+        Long third = persistEvent("Third", LocalDate.of(2030, 3, 1)).getId();
+        entityManager.flush();
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+
+        assertThat(eventRegistrationRepository.insertAllIfAbsent(profileId, List.of(eventId, second, third))).isEqualTo(2);
+        assertThat(eventRegistrationRepository.findEventIdsByProfileIdAndEventIdIn(profileId, List.of(eventId, second))).containsExactlyInAnyOrder(eventId,
+                second);
+
+        assertThat(eventRegistrationRepository.deleteByProfileIdAndEventIdIn(profileId, List.of(second, third))).isEqualTo(2);
+        assertThat(eventRegistrationRepository.findEventIdsByProfileId(profileId)).containsExactly(eventId);
+    }
+
+    @Test
+    public void testUniqueConstraintRejectsDuplicateRegistration() {
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+
+        EventRegistration duplicate = new EventRegistration();
+        duplicate.setUserProfile(entityManager.find(DemoUserProfile.class, profileId));
+        duplicate.setEvent(entityManager.find(Event.class, eventId));
+
+        assertThatThrownBy(() -> eventRegistrationRepository.saveAndFlush(duplicate)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testFindRegisteredEventsPagesInKeysetOrder() {
+        Long later = persistEvent("Later", LocalDate.of(2030, 3, 1)).getId();
+        Long earlier = persistEvent("Earlier", LocalDate.of(2029, 12, 1)).getId();
+        persistEvent("Not registered", LocalDate.of(2030, 2, 1));
+        entityManager.flush();
+        eventRegistrationRepository.insertIfAbsent(profileId, later);
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+        eventRegistrationRepository.insertIfAbsent(profileId, earlier);
+
+        List<EventSummary> first = eventRegistrationRepository.findRegisteredEvents(profileId, Limit.of(2));
+        assertThat(first).extracting(EventSummary::name).containsExactly("Earlier", "Concert");
+
+        EventSummary last = first.get(1);
+        List<EventSummary> rest = eventRegistrationRepository.findRegisteredEventsAfter(profileId, last.date(), last.time(), last.id(), Limit.of(2));
+        assertThat(rest).extracting(EventSummary::name).containsExactly("Later");
+        assertThat(rest.get(0).location()).isEqualTo("Stadium");
+    }
+
+    @Test
+    public void testRosterPagesInRegistrationOrder() {
+        Long otherEvent = persistEvent("Other", LocalDate.of(2030, 2, 1)).getId();
+        Long second = persistProfile("second@example.com", "Ada", "Lovelace");
+        Long third = persistProfile("third@example.com", "Alan", "Turing");
+        entityManager.flush();
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+        eventRegistrationRepository.insertIfAbsent(second, otherEvent);
+        eventRegistrationRepository.insertIfAbsent(second, eventId);
+        eventRegistrationRepository.insertIfAbsent(third, eventId);
+
+        List<RosterEntry> first = eventRegistrationRepository.findRoster(eventId, Limit.of(2));
+        assertThat(first).hasSize(2);
+        assertThat(first.get(1).email()).isEqualTo("second@example.com");
+        assertThat(first.get(1).lastName()).isEqualTo("Lovelace");
+
+        List<RosterEntry> rest = eventRegistrationRepository.findRosterAfter(eventId, first.get(1).registrationId(), Limit.of(2));
+        assertThat(rest).extracting(RosterEntry::email).containsExactly("third@example.com");
+
+        try (Stream<RosterEntry> roster = eventRegistrationRepository.streamRoster(eventId)) {
+            assertThat(roster.map(RosterEntry::registrationId)).isSorted().hasSize(3);
+        }
+    }
+
+    @Test
+    public void testReminderIsClaimedOnce() {
+        Long second = persistProfile("second@example.com", "Ada", "Lovelace");
+        entityManager.flush();
+        eventRegistrationRepository.insertIfAbsent(profileId, eventId);
+        eventRegistrationRepository.insertIfAbsent(second, eventId);
+
+        List<Long> pending = eventRegistrationRepository.findIdsWithoutReminder(eventId, Limit.of(10));
+        assertThat(pending).hasSize(2);
+
+        assertThat(eventRegistrationRepository.claimReminders(pending, "run-1", Instant.now())).isEqualTo(2);
+        assertThat(eventRegistrationRepository.claimReminders(pending, "run-2", Instant.now())).isZero();
+
+        assertThat(eventRegistrationRepository.findClaimedReminders(pending, "run-1")).extracting(RosterEntry::email).contains("second@example.com")
+                .hasSize(2);
+        assertThat(eventRegistrationRepository.findClaimedReminders(pending, "run-2")).isEmpty();
+        assertThat(eventRegistrationRepository.findIdsWithoutReminder(eventId, Limit.of(10))).isEmpty();
+    }
+
+    @Test
+    public void changeStampStartsAtZeroAndIsBumpedPerWrite() {
+        Long other = persistProfile("other@test.com", "Other", "User");
+        entityManager.flush();
+        assertThat(profileRepository.findChangeStampById(profileId)).contains(0L);
+
+        assertThat(profileRepository.bumpChangeStamps(List.of(profileId, other))).isEqualTo(2);
+        profileRepository.bumpChangeStamps(List.of(profileId));
+
+        assertThat(profileRepository.findChangeStampById(profileId)).contains(2L);
+        assertThat(profileRepository.findChangeStampById(other)).contains(1L);
+        assertThat(profileRepository.findChangeStampById(-1L)).isEmpty();
+    }
+
+    @Test
+    public void insertIfAbsentCreatesTheProfileOnce() {
+        User user = entityManager.persist(UserTestDataBuilder.aUser().withId(null).withEmail("new@test.com").build());
+        entityManager.flush();
+
+        assertThat(profileRepository.insertIfAbsent(user.getId())).isEqualTo(1);
+        assertThat(profileRepository.insertIfAbsent(user.getId())).isZero();
+        assertThat(profileRepository.insertIfAbsent(profileId)).isZero();
+        assertThat(profileRepository.findChangeStampById(user.getId())).contains(0L);
+    }
+
+    private Long persistProfile(String email, String firstName, String lastName) {
+        User user = entityManager.persist(UserTestDataBuilder.aUser().withId(null).withEmail(email).withFirstName(firstName).withLastName(lastName).build());
+        DemoUserProfile profile = new DemoUserProfile();
+        profile.setUser(user);
+        return entityManager.persist(profile).getId();
+    }
+
+    private Event persistEvent(String name, LocalDate date) {
+        Event event = new Event();
+        event.setName(name);
+        event.setDescription(name + " description");
+        event.setLocation("Stadium");
+        event.setDate(date);
+        event.setTime(LocalTime.of(18, 0));
+        return entityManager.persist(event);
+    }
+}
@@ -0,0 +1,116 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RegistrationAdmissionQueueTest {
+
+    private static final Long HOT_EVENT = 5L;
+
+    private DemoUserProfileService demoUserProfileService;
+    private SimpleMeterRegistry meterRegistry;
+    private RegistrationAdmissionQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        demoUserProfileService = mock(DemoUserProfileService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        queue = new RegistrationAdmissionQueue(demoUserProfileService, meterRegistry, Set.of(HOT_EVENT), 2, 10, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testOnlyConfiguredEventsAreAdmissionControlled() {
+        assertThat(queue.isAdmissionControlled(HOT_EVENT)).isTrue();
+        assertThat(queue.isAdmissionControlled(6L)).isFalse();
+        assertThatThrownBy(() -> queue.submit(1L, 6L)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testQueuedRegistrationsAreWrittenInOrderAndOverflowIsRejected() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(demoUserProfileService.registerForEventInOrder(HOT_EVENT, List.of(1L))).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(RegistrationResult.REGISTERED);
+        });
+        when(demoUserProfileService.registerForEventInOrder(HOT_EVENT, List.of(2L, 3L)))
+                .thenReturn(List.of(RegistrationResult.REGISTERED, RegistrationResult.WAITLISTED));
+
+        AdmissionTicket first = queue.submit(1L, HOT_EVENT).orElseThrow();
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        // The writer holds the first registration, so the queue has room for exactly two more
+        AdmissionTicket second = queue.submit(2L, HOT_EVENT).orElseThrow();
+        AdmissionTicket third = queue.submit(3L, HOT_EVENT).orElseThrow();
+        assertThat(queue.submit(2L, HOT_EVENT)).containsSame(second);
+        assertThat(queue.submit(4L, HOT_EVENT)).isEmpty();
+        assertThat(second.getStatus()).isEqualTo(AdmissionTicket.QUEUED);
+        assertThat(meterRegistry.get("events.admission.rejected").tag("event", "5").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        verify(demoUserProfileService, timeout(10_000)).registerForEventInOrder(HOT_EVENT, List.of(2L, 3L));
+        awaitDone(third);
+
+        assertThat(first.getStatus()).isEqualTo("REGISTERED");
+        assertThat(second.getStatus()).isEqualTo("REGISTERED");
+        assertThat(third.getStatus()).isEqualTo("WAITLISTED");
+        assertThat(queue.getTicket(third.getId())).containsSame(third);
+    }
+
+    @Test
+    public void testFailedBatchFallsBackToSingleRegistrations() throws Exception {
+        when(demoUserProfileService.registerForEventInOrder(eq(HOT_EVENT), anyList())).thenThrow(new IllegalArgumentException("missing profile"));
+        when(demoUserProfileService.registerForEvent(1L, HOT_EVENT)).thenThrow(new IllegalArgumentException("missing profile"));
+
+        AdmissionTicket ticket = queue.submit(1L, HOT_EVENT).orElseThrow();
+        awaitDone(ticket);
+
+        assertThat(ticket.getStatus()).isEqualTo(AdmissionTicket.FAILED);
+        assertThat(queue.getTicket("unknown")).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void testWriterSurvivesAnErrorAndWritesLaterTickets() throws Exception {
+        when(demoUserProfileService.registerForEventInOrder(HOT_EVENT, List.of(1L))).thenThrow(new LinkageError("broken class"));
+        when(demoUserProfileService.registerForEventInOrder(HOT_EVENT, List.of(2L))).thenReturn(List.of(RegistrationResult.REGISTERED));
+
+        AdmissionTicket failed = queue.submit(1L, HOT_EVENT).orElseThrow();
+        awaitDone(failed);
+        AdmissionTicket later = queue.submit(2L, HOT_EVENT).orElseThrow();
+        awaitDone(later);
+
+        assertThat(failed.getStatus()).isEqualTo(AdmissionTicket.FAILED);
+        assertThat(later.getStatus()).isEqualTo("REGISTERED");
+        // The failed ticket no longer blocks the profile from queueing again
+        assertThat(queue.submit(1L, HOT_EVENT).orElseThrow()).isNotSameAs(failed);
+    }
+
+    private static void awaitDone(AdmissionTicket ticket) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!ticket.isDone() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(ticket.isDone()).isTrue();
+    }
+}
@@ -0,0 +1,73 @@
+package com.digitalsanctuary.spring.demo.user.profile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+public class WaitlistIndexTest {
+
+    @Test
+    public void testPositionsFollowEntryOrder() {
+        WaitlistIndex index = new WaitlistIndex(mock(EventWaitlistRepository.class));
+        index.add(1L, 10L);
+        index.add(1L, 30L);
+        index.add(1L, 20L);
+        index.add(2L, 15L);
+
+        assertThat(index.position(1L, 10L)).isEqualTo(1);
+        assertThat(index.position(1L, 20L)).isEqualTo(2);
+        assertThat(index.position(1L, 30L)).isEqualTo(3);
+        assertThat(index.position(2L, 15L)).isEqualTo(1);
+
+        index.remove(1L, 10L);
+        assertThat(index.position(1L, 10L)).isZero();
+        assertThat(index.position(1L, 30L)).isEqualTo(2);
+        assertThat(index.size(1L)).isEqualTo(2);
+    }
+
+    @Test
+    public void testMatchesSortedSetUnderRandomOperations() {
+        Random random = new Random(42);
+        WaitlistIndex index = new WaitlistIndex(mock(EventWaitlistRepository.class));
+        TreeSet<Long> expected = new TreeSet<>();
+        long nextId = 1;
+
+        for (int i = 0; i < 100_000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                // Mostly ascending ids, with the occasional late commit of an older one
+                long id = random.nextInt(20) == 0 && nextId > 50 ? nextId - random.nextInt(50) : nextId++;
+                index.add(1L, id);
+                expected.add(id);
+            } else if (op < 8 && !expected.isEmpty()) {
+                // Usually the head, as promotions do, sometimes from the middle
+                Long id = random.nextBoolean() ? null : expected.ceiling((long) random.nextInt((int) nextId));
+                id = id == null ? expected.first() : id;
+                index.remove(1L, id);
+                expected.remove(id);
+            } else if (!expected.isEmpty()) {
+                Long id = expected.ceiling((long) random.nextInt((int) nextId));
+                if (id != null) {
+                    assertThat(index.position(1L, id)).isEqualTo(expected.headSet(id, true).size());
+                }
+            }
+        }
+        assertThat(index.size(1L)).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void testRebuildPagesThroughRepository() {
+        EventWaitlistRepository repository = mock(EventWaitlistRepository.class);
+        when(repository.findSlotsAfter(0L, Limit.of(1000))).thenReturn(List.of(new WaitlistSlot(4L, 1L), new WaitlistSlot(6L, 1L)));
+        WaitlistIndex index = new WaitlistIndex(repository);
+
+        index.rebuild();
+
+        assertThat(index.position(1L, 6L)).isEqualTo(2);
+    }
+}
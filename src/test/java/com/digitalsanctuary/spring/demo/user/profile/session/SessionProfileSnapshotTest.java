@@ -0,0 +1,90 @@
+package com.digitalsanctuary.spring.demo.user.profile.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.spring.demo.user.profile.DemoUserProfile;
+import com.digitalsanctuary.spring.demo.user.profile.ProfileUpdate;
+
+public class SessionProfileSnapshotTest {
+
+    @Test
+    public void testCopiesProfileFieldsWithoutRegistrations() {
+        DemoUserProfile profile = new DemoUserProfile();
+        profile.setId(7L);
+        profile.setFavoriteColor("blue");
+        profile.setReceiveNewsletter(true);
+
+        SessionProfileSnapshot snapshot = SessionProfileSnapshot.of(profile);
+
+        assertThat(snapshot.profileId()).isEqualTo(7L);
+        assertThat(snapshot.favoriteColor()).isEqualTo("blue");
+        assertThat(snapshot.receiveNewsletter()).isTrue();
+        assertThat(snapshot.hasRegisteredEventIds()).isFalse();
+        assertThat(snapshot.isRegisteredForEvent(1L)).isFalse();
+        // Changes before the ids are read are left to the query that reads them
+        assertThat(snapshot.withRegistrationChanges(List.of(1L), List.of())).isSameAs(snapshot);
+    }
+
+    @Test
+    public void testUnloadedSnapshotNeverMatchesAStoredStamp() {
+        SessionProfileSnapshot unloaded = SessionProfileSnapshot.unloaded(7L);
+
+        assertThat(unloaded.profileId()).isEqualTo(7L);
+        assertThat(unloaded.isLoaded()).isFalse();
+        assertThat(unloaded.changeStamp()).isNegative();
+        assertThat(new SessionProfileSnapshot(7L, 0, null, false, null).isLoaded()).isTrue();
+    }
+
+    @Test
+    public void testRegistrationChangesProduceSortedCopies() {
+        SessionProfileSnapshot loaded = new SessionProfileSnapshot(7L, 0, null, false, null).withRegisteredEventIds(List.of(30L, 10L, 20L, 10L));
+
+        SessionProfileSnapshot changed = loaded.withRegistrationChanges(List.of(5L, 20L), List.of(30L, 99L));
+
+        assertThat(loaded.registeredEventIds()).containsExactly(10L, 20L, 30L);
+        assertThat(changed.registeredEventIds()).containsExactly(5L, 10L, 20L);
+        assertThat(changed.isRegisteredForEvent(5L)).isTrue();
+        assertThat(changed.isRegisteredForEvent(30L)).isFalse();
+    }
+
+    @Test
+    public void testEqualsComparesRegisteredEventIdsByValue() {
+        SessionProfileSnapshot loaded = new SessionProfileSnapshot(7L, 0, "teal", true, null).withRegisteredEventIds(List.of(1L, 2L));
+
+        SessionProfileSnapshot reregistered = loaded.withRegistrationChanges(List.of(2L), List.of());
+
+        assertThat(reregistered).isNotSameAs(loaded).isEqualTo(loaded).hasSameHashCodeAs(loaded);
+        assertThat(loaded.withRegistrationChanges(List.of(3L), List.of())).isNotEqualTo(loaded);
+        assertThat(new SessionProfileSnapshot(7L, 0, "teal", true, null)).isNotEqualTo(loaded);
+    }
+
+    @Test
+    public void testOwnChangeTakesOnlyTheNextStamp() {
+        SessionProfileSnapshot loaded = new SessionProfileSnapshot(7L, 4, null, false, null);
+
+        assertThat(loaded.withOwnChange(5).changeStamp()).isEqualTo(5);
+        // A stamp further ahead means another change came in between, which only a reload picks up
+        assertThat(loaded.withOwnChange(6)).isSameAs(loaded);
+        assertThat(loaded.withOwnChange(ProfileUpdate.UNCHANGED)).isSameAs(loaded);
+        assertThat(SessionProfileSnapshot.unloaded(7L).withOwnChange(0).isLoaded()).isFalse();
+    }
+
+    @Test
+    public void testRetainedBytesGrowByEightPerRegistration() throws Exception {
+        SessionProfileSnapshot empty = new SessionProfileSnapshot(7L, 0, "blue", false, null).withRegisteredEventIds(List.of());
+        SessionProfileSnapshot hundred = empty.withRegisteredEventIds(LongStream.rangeClosed(1, 100).boxed().toList());
+
+        assertThat(hundred.estimatedRetainedBytes() - empty.estimatedRetainedBytes()).isEqualTo(800);
+
+        // Holds no entity, so it serializes on its own
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(hundred);
+        }
+        assertThat(bytes.size()).isLessThan(2048);
+    }
+}
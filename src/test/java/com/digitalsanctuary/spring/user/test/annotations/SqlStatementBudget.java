@@ -0,0 +1,42 @@
+package com.digitalsanctuary.spring.user.test.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails a test that executes more JDBC statements than allowed.
+ *
+ * Statements are counted on the test thread while the test method runs (not during {@code @BeforeEach} setup), which includes
+ * requests made through {@code MockMvc}. A JDBC batch counts as one statement. Place it on a test method, or on a class to apply
+ * the same budget to every method; a method-level budget wins. Requires the application context, e.g. {@link IntegrationTest}, so
+ * the DataSource is instrumented.
+ *
+ * Usage:
+ * <pre>
+ * &#64;Test
+ * &#64;SqlStatementBudget(2)
+ * void listingEventsRunsOneQuery() throws Exception {
+ *     mockMvc.perform(get("/api/events").param("limit", "20"));
+ * }
+ * </pre>
+ *
+ * For a relative check, such as "the count does not grow with the number of rows", open a
+ * {@link com.digitalsanctuary.spring.demo.jdbc.SqlStatistics.Scope} directly.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    /**
+     * The most statements the test may execute.
+     */
+    int value();
+}
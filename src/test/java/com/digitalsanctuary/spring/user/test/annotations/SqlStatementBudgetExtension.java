@@ -0,0 +1,42 @@
+package com.digitalsanctuary.spring.user.test.annotations;
+
+import java.util.Optional;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import com.digitalsanctuary.spring.demo.jdbc.SqlStatistics;
+
+/**
+ * Enforces {@link SqlStatementBudget}: opens a {@link SqlStatistics} scope around the test method and fails the test, listing the
+ * statements it ran, if the count is over budget.
+ */
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatistics.openCapturing());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatistics.Scope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatistics.Scope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        int budget = budget(context).orElseThrow();
+        if (context.getExecutionException().isEmpty() && scope.statementCount() > budget) {
+            throw new AssertionError("Expected at most " + budget + " SQL statement(s) but " + scope.statementCount() + " were executed:\n  "
+                    + String.join("\n  ", scope.statements()));
+        }
+    }
+
+    private static Optional<Integer> budget(ExtensionContext context) {
+        return AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), SqlStatementBudget.class))
+                .map(SqlStatementBudget::value);
+    }
+}